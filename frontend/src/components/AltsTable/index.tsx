@@ -170,7 +170,7 @@ const Table = ({
       } else {
         shouldHighlight =
           diff && record.diff
-            ? record.diff.last_seen === diff.diff?.last_seen &&
+            ? record.diff.timestamp === diff.diff?.timestamp &&
             record.diff.won === diff.diff.won &&
             record.diff.lost === diff.diff.lost
             : false;
@@ -12,7 +12,7 @@ import {
   getSeasonRankImageFromRating,
 } from "@/utils/table";
 import type { CharacterAndDiff } from "@/types";
-import { nickNameLenOnMobile } from "@/utils/common";
+import { nickNameLenOnMobile, timeAgo } from "@/utils/common";
 import ArrowUpwardIcon from "@mui/icons-material/ArrowUpward";
 import ArrowDownwardIcon from "@mui/icons-material/ArrowDownward";
 import FiberManualRecordIcon from "@mui/icons-material/FiberManualRecord";
@@ -241,11 +241,12 @@ const getTableColumns = (
     field: "lastSeen",
     label: isMobile ? "LS" : "LAST SEEN",
     render: ({ record }: { record: CharacterAndDiff }) => {
-      if (!record?.diff?.last_seen) return <></>;
-      const split = record.diff.last_seen.split(" ");
+      if (!record?.diff?.timestamp) return <></>;
+      const lastSeen = timeAgo(record.diff.timestamp);
+      const split = lastSeen.split(" ");
       const content = isMobile
         ? `${split[0]}${split[1].charAt(0)}`
-        : record.diff.last_seen;
+        : lastSeen;
 
       return <span className="whitespace-nowrap text-sm">{content}</span>;
     },
@@ -19,7 +19,7 @@ interface ActivityDiff {
   lost: number;
   rating_diff: number;
   rank_diff: number;
-  last_seen?: string;
+  timestamp: number;
 }
 
 export interface CharacterAndDiff extends Character {
@@ -114,7 +114,6 @@ export interface Diff {
   rating_diff: number;
   rank_diff: number;
   timestamp: number;
-  last_seen?: string;
 }
 
 interface Seasons {
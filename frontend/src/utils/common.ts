@@ -5,6 +5,25 @@ export function capitalizeFirstLetter(str?: string) {
 
 export const MINIMUM_NICKNAME_LENGTH = 9;
 
+const TIME_UNITS: [string, number][] = [
+  ["day", 24 * 60 * 60 * 1000],
+  ["hour", 60 * 60 * 1000],
+  ["minute", 60 * 1000],
+];
+
+/**
+ * Relative time like "5 minutes ago", computed on the client so the server
+ * responses don't change every minute.
+ */
+export function timeAgo(timestamp: number, now: number = Date.now()) {
+  const elapsed = now - timestamp;
+  for (const [unit, ms] of TIME_UNITS) {
+    const count = Math.floor(elapsed / ms);
+    if (count > 0) return `${count} ${unit}${count > 1 ? "s" : ""} ago`;
+  }
+  return "moments ago";
+}
+
 export function nickNameLenOnMobile() {
   return Math.round(Math.max(MINIMUM_NICKNAME_LENGTH, 6 + (window.innerWidth - 500) / 30));
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import io.github.sammers.pla.config.AppConfig;
 import io.github.sammers.pla.db.DB;
 import io.github.sammers.pla.http.Http;
 import io.github.sammers.pla.logic.*;
+import io.github.sammers.pla.ratelim.RequestPriority;
 import io.prometheus.metrics.core.metrics.Counter;
 import io.prometheus.metrics.core.metrics.Gauge;
 import io.prometheus.metrics.exporter.httpserver.HTTPServer;
@@ -25,6 +26,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.util.Locale;
@@ -80,7 +82,12 @@ public class Main {
     final String callbackUrl = config.callback();
     final MongoClient mongoClient = MongoClient.createShared(vertx,
       new JsonObject().put("db_name", "pvpq").put("connection_string", dbUri).put("maxPoolSize", 10));
-    final CharacterCache characterCache = new CharacterCache();
+    final CharacterCache characterCache;
+    if (config.cacheDir() == null) {
+      characterCache = new CharacterCache();
+    } else {
+      characterCache = new CharacterCache(CharacterSegmentStore.open(Paths.get(config.cacheDir()), 1 << 20));
+    }
     final Refs refs = new Refs();
     final Map<String, Cutoffs> cutoffsMap = new ConcurrentHashMap<>();
     Gauge permitsMetric = Gauge.builder()
@@ -101,7 +108,8 @@ public class Main {
     final BlizzardAPI blizzardAPI = new BlizzardAPI(vertx, permitsMetric, rlAcquiredCounter, rqCounter, "main",
       clientId, clientSecret, callbackUrl, webClient, refs, characterCache, cutoffsMap, true);
     final BlizzardAPI indexerBlizzardAPI = new BlizzardAPI(vertx, permitsMetric, rlAcquiredCounter, rqCounter,
-      "indexer", indexerClientId, indexerClientSecret, callbackUrl, webClient, refs, characterCache, cutoffsMap, false);
+      "indexer", indexerClientId, indexerClientSecret, callbackUrl, webClient, refs, characterCache, cutoffsMap, false)
+      .withPriority(RequestPriority.BACKGROUND);
     DB db = new DB(mongoClient);
     db.ensureIndexes().subscribe();
     NickNameSearchIndex idx = new NickNameSearchIndex();
@@ -4,14 +4,17 @@ import io.github.sammers.pla.Main;
 import io.github.sammers.pla.db.Character;
 import io.github.sammers.pla.logic.CharacterCache;
 import io.github.sammers.pla.logic.Refs;
+import io.github.sammers.pla.ratelim.AdaptiveRateLimiter;
 import io.github.sammers.pla.ratelim.ComposedRateLimiter;
-import io.github.sammers.pla.ratelim.RateLimiterV2;
+import io.github.sammers.pla.ratelim.GcraRateLimiter;
+import io.github.sammers.pla.ratelim.RequestPriority;
 import io.github.sammers.pla.ratelim.RxRateLimiterImpl;
 import io.prometheus.metrics.core.metrics.Counter;
 import io.prometheus.metrics.core.metrics.Gauge;
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Single;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.MultiMap;
@@ -19,6 +22,7 @@ import io.vertx.ext.auth.oauth2.OAuth2AuthorizationURL;
 import io.vertx.ext.auth.oauth2.OAuth2Options;
 import io.vertx.rxjava3.core.Vertx;
 import io.vertx.rxjava3.ext.auth.oauth2.OAuth2Auth;
+import io.vertx.rxjava3.ext.web.client.HttpRequest;
 import io.vertx.rxjava3.ext.web.client.HttpResponse;
 import io.vertx.rxjava3.ext.web.client.WebClient;
 import org.javatuples.Pair;
@@ -30,6 +34,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -44,14 +49,23 @@ public class BlizzardAPI {
   public static String LOCALE = "en_US";
   public static final Integer CURRENT_PVP_SEASON_ID = 40;
   private static final Logger log = LoggerFactory.getLogger(BlizzardAPI.class);
+  private static final int MAX_RETRIES = 6;
+  // Other server errors aren't pushback, one retry for a transient failure
+  private static final int SERVER_ERROR_RETRIES = 1;
+  private static final long RETRY_BASE_MS = 250;
+  private static final long RETRY_MAX_MS = 30_000;
+  private static final long CHARACTER_MEMO_SECONDS = 10;
   private final String clientSecret;
   private final WebClient webClient;
   private final Refs refs;
   private final CharacterCache characterCache;
   private final Map<String, Cutoffs> cutoffs;
   private final String clientId;
-  private final AtomicReference<BlizzardAuthToken> token = new AtomicReference<>();
+  private final AtomicReference<BlizzardAuthToken> token;
   private final RxRateLimiterImpl rateLimiter;
+  private final AdaptiveRateLimiter adaptive;
+  private final CharacterFlights characterFlights;
+  private final RequestPriority priority;
   private final Counter rqCounter;
   private final String keyName;
   private final String callbackUrl;
@@ -62,6 +76,9 @@ public class BlizzardAPI {
     CharacterCache characterCache, Map<String, Cutoffs> cutoffs, boolean preloadToken) {
     this.rqCounter = rqCounter;
     this.keyName = keyName;
+    this.token = new AtomicReference<>();
+    this.priority = RequestPriority.LADDER;
+    this.characterFlights = new CharacterFlights(TimeUnit.SECONDS.toNanos(CHARACTER_MEMO_SECONDS));
     this.clientId = clientId;
     this.clientSecret = clientSecret;
     this.callbackUrl = callbackUrl.trim();
@@ -79,16 +96,45 @@ public class BlizzardAPI {
         .setUserInfoPath("/userinfo"));
     // Compose rate limiters: 100 per second AND 36000 per hour
     String limiterBase = "blizzard-api-" + keyName;
-    RateLimiterV2 perSecond = new RateLimiterV2(limiterBase + "-100-per-sec", 100, 1, TimeUnit.SECONDS, preloadToken, permits,
-      limiterAcquiredCounter, Main.VTHREAD_SCHEDULER);
-    RateLimiterV2 perHour = new RateLimiterV2(limiterBase + "-36000-per-hr", 36000, 1, TimeUnit.HOURS, preloadToken, permits,
-      limiterAcquiredCounter, Main.VTHREAD_SCHEDULER);
-    ComposedRateLimiter composed = new ComposedRateLimiter(limiterBase, perSecond, perHour);
+    GcraRateLimiter perSecond = new GcraRateLimiter(limiterBase + "-100-per-sec", 100, 1, TimeUnit.SECONDS,
+      preloadToken, permits, limiterAcquiredCounter, Main.VTHREAD_SCHEDULER);
+    GcraRateLimiter perHour = new GcraRateLimiter(limiterBase + "-36000-per-hr", 36000, 1, TimeUnit.HOURS,
+      preloadToken, permits, limiterAcquiredCounter, Main.VTHREAD_SCHEDULER);
+    // Backs off below the quota when Blizzard throttles, see maybeHttpResponse
+    this.adaptive = new AdaptiveRateLimiter(limiterBase + "-adaptive", 5, 100);
+    ComposedRateLimiter composed = new ComposedRateLimiter(limiterBase, adaptive, perSecond, perHour);
     this.rateLimiter = new RxRateLimiterImpl(limiterBase, composed);
   }
 
+  private BlizzardAPI(BlizzardAPI api, RequestPriority priority) {
+    this.clientSecret = api.clientSecret;
+    this.webClient = api.webClient;
+    this.refs = api.refs;
+    this.characterCache = api.characterCache;
+    this.cutoffs = api.cutoffs;
+    this.clientId = api.clientId;
+    this.token = api.token;
+    this.rateLimiter = api.rateLimiter;
+    this.adaptive = api.adaptive;
+    this.characterFlights = api.characterFlights;
+    this.priority = priority;
+    this.rqCounter = api.rqCounter;
+    this.keyName = api.keyName;
+    this.callbackUrl = api.callbackUrl;
+    this.oauth2 = api.oauth2;
+  }
+
+  /**
+   * @return the same API, key and rate limiter, with requests waiting for
+   *         permits in the given priority lane. Requests are in the
+   *         {@link RequestPriority#LADDER} lane by default.
+   */
+  public BlizzardAPI withPriority(RequestPriority priority) {
+    return priority == this.priority ? this : new BlizzardAPI(this, priority);
+  }
+
   public Completable rpsToken() {
-    return rateLimiter.request();
+    return rateLimiter.request(priority);
   }
 
   public Single<BlizzardAuthToken> token() {
@@ -107,10 +153,6 @@ public class BlizzardAPI {
     });
   }
 
-  public Maybe<PvpLeaderBoard> pvpLeaderboard(String bracket, String region) {
-    return pvpLeaderboard(region, CURRENT_PVP_SEASON_ID, bracket, "dynamic-" + region);
-  }
-
   public Maybe<WowAPICharacter> character(String region, String fullName) {
     String name = fullName.split("-")[0];
     String realm = fullName.substring(name.length() + 1);
@@ -131,14 +173,24 @@ public class BlizzardAPI {
       .onErrorReturn(err -> err.getMessage() == null || !err.getMessage().contains("404"));
   }
 
+  /**
+   * Concurrent calls for the same character share one fetch, and its result is
+   * reused for {@link #CHARACTER_MEMO_SECONDS}, see {@link CharacterFlights}.
+   * The fetch runs in the priority lane of the caller that started it, an
+   * {@link RequestPriority#INTERACTIVE} caller only reuses interactive fetches.
+   */
   public Maybe<WowAPICharacter> character(String region, String realm, String name) {
-    String realRegion;
-    String realNamespace;
-    realRegion = realRegion(region);
-    realNamespace = "profile-" + realRegion;
+    String realRegion = realRegion(region);
     String realmSearch = URLEncoder.encode(realm.replaceAll(" ", "-").replaceAll("'", "").toLowerCase(),
       StandardCharsets.UTF_8);
     String nameSearch = URLEncoder.encode(name.toLowerCase(), StandardCharsets.UTF_8);
+    return characterFlights.get(realRegion + "/" + realmSearch + "/" + nameSearch, priority,
+      () -> fetchCharacter(realRegion, realmSearch, nameSearch, realm, name));
+  }
+
+  private Maybe<WowAPICharacter> fetchCharacter(String realRegion, String realmSearch, String nameSearch,
+    String realm, String name) {
+    String realNamespace = "profile-" + realRegion;
     String absoluteURI = "https://" + realRegion + ".api.blizzard.com/profile/wow/character/" + realmSearch + "/"
       + nameSearch;
     return token().flatMapMaybe(blizzardAuthToken -> {
@@ -151,6 +203,8 @@ public class BlizzardAPI {
           res = Maybe.empty();
         } else {
           log.debug("Found Character:  " + name + " on " + realm + " in " + realRegion);
+          Optional<WowAPICharacter> prev = Optional
+            .ofNullable(characterCache.getByFullName(Character.fullNameByRealmAndName(name, realm)));
           res = maybeResponse(realNamespace, json.getJsonObject("pvp_summary").getString("href")).flatMap(pvp -> {
             JsonArray bracketFromJson = pvp.getJsonArray("brackets");
             if (bracketFromJson == null) {
@@ -161,22 +215,27 @@ public class BlizzardAPI {
               .map(ref -> maybeResponse(realNamespace, ref))
               .toList()).toList();
             rqCounter.labelValues("brackets", keyName).inc(bracketFromJson.size());
-            Single<Optional<JsonObject>> achievementsRx = optionalResponse(realNamespace,
-              absoluteURI + "/achievements");
-            rqCounter.labelValues("achievements", keyName).inc();
-            Single<Optional<JsonObject>> mediaRx = optionalResponse(realNamespace, absoluteURI + "/character-media");
-            rqCounter.labelValues("character-media", keyName).inc();
-            Single<Optional<JsonObject>> petsRx = optionalResponse(realNamespace, absoluteURI + "/collections/pets");
-            rqCounter.labelValues("pets", keyName).inc();
-            Single<Optional<JsonObject>> specsRx = optionalResponse(realNamespace, absoluteURI + "/specializations");
-            rqCounter.labelValues("specializations", keyName).inc();
+            long now = System.currentTimeMillis();
+            // a character update requested by a user refreshes everything
+            boolean all = priority == RequestPriority.INTERACTIVE;
+            String activeSpec = Optional.ofNullable(json.getJsonObject("active_spec"))
+              .map(spec -> spec.getString("name"))
+              .orElse("");
+            Single<Optional<JsonObject>> achievementsRx = characterPart(CharacterPart.ACHIEVEMENTS, prev, now, all,
+              realNamespace, absoluteURI);
+            Single<Optional<JsonObject>> mediaRx = characterPart(CharacterPart.MEDIA, prev, now, all, realNamespace,
+              absoluteURI);
+            Single<Optional<JsonObject>> petsRx = characterPart(CharacterPart.PETS, prev, now, all, realNamespace,
+              absoluteURI);
+            // talents belong to the active spec
+            boolean specChanged = prev.map(previous -> !activeSpec.equals(previous.activeSpec())).orElse(true);
+            Single<Optional<JsonObject>> specsRx = characterPart(CharacterPart.SPECIALIZATIONS, prev, now,
+              all || specChanged, realNamespace, absoluteURI);
             Single<List<Optional<JsonObject>>> otherStuffRx = Single.zip(achievementsRx, mediaRx, petsRx, specsRx,
               (a, m, p, s) -> List.of(a, m, p, s));
             return Single.zip(bracketList, otherStuffRx, Pair::new).flatMapMaybe(pair -> {
               List<JsonObject> brackets = pair.getValue0();
               List<Optional<JsonObject>> otherStuff = pair.getValue1();
-              Optional<WowAPICharacter> prev = Optional
-                .ofNullable(characterCache.getByFullName(Character.fullNameByRealmAndName(name, realm)));
               Optional<Cutoffs> ctfs = Optional.ofNullable(cutoffs.get(realRegion));
               WowAPICharacter parsed = WowAPICharacter.parse(characterCache, prev, refs, ctfs, json, pvp, brackets,
                 otherStuff.get(0), otherStuff.get(1), otherStuff.get(3), otherStuff.get(2), realRegion);
@@ -194,27 +253,67 @@ public class BlizzardAPI {
     });
   }
 
+  /**
+   * @return the part of the character at {@code characterUri}, empty when it's
+   *         not due and the previous one is kept
+   */
+  private Single<Optional<JsonObject>> characterPart(CharacterPart part, Optional<WowAPICharacter> previous, long now,
+    boolean force, String namespace, String characterUri) {
+    if (!part.due(previous, now, force)) {
+      return Single.just(Optional.empty());
+    }
+    rqCounter.labelValues(part.label(), keyName).inc();
+    return optionalResponse(namespace, characterUri + part.path());
+  }
+
   Maybe<JsonObject> maybeResponse(String namespace, String url) {
+    return maybeHttpResponse(namespace, url, null).map(HttpResponse::bodyAsJsonObject);
+  }
+
+  /**
+   * @param ifModifiedSince
+   *          Last-Modified of the previous response, 304 responses are
+   *          returned as well when set
+   */
+  private Maybe<HttpResponse<Buffer>> maybeHttpResponse(String namespace, String url, String ifModifiedSince) {
+    return maybeHttpResponse(namespace, url, ifModifiedSince, 0);
+  }
+
+  private Maybe<HttpResponse<Buffer>> maybeHttpResponse(String namespace, String url, String ifModifiedSince,
+    int attempt) {
     return token().flatMapMaybe(blizzardAuthToken -> rpsToken().andThen(Maybe.defer(() -> {
       log.debug("Getting " + url);
-      return webClient.getAbs(url)
+      HttpRequest<Buffer> request = webClient.getAbs(url)
         .addQueryParam("namespace", namespace)
         .addQueryParam("locale", LOCALE)
         .bearerTokenAuthentication(blizzardAuthToken.accessToken())
-        .timeout(TimeUnit.MINUTES.toMillis(10))
-        .rxSend()
+        .timeout(TimeUnit.MINUTES.toMillis(10));
+      if (ifModifiedSince != null) {
+        request.putHeader("If-Modified-Since", ifModifiedSince);
+      }
+      return request.rxSend()
         .onErrorResumeNext(er -> {
           log.error("Error getting " + url, er);
+          // timeouts and refused connections are pushback too
+          adaptive.onThrottled(0);
           return Single.error(er);
         })
         .flatMapMaybe(resp -> {
           log.debug("Got response to" + url + " " + resp.statusCode());
-          if (resp.statusCode() == 200) {
-            return Maybe.just(resp.bodyAsJsonObject());
-          } else if (resp.statusCode() == 429 || resp.statusCode() / 100 == 5) {
-            int code = resp.statusCode();
-            log.info(code + " Retrying " + url + " " + resp.statusMessage());
-            return rpsToken().andThen(rpsToken()).andThen(maybeResponse(namespace, url));
+          boolean throttled = throttled(resp.statusCode());
+          boolean serverError = resp.statusCode() / 100 == 5;
+          if (throttled) {
+            adaptive.onThrottled(retryAfterMillis(resp.getHeader("Retry-After")));
+          } else if (!serverError) {
+            adaptive.onSuccess();
+          }
+          if (resp.statusCode() == 200 || (ifModifiedSince != null && resp.statusCode() == 304)) {
+            return Maybe.just(resp);
+          } else if ((throttled && attempt < MAX_RETRIES) || (serverError && attempt < SERVER_ERROR_RETRIES)) {
+            long backoff = backoffMillis(attempt);
+            log.info(resp.statusCode() + " Retrying " + url + " in " + backoff + " ms " + resp.statusMessage());
+            return Completable.timer(backoff, TimeUnit.MILLISECONDS)
+              .andThen(maybeHttpResponse(namespace, url, ifModifiedSince, attempt + 1));
           } else {
             return Maybe.error(new IllegalStateException("Error getting " + url + " " + resp.statusCode() + " "
               + resp.statusMessage() + " " + resp.bodyAsString()));
@@ -223,6 +322,37 @@ public class BlizzardAPI {
     })));
   }
 
+  /**
+   * @return whether the status means Blizzard pushes back, the adaptive rate
+   *         backs off and the request is retried until {@code MAX_RETRIES}
+   */
+  static boolean throttled(int statusCode) {
+    return statusCode == 429 || statusCode == 503;
+  }
+
+  /**
+   * Jittered exponential backoff, a random wait between half and all of
+   * {@code RETRY_BASE_MS * 2^attempt}, capped at {@code RETRY_MAX_MS}.
+   */
+  static long backoffMillis(int attempt) {
+    long ceiling = Math.min(RETRY_MAX_MS, RETRY_BASE_MS << Math.min(attempt, 20));
+    return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+  }
+
+  /**
+   * @return Retry-After in millis, 0 if missing or not in seconds
+   */
+  static long retryAfterMillis(String retryAfter) {
+    if (retryAfter == null) {
+      return 0;
+    }
+    try {
+      return Math.min(RETRY_MAX_MS, TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim())));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
   Single<Optional<JsonObject>> optionalResponse(String namespace, String url) {
     return maybeResponse(namespace, url).map(Optional::of)
       .defaultIfEmpty(Optional.empty())
@@ -253,39 +383,32 @@ public class BlizzardAPI {
     return oldRegion;
   }
 
-  public Maybe<PvpLeaderBoard> pvpLeaderboard(String region, Integer pvpSeasonId, String pvpBracket, String namespace) {
-    String realRegion;
-    String realNamespace;
-    String realPvpBracket;
-    if (region.equals("en-gb")) {
-      realRegion = "eu";
-      realNamespace = "dynamic-eu";
-    } else if (region.equals("en-us")) {
-      realRegion = "us";
-      realNamespace = "dynamic-us";
-    } else {
-      realRegion = region;
-      realNamespace = namespace;
-    }
-    if (pvpBracket.equals("battlegrounds")) {
-      realPvpBracket = "rbg";
-    } else {
-      realPvpBracket = pvpBracket;
-    }
-    String url = "https://" + realRegion + ".api.blizzard.com/data/wow/pvp-season/" + pvpSeasonId + "/pvp"
-      + "-leaderboard/" + realPvpBracket;
+  /**
+   * Raw current season leaderboard, fetched conditionally. The body is null when
+   * the leaderboard hasn't been modified since ifModifiedSince.
+   */
+  public record LeaderboardPayload(String body, String lastModified) {
+  }
+
+  public Maybe<LeaderboardPayload> pvpLeaderboardPayload(String bracket, String region, String ifModifiedSince) {
+    String realRegion = realRegion(region);
+    String realPvpBracket = bracket.equals("battlegrounds") ? "rbg" : bracket;
+    String url = leaderboardUrl(realRegion, CURRENT_PVP_SEASON_ID, realPvpBracket);
     return Maybe.defer(() -> {
-      return token().flatMapMaybe(blizzardAuthToken -> {
-        rqCounter.labelValues("pvp-leaderboard", keyName).inc();
-        return maybeResponse(realNamespace, url);
-      }).map(PvpLeaderBoard::fromJson);
+      rqCounter.labelValues("pvp-leaderboard", keyName).inc();
+      return maybeHttpResponse("dynamic-" + realRegion, url, ifModifiedSince);
     })
-      .doOnSubscribe(disposable -> log.info("Getting leaderboard for region={} ssn={} bracket={}", realRegion,
-        pvpSeasonId, realPvpBracket))
-      .doOnError(er -> log.error("Error fetching Blizzard PVP leaderboard", er))
+      .map(resp -> new LeaderboardPayload(resp.statusCode() == 304 ? null : resp.bodyAsString(),
+        Optional.ofNullable(resp.getHeader("Last-Modified")).orElse(ifModifiedSince)))
+      .doOnError(er -> log.error("Error fetching Blizzard PVP leaderboard {} {}", region, bracket, er))
       .onErrorResumeNext(e -> Maybe.empty());
   }
 
+  private static String leaderboardUrl(String realRegion, Integer pvpSeasonId, String realPvpBracket) {
+    return "https://" + realRegion + ".api.blizzard.com/data/wow/pvp-season/" + pvpSeasonId + "/pvp"
+      + "-leaderboard/" + realPvpBracket;
+  }
+
   private Single<BlizzardAuthToken> authorize() {
     MultiMap form = MultiMap.caseInsensitiveMultiMap();
     form.set("grant_type", "client_credentials");
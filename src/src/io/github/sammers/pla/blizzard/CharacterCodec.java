@@ -0,0 +1,549 @@
+package io.github.sammers.pla.blizzard;
+
+import io.github.sammers.pla.db.Character;
+import io.github.sammers.pla.logic.BlobCompression;
+import io.github.sammers.pla.logic.Diff;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact binary record format for {@link WowAPICharacter} used by the
+ * in-memory character cache.
+ *
+ * Layout: version, flags, id, lastUpdatedUTCms, petHash, region, realm, name,
+ * the rest of the scalar fields, packed brackets (including gaming history),
+ * alts and finally a compressed JSON tail with achievements, media and talents.
+ * Numbers are varints, low-cardinality strings (realm, class, spec, race,
+ * region, bracket type...) are codes in a process wide {@link StringDictionary}
+ * and names are length-prefixed UTF-8. The tail starts with the id of the
+ * {@link BlobCompression} it was compressed with, see
+ * {@link #useTailCompression(BlobCompression)}.
+ *
+ * The header fields go first so they can be read with {@link #id(byte[])},
+ * {@link #region(byte[])} etc. without decoding the whole record.
+ */
+public final class CharacterCodec {
+  private static final byte VERSION = 1;
+  private static final int FLAG_HIDDEN = 1;
+  private static final int HEADER_OFFSET = 2;
+  private static final StringDictionary DICT = new StringDictionary();
+  private static final Map<Integer, BlobCompression> COMPRESSIONS = new ConcurrentHashMap<>(
+    Map.of(BlobCompression.GZIP.id(), BlobCompression.GZIP));
+  private static volatile BlobCompression tailCompression = BlobCompression.GZIP;
+
+  private CharacterCodec() {
+  }
+
+  /**
+   * Switches the compression of the tails of newly encoded records. Records
+   * encoded before stay readable, use {@link #recompressTail(byte[])} to move
+   * them to the new compression.
+   */
+  public static void useTailCompression(BlobCompression compression) {
+    COMPRESSIONS.put(compression.id(), compression);
+    tailCompression = compression;
+  }
+
+  public static BlobCompression tailCompression() {
+    return tailCompression;
+  }
+
+  public static Collection<BlobCompression> tailCompressions() {
+    return COMPRESSIONS.values();
+  }
+
+  /**
+   * @return id which is not used by any of the known tail compressions
+   */
+  public static int nextCompressionId() {
+    return COMPRESSIONS.keySet().stream().mapToInt(Integer::intValue).max().orElse(0) + 1;
+  }
+
+  /**
+   * @return number of strings in the dictionary, codes go from 1 to this value
+   */
+  public static int dictionarySize() {
+    return DICT.size();
+  }
+
+  public static String dictionaryValue(int code) {
+    return DICT.value(code);
+  }
+
+  /**
+   * Restores a dictionary string persisted by an earlier process. Strings have
+   * to be restored in code order before anything else is encoded.
+   *
+   * @throws IllegalStateException
+   *           if the string got a different code than it had before
+   */
+  public static void restoreDictionaryValue(int code, String value) {
+    int restored = DICT.code(value);
+    if (restored != code) {
+      throw new IllegalStateException("Dictionary value " + value + " restored with code " + restored
+        + " instead of " + code);
+    }
+  }
+
+  public static byte[] encode(WowAPICharacter character) {
+    Writer w = new Writer(256);
+    w.writeByte(VERSION);
+    w.writeByte(character.hidden() ? FLAG_HIDDEN : 0);
+    w.writeVarLong(character.id());
+    w.writeZigZagLong(Optional.ofNullable(character.lastUpdatedUTCms()).orElse(0L));
+    w.writeZigZagLong(character.petHash());
+    w.writeDict(character.region());
+    w.writeDict(character.realm());
+    w.writeString(character.name());
+    w.writeDict(character.gender());
+    w.writeDict(character.fraction());
+    w.writeDict(character.race());
+    w.writeDict(character.activeSpec());
+    w.writeDict(character.clazz());
+    w.writeZigZagLong(character.level());
+    w.writeZigZagLong(character.itemLevel());
+    List<PvpBracket> brackets = Optional.ofNullable(character.brackets()).orElse(List.of());
+    w.writeVarLong(brackets.size());
+    for (PvpBracket bracket : brackets) {
+      writeBracket(w, bracket);
+    }
+    Set<Long> alts = Optional.ofNullable(character.alts()).orElse(Set.of());
+    w.writeVarLong(alts.size());
+    for (Long alt : alts) {
+      w.writeVarLong(alt);
+    }
+    writeTail(w, new JsonObject().put("achievements", character.achievements().toJson())
+      .put("media", character.media().toJson())
+      .put("talents", character.talents())
+      .put("pvpTalents", new JsonArray(character.pvpTalents().stream().map(PvpTalent::toJson).toList()))
+      .encode()
+      .getBytes(StandardCharsets.UTF_8));
+    return w.toByteArray();
+  }
+
+  /**
+   * @return uncompressed JSON tail of the record
+   */
+  public static byte[] tail(byte[] bytes) {
+    return toTail(bytes).readTail();
+  }
+
+  /**
+   * @return the record with its tail compressed by the current tail
+   *         compression, or the same array if it already is
+   */
+  public static byte[] recompressTail(byte[] bytes) {
+    Reader r = toTail(bytes);
+    int tailStart = r.pos;
+    BlobCompression current = tailCompression;
+    if (r.readVarLong() == current.id()) {
+      return bytes;
+    }
+    r.pos = tailStart;
+    byte[] tail = r.readTail();
+    Writer w = new Writer(tailStart + tail.length / 4);
+    w.out.write(bytes, 0, tailStart);
+    writeTail(w, tail);
+    return w.toByteArray();
+  }
+
+  private static void writeTail(Writer w, byte[] tail) {
+    BlobCompression compression = tailCompression;
+    byte[] compressed = compression.compress(tail);
+    w.writeVarLong(compression.id());
+    w.writeVarLong(compressed.length);
+    w.writeBytes(compressed);
+  }
+
+  /**
+   * @return reader positioned at the start of the tail
+   */
+  private static Reader toTail(byte[] bytes) {
+    Reader r = header(bytes, 5);
+    r.readString();
+    // gender, fraction, race, activeSpec, clazz, level, itemLevel
+    for (int i = 0; i < 7; i++) {
+      r.skipVarLong();
+    }
+    int bracketsCount = (int) r.readVarLong();
+    for (int i = 0; i < bracketsCount; i++) {
+      readBracket(r);
+    }
+    int altsCount = (int) r.readVarLong();
+    for (int i = 0; i < altsCount; i++) {
+      r.skipVarLong();
+    }
+    return r;
+  }
+
+  public static WowAPICharacter decode(byte[] bytes) {
+    if (bytes == null) {
+      return null;
+    }
+    Reader r = new Reader(bytes, 0);
+    checkVersion(r.readByte());
+    boolean hidden = (r.readByte() & FLAG_HIDDEN) != 0;
+    long id = r.readVarLong();
+    long lastUpdatedUTCms = r.readZigZagLong();
+    int petHash = (int) r.readZigZagLong();
+    String region = r.readDict();
+    String realm = r.readDict();
+    String name = r.readString();
+    String gender = r.readDict();
+    String fraction = r.readDict();
+    String race = r.readDict();
+    String activeSpec = r.readDict();
+    String clazz = r.readDict();
+    int level = (int) r.readZigZagLong();
+    int itemLevel = (int) r.readZigZagLong();
+    int bracketsCount = (int) r.readVarLong();
+    List<PvpBracket> brackets = new ArrayList<>(bracketsCount);
+    for (int i = 0; i < bracketsCount; i++) {
+      brackets.add(readBracket(r));
+    }
+    int altsCount = (int) r.readVarLong();
+    Set<Long> alts = new HashSet<>(altsCount);
+    for (int i = 0; i < altsCount; i++) {
+      alts.add(r.readVarLong());
+    }
+    JsonObject tail = new JsonObject(new String(r.readTail(), StandardCharsets.UTF_8));
+    JsonArray pvpTalentsArr = tail.getJsonArray("pvpTalents");
+    List<PvpTalent> pvpTalents = pvpTalentsArr == null
+      ? List.of()
+      : pvpTalentsArr.stream().map(o -> PvpTalent.fromJson((JsonObject) o)).toList();
+    return new WowAPICharacter(id, hidden, name, realm, gender, fraction, race, activeSpec, level, clazz, itemLevel,
+      region, brackets, lastUpdatedUTCms, Achievements.fromJson(tail.getJsonObject("achievements")), petHash,
+      CharacterMedia.fromJson(tail.getJsonObject("media")), Optional.ofNullable(tail.getString("talents")).orElse(""),
+      pvpTalents, alts);
+  }
+
+  public static boolean hidden(byte[] bytes) {
+    return (bytes[1] & FLAG_HIDDEN) != 0;
+  }
+
+  public static long id(byte[] bytes) {
+    return header(bytes, 0).readVarLong();
+  }
+
+  public static long lastUpdatedUTCms(byte[] bytes) {
+    return header(bytes, 1).readZigZagLong();
+  }
+
+  public static int petHash(byte[] bytes) {
+    return (int) header(bytes, 2).readZigZagLong();
+  }
+
+  public static String region(byte[] bytes) {
+    return header(bytes, 3).readDict();
+  }
+
+  public static String realm(byte[] bytes) {
+    return header(bytes, 4).readDict();
+  }
+
+  public static String name(byte[] bytes) {
+    return header(bytes, 5).readString();
+  }
+
+  public static String fullName(byte[] bytes) {
+    Reader r = header(bytes, 4);
+    String realm = r.readDict();
+    return Character.fullNameByRealmAndName(r.readString(), realm);
+  }
+
+  /**
+   * @return reader positioned at the header field with the given index
+   */
+  private static Reader header(byte[] bytes, int field) {
+    checkVersion(bytes[0]);
+    Reader r = new Reader(bytes, HEADER_OFFSET);
+    for (int i = 0; i < field; i++) {
+      r.skipVarLong();
+    }
+    return r;
+  }
+
+  private static void checkVersion(byte version) {
+    if (version != VERSION) {
+      throw new IllegalArgumentException("Unknown character record version: " + version);
+    }
+  }
+
+  private static void writeBracket(Writer w, PvpBracket bracket) {
+    w.writeDict(bracket.bracketType());
+    w.writeNullableLong(bracket.rating());
+    w.writeNullableLong(bracket.won());
+    w.writeNullableLong(bracket.lost());
+    w.writeNullableLong(bracket.rank());
+    w.writeNullableLong(bracket.seasonMaxRating());
+    w.writeNullableLong(bracket.seasonMaxRatingAchievedTimestamp());
+    w.writeNullableLong(bracket.maxRating());
+    w.writeNullableLong(bracket.maxRatingAchievedTimestamp());
+    w.writeNullableBoolean(bracket.isRankOneRange());
+    List<DiffAndWithWho> hist = bracket.gamingHistory() == null ? List.of() : bracket.gamingHistory().hist();
+    w.writeVarLong(hist.size());
+    for (DiffAndWithWho item : hist) {
+      w.writeByte(item.character() == null ? 0 : 1);
+      if (item.character() != null) {
+        writeCharacter(w, item.character());
+      }
+      Diff diff = item.diff();
+      w.writeNullableLong(diff.won());
+      w.writeNullableLong(diff.lost());
+      w.writeNullableLong(diff.ratingDiff());
+      w.writeNullableLong(diff.rankDiff());
+      w.writeNullableLong(diff.timestamp());
+      List<Character> withWho = Optional.ofNullable(item.withWho()).orElse(List.of());
+      w.writeVarLong(withWho.size());
+      for (Character character : withWho) {
+        writeCharacter(w, character);
+      }
+    }
+  }
+
+  private static PvpBracket readBracket(Reader r) {
+    String bracketType = r.readDict();
+    Long rating = r.readNullableLong();
+    Long won = r.readNullableLong();
+    Long lost = r.readNullableLong();
+    Long rank = r.readNullableLong();
+    Long seasonMaxRating = r.readNullableLong();
+    Long seasonMaxRatingAchievedTimestamp = r.readNullableLong();
+    Long maxRating = r.readNullableLong();
+    Long maxRatingAchievedTimestamp = r.readNullableLong();
+    Boolean isRankOneRange = r.readNullableBoolean();
+    int histSize = (int) r.readVarLong();
+    List<DiffAndWithWho> hist = new ArrayList<>(histSize);
+    for (int i = 0; i < histSize; i++) {
+      Character character = r.readByte() == 0 ? null : readCharacter(r);
+      Diff diff = new Diff(r.readNullableLong(), r.readNullableLong(), r.readNullableLong(), r.readNullableLong(),
+        r.readNullableLong());
+      int withWhoSize = (int) r.readVarLong();
+      List<Character> withWho = new ArrayList<>(withWhoSize);
+      for (int j = 0; j < withWhoSize; j++) {
+        withWho.add(readCharacter(r));
+      }
+      hist.add(new DiffAndWithWho(character, diff, withWho));
+    }
+    return new PvpBracket(bracketType, rating, won, lost, rank, seasonMaxRating, seasonMaxRatingAchievedTimestamp,
+      maxRating, maxRatingAchievedTimestamp, isRankOneRange, new GamingHistory(hist));
+  }
+
+  private static void writeCharacter(Writer w, Character character) {
+    w.writeNullableLong(character.pos());
+    w.writeNullableLong(character.rating());
+    w.writeByte(character.inCutoff() ? 1 : 0);
+    w.writeString(character.name());
+    w.writeDict(character.clazz());
+    w.writeDict(character.fullSpec());
+    w.writeDict(character.fraction());
+    w.writeDict(character.gender());
+    w.writeDict(character.race());
+    w.writeDict(character.realm());
+    w.writeNullableLong(character.wins());
+    w.writeNullableLong(character.losses());
+    w.writeNullableLong(character.pethash().map(Integer::longValue).orElse(null));
+  }
+
+  private static Character readCharacter(Reader r) {
+    Long pos = r.readNullableLong();
+    Long rating = r.readNullableLong();
+    boolean inCutoff = r.readByte() != 0;
+    String name = r.readString();
+    String clazz = r.readDict();
+    String fullSpec = r.readDict();
+    String fraction = r.readDict();
+    String gender = r.readDict();
+    String race = r.readDict();
+    String realm = r.readDict();
+    Long wins = r.readNullableLong();
+    Long losses = r.readNullableLong();
+    Optional<Integer> pethash = Optional.ofNullable(r.readNullableLong()).map(Long::intValue);
+    return new Character(pos, rating, inCutoff, name, clazz, fullSpec, fraction, gender, race, realm, wins, losses,
+      pethash);
+  }
+
+  /**
+   * Append-only string dictionary. Code 0 is reserved for null. Codes are only
+   * meaningful within the current process unless the dictionary is persisted
+   * and restored together with the records.
+   */
+  static final class StringDictionary {
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[1024];
+    private int size = 0;
+
+    int code(String value) {
+      if (value == null) {
+        return 0;
+      }
+      Integer code = codes.get(value);
+      if (code != null) {
+        return code;
+      }
+      synchronized (this) {
+        code = codes.get(value);
+        if (code != null) {
+          return code;
+        }
+        String[] cur = values;
+        if (size + 1 >= cur.length) {
+          cur = Arrays.copyOf(cur, cur.length * 2);
+        }
+        int next = ++size;
+        cur[next] = value;
+        values = cur;
+        codes.put(value, next);
+        return next;
+      }
+    }
+
+    String value(int code) {
+      return code == 0 ? null : values[code];
+    }
+
+    int size() {
+      return codes.size();
+    }
+  }
+
+  private static final class Writer {
+    private final ByteArrayOutputStream out;
+
+    Writer(int size) {
+      out = new ByteArrayOutputStream(size);
+    }
+
+    void writeByte(int b) {
+      out.write(b);
+    }
+
+    void writeBytes(byte[] bytes) {
+      out.writeBytes(bytes);
+    }
+
+    void writeVarLong(long value) {
+      while ((value & ~0x7FL) != 0) {
+        out.write((int) ((value & 0x7F) | 0x80));
+        value >>>= 7;
+      }
+      out.write((int) value);
+    }
+
+    void writeZigZagLong(long value) {
+      writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    void writeNullableLong(Long value) {
+      if (value == null) {
+        out.write(0);
+      } else {
+        out.write(1);
+        writeZigZagLong(value);
+      }
+    }
+
+    void writeNullableBoolean(Boolean value) {
+      out.write(value == null ? 0 : value ? 2 : 1);
+    }
+
+    void writeString(String value) {
+      if (value == null) {
+        writeVarLong(0);
+        return;
+      }
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeVarLong(bytes.length + 1L);
+      out.writeBytes(bytes);
+    }
+
+    void writeDict(String value) {
+      writeVarLong(DICT.code(value));
+    }
+
+    byte[] toByteArray() {
+      return out.toByteArray();
+    }
+  }
+
+  private static final class Reader {
+    private final byte[] bytes;
+    private int pos;
+
+    Reader(byte[] bytes, int pos) {
+      this.bytes = bytes;
+      this.pos = pos;
+    }
+
+    byte readByte() {
+      return bytes[pos++];
+    }
+
+    byte[] readBytes(int length) {
+      byte[] res = Arrays.copyOfRange(bytes, pos, pos + length);
+      pos += length;
+      return res;
+    }
+
+    long readVarLong() {
+      long result = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = bytes[pos++];
+        result |= (long) (b & 0x7F) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      return result;
+    }
+
+    void skipVarLong() {
+      while ((bytes[pos++] & 0x80) != 0) {
+        // skip continuation bytes
+      }
+    }
+
+    long readZigZagLong() {
+      long raw = readVarLong();
+      return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    Long readNullableLong() {
+      return readByte() == 0 ? null : readZigZagLong();
+    }
+
+    Boolean readNullableBoolean() {
+      byte b = readByte();
+      return b == 0 ? null : b == 2;
+    }
+
+    String readString() {
+      int length = (int) readVarLong();
+      if (length == 0) {
+        return null;
+      }
+      String res = new String(bytes, pos, length - 1, StandardCharsets.UTF_8);
+      pos += length - 1;
+      return res;
+    }
+
+    String readDict() {
+      return DICT.value((int) readVarLong());
+    }
+
+    byte[] readTail() {
+      int compressionId = (int) readVarLong();
+      BlobCompression compression = COMPRESSIONS.get(compressionId);
+      if (compression == null) {
+        throw new IllegalStateException("Unknown tail compression: " + compressionId);
+      }
+      int length = (int) readVarLong();
+      return compression.decompress(readBytes(length));
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package io.github.sammers.pla.blizzard;
+
+import io.github.sammers.pla.ratelim.RequestPriority;
+import io.prometheus.metrics.core.metrics.Counter;
+import io.reactivex.rxjava3.core.Maybe;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for character fetches. Concurrent fetches of the same character
+ * share one set of API calls, and the result, found or not, is reused for a
+ * short while after it arrives. Failed fetches aren't reused.
+ * <p>
+ * An {@link RequestPriority#INTERACTIVE} fetch doesn't wait in a lower lane and
+ * fetches every part of the character, so an interactive caller never reuses a
+ * fetch of a lower priority. It starts its own, which the later callers share
+ * and whose result replaces the memoized one.
+ */
+class CharacterFlights {
+  private static final Counter CHARACTER_FETCHES = Counter.builder()
+    .name("blizzard_character_fetches_total")
+    .help("Character fetches by result: memoized, shared (joined a fetch in flight) or fetched")
+    .labelNames("result")
+    .register();
+  private final long memoNanos;
+  private final Map<String, Flight> inFlight = new HashMap<>();
+  // In insertion order, which is expiration order as well
+  private final LinkedHashMap<String, Fetched> memo = new LinkedHashMap<>();
+
+  /**
+   * @param character
+   *          null when the character wasn't found
+   */
+  private record Fetched(WowAPICharacter character, RequestPriority priority, long at) {
+  }
+
+  private static final class Flight {
+    final RequestPriority priority;
+    Maybe<WowAPICharacter> character;
+
+    Flight(RequestPriority priority) {
+      this.priority = priority;
+    }
+  }
+
+  CharacterFlights(long memoNanos) {
+    this.memoNanos = memoNanos;
+  }
+
+  Maybe<WowAPICharacter> get(String key, RequestPriority priority, Supplier<Maybe<WowAPICharacter>> fetch) {
+    return Maybe.defer(() -> {
+      synchronized (this) {
+        expire(System.nanoTime());
+        Fetched fetched = memo.get(key);
+        if (fetched != null && covers(fetched.priority(), priority)) {
+          CHARACTER_FETCHES.labelValues("memoized").inc();
+          return fetched.character() == null ? Maybe.empty() : Maybe.just(fetched.character());
+        }
+        Flight flight = inFlight.get(key);
+        if (flight != null && covers(flight.priority, priority)) {
+          CHARACTER_FETCHES.labelValues("shared").inc();
+          return flight.character;
+        }
+        CHARACTER_FETCHES.labelValues("fetched").inc();
+        Flight started = new Flight(priority);
+        started.character = fetch.get().doOnEvent((character, e) -> {
+          if (e == null) {
+            fetched(key, character, priority);
+          }
+        }).doFinally(() -> done(key, started)).cache();
+        inFlight.put(key, started);
+        return started.character;
+      }
+    });
+  }
+
+  /**
+   * @return whether a fetch of the given priority can serve a caller of the
+   *         wanted one
+   */
+  private static boolean covers(RequestPriority priority, RequestPriority wanted) {
+    return priority == RequestPriority.INTERACTIVE || wanted != RequestPriority.INTERACTIVE;
+  }
+
+  private synchronized void fetched(String key, WowAPICharacter character, RequestPriority priority) {
+    Fetched current = memo.get(key);
+    if (current != null && !covers(priority, current.priority())) {
+      // A lower priority fetch that finished late doesn't replace an interactive one
+      return;
+    }
+    memo.remove(key);
+    memo.put(key, new Fetched(character, priority, System.nanoTime()));
+  }
+
+  private synchronized void done(String key, Flight flight) {
+    inFlight.remove(key, flight);
+  }
+
+  private void expire(long now) {
+    Iterator<Fetched> eldest = memo.values().iterator();
+    while (eldest.hasNext() && now - eldest.next().at() >= memoNanos) {
+      eldest.remove();
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package io.github.sammers.pla.blizzard;
+
+import io.prometheus.metrics.core.metrics.Counter;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Sub-resources of a character profile that change rarely, each with how often
+ * it's fetched. A part that isn't due is taken from the previous
+ * {@link WowAPICharacter} instead, see {@link WowAPICharacter#parse}. The
+ * profile, pvp summary and brackets are fetched on every update.
+ * <p>
+ * A part is due in the first update after each period boundary. Boundaries are
+ * shifted by a per-character phase, so the parts of all characters don't come
+ * due at once. Only {@link WowAPICharacter#lastUpdatedUTCms()} is needed, so a
+ * part is refreshed at least once per period plus the time between two updates.
+ * A part whose fetch failed waits for the next boundary.
+ */
+enum CharacterPart {
+  ACHIEVEMENTS("achievements", "/achievements", Duration.ofDays(1)),
+  MEDIA("character-media", "/character-media", Duration.ofDays(7)),
+  PETS("pets", "/collections/pets", Duration.ofDays(7)),
+  SPECIALIZATIONS("specializations", "/specializations", Duration.ofDays(1));
+
+  private static final Counter CHARACTER_PARTS = Counter.builder()
+    .name("blizzard_character_parts_total")
+    .help("Character sub-resources by result: fetched or reused from the previous update")
+    .labelNames("part", "result")
+    .register();
+  private final String label;
+  private final String path;
+  private final long periodMs;
+
+  CharacterPart(String label, String path, Duration period) {
+    this.label = label;
+    this.path = path;
+    this.periodMs = period.toMillis();
+  }
+
+  String label() {
+    return label;
+  }
+
+  String path() {
+    return path;
+  }
+
+  /**
+   * @param force
+   *          fetch even if not due, e.g. when the character changed in a way
+   *          the part depends on
+   * @return whether the part has to be fetched, counted as fetched or reused
+   */
+  boolean due(Optional<WowAPICharacter> previous, long now, boolean force) {
+    boolean due = force || previous.map(prev -> dueSince(prev, now)).orElse(true);
+    CHARACTER_PARTS.labelValues(label, due ? "fetched" : "reused").inc();
+    return due;
+  }
+
+  private boolean dueSince(WowAPICharacter previous, long now) {
+    Long updated = previous.lastUpdatedUTCms();
+    if (updated == null || updated <= 0) {
+      return true;
+    }
+    if (this == PETS && previous.petHash() == -1) {
+      return true;
+    }
+    long phase = Math.floorMod(Long.hashCode(previous.id() * 0x9E3779B97F4A7C15L) * 31L + ordinal(), periodMs);
+    return Math.floorDiv(now + phase, periodMs) != Math.floorDiv(updated + phase, periodMs);
+  }
+}
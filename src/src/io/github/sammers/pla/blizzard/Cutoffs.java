@@ -7,6 +7,7 @@ import org.slf4j.Logger;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static io.github.sammers.pla.logic.Conts.SPACE;
@@ -16,10 +17,10 @@ public class Cutoffs implements JsonConvertable {
   public final String region;
   public final String season;
   public final Map<String, Long> cutoffs;
-  public final Map<String, Long> cutoffsPredictions = new HashMap<>();
+  public final Map<String, Long> cutoffsPredictions = new ConcurrentHashMap<>();
   public final Long timestamp;
-  public final Map<String, Long> spotsCounts = new HashMap<>();
-  public final Map<String, Long> spotWithNoAlts = new HashMap<>();
+  public final Map<String, Long> spotsCounts = new ConcurrentHashMap<>();
+  public final Map<String, Long> spotWithNoAlts = new ConcurrentHashMap<>();
 
   public Cutoffs(String region, String season, Map<String, Long> cutoffs, Long timestamp) {
     this.region = region;
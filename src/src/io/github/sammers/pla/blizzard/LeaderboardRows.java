@@ -0,0 +1,219 @@
+package io.github.sammers.pla.blizzard;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.github.sammers.pla.db.Character;
+import io.github.sammers.pla.logic.CharacterCache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+import static io.github.sammers.pla.logic.Conts.SHUFFLE_SPEC_TO_SPEC;
+
+/**
+ * Entries of a pvp leaderboard response, streamed from the raw body into
+ * columns. Only the fields {@link #toCharacters} and {@link #enrich} use are
+ * read, the rest of the response is skipped without building a
+ * {@code JsonObject} tree.
+ */
+public final class LeaderboardRows {
+  private static final JsonFactory JSON = new JsonFactory();
+  /** Missing number, read as null. */
+  private static final long NONE = Long.MIN_VALUE;
+  private String bracketType;
+  private final List<String> names = new ArrayList<>();
+  /** Realm slugs with everything but letters removed. */
+  private final List<String> slugs = new ArrayList<>();
+  private long[] ranks = new long[1024];
+  private long[] ratings = new long[1024];
+  private long[] won = new long[1024];
+  private long[] lost = new long[1024];
+
+  private LeaderboardRows() {
+  }
+
+  public int size() {
+    return names.size();
+  }
+
+  public static LeaderboardRows parse(String body) {
+    try (JsonParser parser = JSON.createParser(body)) {
+      expect(parser.nextToken(), JsonToken.START_OBJECT);
+      LeaderboardRows rows = new LeaderboardRows();
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if (field.equals("bracket") && value == JsonToken.START_OBJECT) {
+          rows.bracketType = readBracketType(parser);
+        } else if (field.equals("entries") && value == JsonToken.START_ARRAY) {
+          while (parser.nextToken() == JsonToken.START_OBJECT) {
+            rows.readEntry(parser);
+          }
+        } else {
+          parser.skipChildren();
+        }
+      }
+      return rows;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * @return distinct characters of the entries that are in the cache
+   */
+  public List<Character> toCharacters(CharacterCache characterCache, String bracketId) {
+    Set<Character> res = new HashSet<>(size() * 2);
+    for (int i = 0; i < size(); i++) {
+      String slug = slugs.get(i);
+      String name = names.get(i);
+      WowAPICharacter wowAPICharacter = characterCache.getByFullName(Character.fullNameByRealmAndName(name, slug));
+      if (wowAPICharacter == null) {
+        continue;
+      }
+      String realm = slug.substring(0, 1).toUpperCase() + slug.substring(1);
+      String fullSpec = wowAPICharacter.activeSpec() + " " + wowAPICharacter.clazz();
+      if ("SHUFFLE".equals(bracketType)) {
+        fullSpec = SHUFFLE_SPEC_TO_SPEC.get(bracketId);
+      }
+      res.add(new Character(number(ranks[i]), number(ratings[i]), false, name, wowAPICharacter.clazz(), fullSpec,
+        wowAPICharacter.fraction(), wowAPICharacter.gender(), wowAPICharacter.race(), realm, number(won[i]),
+        number(lost[i]), Optional.of(wowAPICharacter.petHash())));
+    }
+    return new ArrayList<>(res);
+  }
+
+  public List<Character> enrich(List<Character> snapshot) {
+    HashMap<String, Integer> nameToRow = new HashMap<>(size() * 2);
+    for (int i = 0; i < size(); i++) {
+      nameToRow.put((names.get(i) + "-" + slugs.get(i)).toLowerCase(), i);
+    }
+    List<Character> characters = new ArrayList<>(snapshot.size());
+    for (Character character : snapshot) {
+      String key = (character.name() + "-" + character.realm().replaceAll("[^A-Za-z]", "")).toLowerCase();
+      Integer row = nameToRow.get(key);
+      if (row == null) {
+        characters.add(character);
+      } else {
+        characters.add(Character.withWinsAndLossesAndPosAndRating(character, number(won[row]), number(lost[row]),
+          number(ranks[row]), number(ratings[row])));
+      }
+    }
+    return characters;
+  }
+
+  private void readEntry(JsonParser parser) throws IOException {
+    String name = null;
+    String slug = null;
+    long rank = NONE;
+    long rating = NONE;
+    long entryWon = NONE;
+    long entryLost = NONE;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      JsonToken value = parser.nextToken();
+      switch (field) {
+        case "character" -> {
+          if (value != JsonToken.START_OBJECT) {
+            break;
+          }
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String characterField = parser.currentName();
+            JsonToken characterValue = parser.nextToken();
+            if (characterField.equals("name") && characterValue == JsonToken.VALUE_STRING) {
+              name = parser.getText();
+            } else if (characterField.equals("realm") && characterValue == JsonToken.START_OBJECT) {
+              slug = readSlug(parser);
+            } else {
+              parser.skipChildren();
+            }
+          }
+        }
+        case "rank" -> rank = readNumber(parser, value);
+        case "rating" -> rating = readNumber(parser, value);
+        case "season_match_statistics" -> {
+          if (value != JsonToken.START_OBJECT) {
+            break;
+          }
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String statistic = parser.currentName();
+            JsonToken statisticValue = parser.nextToken();
+            if (statistic.equals("won")) {
+              entryWon = readNumber(parser, statisticValue);
+            } else if (statistic.equals("lost")) {
+              entryLost = readNumber(parser, statisticValue);
+            } else {
+              parser.skipChildren();
+            }
+          }
+        }
+        default -> parser.skipChildren();
+      }
+    }
+    if (name == null || slug == null || slug.isEmpty()) {
+      return;
+    }
+    int row = size();
+    if (row == ranks.length) {
+      int capacity = row * 2;
+      ranks = Arrays.copyOf(ranks, capacity);
+      ratings = Arrays.copyOf(ratings, capacity);
+      won = Arrays.copyOf(won, capacity);
+      lost = Arrays.copyOf(lost, capacity);
+    }
+    names.add(name);
+    slugs.add(slug);
+    ranks[row] = rank;
+    ratings[row] = rating;
+    won[row] = entryWon;
+    lost[row] = entryLost;
+  }
+
+  private static String readBracketType(JsonParser parser) throws IOException {
+    String type = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      JsonToken value = parser.nextToken();
+      if (field.equals("type") && value == JsonToken.VALUE_STRING) {
+        type = parser.getText();
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return type;
+  }
+
+  private static String readSlug(JsonParser parser) throws IOException {
+    String slug = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      JsonToken value = parser.nextToken();
+      if (field.equals("slug") && value == JsonToken.VALUE_STRING) {
+        slug = parser.getText().replaceAll("[^A-Za-z]", "");
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return slug;
+  }
+
+  private static long readNumber(JsonParser parser, JsonToken value) throws IOException {
+    if (value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT) {
+      return parser.getLongValue();
+    }
+    parser.skipChildren();
+    return NONE;
+  }
+
+  private static Long number(long value) {
+    return value == NONE ? null : value;
+  }
+
+  private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+    if (actual != expected) {
+      throw new IOException("Expected " + expected + " but got " + actual);
+    }
+  }
+}
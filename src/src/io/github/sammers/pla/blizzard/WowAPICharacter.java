@@ -141,7 +141,7 @@ public record WowAPICharacter(long id, boolean hidden, String name, String realm
     Long id = entries.getLong("id");
     int petHash = pets.map(p -> Optional.ofNullable(p.getJsonArray("pets")).map(JsonArray::hashCode).orElse(-1))
       .orElseGet(() -> previous.map(WowAPICharacter::petHash).orElse(-1));
-    Set<Long> alts = cache.alts.getOrDefault(petHash, new HashSet<>(0));
+    Set<Long> alts = cache.altsByPetHash(petHash);
     previous.ifPresent(wowAPICharacter -> alts.addAll(wowAPICharacter.alts));
     List<PvpTalent> pvpTalents = specs.map(s -> PvpTalent.parseFromSpecs(s, activeSpec))
       .orElseGet(() -> previous.map(WowAPICharacter::pvpTalents).orElse(List.of()));
@@ -15,7 +15,7 @@ import java.nio.file.Paths;
 import java.util.Objects;
 
 public record AppConfig(String dbUri, String clientId, String clientSecret, String indexerClientId,
-  String indexerClientSecret, String callback) {
+  String indexerClientSecret, String callback, String cacheDir) {
   public record Loaded(Path path, AppConfig config) {
   }
 
@@ -30,7 +30,8 @@ public record AppConfig(String dbUri, String clientId, String clientSecret, Stri
   }
 
   @JsonIgnoreProperties(ignoreUnknown = true)
-  record ConfigFile(DbConfig db, @JsonAlias("battle_net") BattleNetConfig battlenet, AuthConfig auth) {
+  record ConfigFile(DbConfig db, @JsonAlias("battle_net") BattleNetConfig battlenet, AuthConfig auth,
+    CacheConfig cache) {
   }
 
   @JsonIgnoreProperties(ignoreUnknown = true)
@@ -41,6 +42,10 @@ public record AppConfig(String dbUri, String clientId, String clientSecret, Stri
   record AuthConfig(String callback) {
   }
 
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  record CacheConfig(String dir) {
+  }
+
   @JsonIgnoreProperties(ignoreUnknown = true)
   record BattleNetConfig(BattleNetCredentials api, BattleNetCredentials indexer) {
   }
@@ -68,13 +73,14 @@ public record AppConfig(String dbUri, String clientId, String clientSecret, Stri
     String indexerClientSecret = firstNonBlank(indexer != null ? indexer.clientSecret() : null, clientSecret);
     AuthConfig auth = requireNonNull(sourceName, "auth", config.auth());
     String callback = requiredNonBlank(sourceName, "auth.callback", auth.callback());
-    return new AppConfig(dbUri, clientId, clientSecret, indexerClientId, indexerClientSecret, callback);
+    String cacheDir = config.cache() != null ? firstNonBlank(config.cache().dir()) : null;
+    return new AppConfig(dbUri, clientId, clientSecret, indexerClientId, indexerClientSecret, callback, cacheDir);
   }
 
   public String toSafeLogString() {
     return "AppConfig{dbUri=" + redactDbUri(dbUri) + ", clientId=" + clientId + ", clientSecret="
       + redactSecret(clientSecret) + ", indexerClientId=" + indexerClientId + ", indexerClientSecret="
-      + redactSecret(indexerClientSecret) + ", callback=" + callback + "}";
+      + redactSecret(indexerClientSecret) + ", callback=" + callback + ", cacheDir=" + cacheDir + "}";
   }
 
   @Override
@@ -0,0 +1,268 @@
+package io.github.sammers.pla.db;
+
+import io.github.sammers.pla.logic.CharacterCache;
+import io.github.sammers.pla.logic.SpecIndex;
+
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+import static io.github.sammers.pla.logic.Conts.SPACE;
+import static io.github.sammers.pla.logic.Conts.TIRE;
+
+/**
+ * Columnar, read-only list of ladder characters. Numbers are kept in primitive
+ * arrays and the low cardinality strings (class, spec, realm...) are dictionary
+ * coded per column, a {@link Character} is only created when an element is
+ * accessed. Filtered and renamed lists are views sharing the columns with the
+ * list they were created from.
+ *
+ * A list built from characters carries a {@link SpecIndex} ordered by rating,
+ * which the renamed views share, so spec filtering does not scan the ladder.
+ */
+public final class CharacterColumns extends AbstractList<Character> implements RandomAccess {
+  private static final long NULL_LONG = Long.MIN_VALUE;
+  private static final int NO_PETHASH = Integer.MIN_VALUE;
+  private static final CharacterColumns EMPTY = of(List.of());
+  private final long[] pos;
+  private final long[] rating;
+  private final long[] wins;
+  private final long[] losses;
+  private final boolean[] inCutoff;
+  private final int[] pethash;
+  private final String[] name;
+  private final Column clazz;
+  private final Column fullSpec;
+  private final Column fraction;
+  private final Column gender;
+  private final Column race;
+  private final Column realm;
+  /** Rows of the view, null if the view contains every row in order. */
+  private final SpecIndex.Rows rows;
+  /** Index of all the rows, null for filtered views. */
+  private final SpecIndex specIndex;
+  private volatile long[] specIdentities;
+  private volatile long[] classIdentities;
+
+  private CharacterColumns(long[] pos, long[] rating, long[] wins, long[] losses, boolean[] inCutoff, int[] pethash,
+    String[] name, Column clazz, Column fullSpec, Column fraction, Column gender, Column race, Column realm,
+    SpecIndex.Rows rows, SpecIndex specIndex) {
+    this.pos = pos;
+    this.rating = rating;
+    this.wins = wins;
+    this.losses = losses;
+    this.inCutoff = inCutoff;
+    this.pethash = pethash;
+    this.name = name;
+    this.clazz = clazz;
+    this.fullSpec = fullSpec;
+    this.fraction = fraction;
+    this.gender = gender;
+    this.race = race;
+    this.realm = realm;
+    this.rows = rows;
+    this.specIndex = specIndex;
+  }
+
+  public static CharacterColumns empty() {
+    return EMPTY;
+  }
+
+  /**
+   * @return the list itself if it is already columnar, columnar copy otherwise
+   */
+  public static CharacterColumns of(List<Character> characters) {
+    if (characters instanceof CharacterColumns columns) {
+      return columns;
+    }
+    int size = characters.size();
+    long[] pos = new long[size];
+    long[] rating = new long[size];
+    long[] wins = new long[size];
+    long[] losses = new long[size];
+    boolean[] inCutoff = new boolean[size];
+    int[] pethash = new int[size];
+    String[] name = new String[size];
+    Column.Builder clazz = new Column.Builder(size);
+    Column.Builder fullSpec = new Column.Builder(size);
+    Column.Builder fraction = new Column.Builder(size);
+    Column.Builder gender = new Column.Builder(size);
+    Column.Builder race = new Column.Builder(size);
+    Column.Builder realm = new Column.Builder(size);
+    int i = 0;
+    for (Character ch : characters) {
+      pos[i] = toPrimitive(ch.pos());
+      rating[i] = toPrimitive(ch.rating());
+      wins[i] = toPrimitive(ch.wins());
+      losses[i] = toPrimitive(ch.losses());
+      inCutoff[i] = ch.inCutoff();
+      pethash[i] = ch.pethash() == null ? NO_PETHASH : ch.pethash().orElse(NO_PETHASH);
+      name[i] = ch.name();
+      clazz.add(ch.clazz());
+      fullSpec.add(ch.fullSpec());
+      fraction.add(ch.fraction());
+      gender.add(ch.gender());
+      race.add(ch.race());
+      realm.add(ch.realm());
+      i++;
+    }
+    Column specs = fullSpec.build();
+    SpecIndex specIndex = SpecIndex.build(size, row -> specs.get(row), row -> ratingRank(rating[row]));
+    return new CharacterColumns(pos, rating, wins, losses, inCutoff, pethash, name, clazz.build(), specs,
+      fraction.build(), gender.build(), race.build(), realm.build(), null, specIndex);
+  }
+
+  @Override
+  public Character get(int index) {
+    int row = row(index);
+    return new Character(toBoxed(pos[row]), toBoxed(rating[row]), inCutoff[row], name[row], clazz.get(row),
+      fullSpec.get(row), fraction.get(row), gender.get(row), race.get(row), realm.get(row), toBoxed(wins[row]),
+      toBoxed(losses[row]), pethash[row] == NO_PETHASH ? Optional.empty() : Optional.of(pethash[row]));
+  }
+
+  @Override
+  public int size() {
+    return rows == null ? pos.length : rows.size();
+  }
+
+  /**
+   * View of the characters whose normalized spec contains any of the given
+   * specs, ordered by rating descending, original order on ties.
+   */
+  public CharacterColumns filterSpecs(List<String> specs) {
+    SpecIndex index = specIndex;
+    if (index == null) {
+      // filtering a filtered view, index the rows of the view
+      index = SpecIndex.build(size(), i -> fullSpec.get(rows.get(i)), i -> ratingRank(rating[rows.get(i)]));
+    }
+    SpecIndex.Rows filtered = SpecIndex.Rows.select(rows, index.match(specs));
+    return new CharacterColumns(pos, rating, wins, losses, inCutoff, pethash, name, clazz, fullSpec, fraction, gender,
+      race, realm, filtered, null);
+  }
+
+  public long pos(int index) {
+    return pos[row(index)];
+  }
+
+  public long rating(int index) {
+    return rating[row(index)];
+  }
+
+  public long wins(int index) {
+    return wins[row(index)];
+  }
+
+  public long losses(int index) {
+    return losses[row(index)];
+  }
+
+  /**
+   * @return whether both wins and losses are known, {@link #wins(int)} and
+   *         {@link #losses(int)} are meaningless otherwise
+   */
+  public boolean hasStats(int index) {
+    int row = row(index);
+    return wins[row] != NULL_LONG && losses[row] != NULL_LONG;
+  }
+
+  /**
+   * 64-bit hash of {@link Character#fullNameWSpec()} or, without the spec, of
+   * {@link Character#fullNameWClass()}. The hashes of all the rows are computed
+   * once, on first use.
+   */
+  public long identity(int index, boolean withSpec) {
+    long[] identities = withSpec ? specIdentities : classIdentities;
+    if (identities == null) {
+      identities = identities(withSpec);
+      if (withSpec) {
+        specIdentities = identities;
+      } else {
+        classIdentities = identities;
+      }
+    }
+    return identities[index];
+  }
+
+  private long[] identities(boolean withSpec) {
+    // realm, spec and class are normalized once per dictionary value
+    String[] realms = new String[realm.values.length];
+    for (int code = 0; code < realms.length; code++) {
+      String value = realm.values[code];
+      realms[code] = value == null ? null : TIRE.matcher(SPACE.matcher(value).replaceAll("-")).replaceAll("").trim();
+    }
+    Column suffixColumn = withSpec ? fullSpec : clazz;
+    String[] suffixes = new String[suffixColumn.values.length];
+    for (int code = 0; code < suffixes.length; code++) {
+      String value = suffixColumn.values[code];
+      if (value != null) {
+        suffixes[code] = withSpec ? SPACE.matcher(value.trim()).replaceAll("").toLowerCase() : value.trim();
+      }
+    }
+    long[] res = new long[size()];
+    for (int i = 0; i < res.length; i++) {
+      int row = row(i);
+      String fullName = (name[row].trim() + "-" + realms[realm.codes[row]]).toLowerCase();
+      res[i] = CharacterCache.nameKey(fullName + " " + suffixes[suffixColumn.codes[row]]);
+    }
+    return res;
+  }
+
+  private int row(int index) {
+    return rows == null ? Objects.checkIndex(index, pos.length) : rows.get(index);
+  }
+
+  /**
+   * View with the realms renamed, only the realm dictionary is mapped.
+   */
+  public CharacterColumns mapRealms(UnaryOperator<String> mapper) {
+    return new CharacterColumns(pos, rating, wins, losses, inCutoff, pethash, name, clazz, fullSpec, fraction, gender,
+      race, realm.map(mapper), rows, specIndex);
+  }
+
+  private static int ratingRank(long rating) {
+    return Integer.MAX_VALUE - Math.clamp(rating, 0, Integer.MAX_VALUE);
+  }
+
+  private static long toPrimitive(Long value) {
+    return value == null ? NULL_LONG : value;
+  }
+
+  private static Long toBoxed(long value) {
+    return value == NULL_LONG ? null : value;
+  }
+
+  private record Column(int[] codes, String[] values) {
+    String get(int row) {
+      return values[codes[row]];
+    }
+
+    Column map(UnaryOperator<String> mapper) {
+      String[] mapped = new String[values.length];
+      for (int i = 0; i < values.length; i++) {
+        mapped[i] = values[i] == null ? null : mapper.apply(values[i]);
+      }
+      return new Column(codes, mapped);
+    }
+
+    private static final class Builder {
+      private final int[] codes;
+      private final Map<String, Integer> dictionary = new HashMap<>();
+      private final List<String> values = new ArrayList<>();
+      private int size;
+
+      Builder(int capacity) {
+        codes = new int[capacity];
+      }
+
+      void add(String value) {
+        codes[size++] = dictionary.computeIfAbsent(value, v -> {
+          values.add(v);
+          return values.size() - 1;
+        });
+      }
+
+      Column build() {
+        return new Column(codes, values.toArray(new String[0]));
+      }
+    }
+  }
+}
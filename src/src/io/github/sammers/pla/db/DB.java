@@ -1,29 +1,52 @@
 package io.github.sammers.pla.db;
 
 import static io.github.sammers.pla.logic.Conts.*;
-import static java.time.ZoneOffset.UTC;
 
-import io.github.sammers.pla.Main;
 import io.github.sammers.pla.blizzard.Cutoffs;
 import io.github.sammers.pla.blizzard.Realm;
 import io.github.sammers.pla.blizzard.Realms;
 import io.github.sammers.pla.blizzard.WowAPICharacter;
+import io.prometheus.metrics.core.metrics.Counter;
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Single;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.mongo.*;
 import io.vertx.rxjava3.ext.mongo.MongoClient;
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import org.javatuples.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class DB {
   private static final Logger log = LoggerFactory.getLogger(DB.class);
+  /** Enough for the snapshots meta and diffs are calculated from. */
+  private static final long SNAPSHOT_CACHE_MAX_CHARACTERS = 1_000_000;
+  /**
+   * Snapshots are saved as a delta against the last keyframe, a full snapshot
+   * is saved again after this long.
+   */
+  private static final long KEYFRAME_INTERVAL_MS = Duration.ofHours(6).toMillis();
   private final MongoClient mongoClient;
+  private final SnapshotCache snapshotCache = new SnapshotCache(SNAPSHOT_CACHE_MAX_CHARACTERS);
+  private static final Counter RETENTION_DELETED = Counter.builder()
+    .name("snapshot_retention_deleted_total")
+    .help("Snapshots deleted by retention compaction")
+    .labelNames("bracket")
+    .register();
+  private static final Counter RETENTION_RECLAIMED_BYTES = Counter.builder()
+    .name("snapshot_retention_reclaimed_bytes_total")
+    .help("BSON size of the snapshots deleted by retention compaction")
+    .labelNames("bracket")
+    .register();
+  private final Map<String, SnapshotRetention> retentions = new ConcurrentHashMap<>();
+  /** Last keyframe by bracket and region. */
+  private final Map<String, Snapshot> keyframes = new ConcurrentHashMap<>();
 
   public DB(MongoClient mongoClient) {
     this.mongoClient = mongoClient;
@@ -38,6 +61,12 @@ public class DB {
     // profile collection indexes
     indexCreations.add(createIndex("profile", new JsonObject().put("id", -1), "profile_id_idx"));
     indexCreations.add(createIndex("profile", new JsonObject().put("region", -1), "profile_region_idx"));
+    // region + id for the partitioned load on startup
+    indexCreations.add(
+      createIndex("profile", new JsonObject().put("region", 1).put("id", 1), "profile_region_id_idx"));
+    // region + lastUpdatedUTCms for the delta load on startup
+    indexCreations.add(createIndex("profile", new JsonObject().put("region", 1).put("lastUpdatedUTCms", 1),
+      "profile_region_last_updated_idx"));
     // bracket collections: compound index on region + timestamp for efficient
     // queries
     List<String> brackets = List.of(TWO_V_TWO, THREE_V_THREE, RBG, SHUFFLE, BLITZ);
@@ -112,85 +141,155 @@ public class DB {
   /**
    * The idea is the following: we want snapshots to take less space, but we want
    * to keep the history of the snapshots. We want to keep one weekly snapshot
-   * made on Friday for every week. Also, we keep all hourly snapshots for the
-   * last 24 hours.
+   * made on Thursday for every week. Also, we keep all hourly snapshots for the
+   * last 24 hours, see {@link SnapshotRetention}.
+   * <p>
+   * Timestamps are loaded once, back to {@link SnapshotRetention#horizon(long)},
+   * and then tracked as snapshots are inserted. Every run deletes only the
+   * snapshots that have expired since the previous one. Older snapshots are
+   * never tracked, the first run deletes the ones not kept for good with a
+   * ranged delete per region.
    */
   public Completable cleanBracketSnapshot(String bracket) {
-    // find all snapshots timestamps first
-    FindOptions findOptions = new FindOptions();
-    findOptions.setFields(new JsonObject().put("timestamp", 1));
-    findOptions.setSort(new JsonObject().put("timestamp", -1));
-    return mongoClient.findWithOptions(bracket, new JsonObject(), findOptions).flatMapCompletable(found -> {
-      Map<Long, JsonObject> notToDeleteSet = new HashMap<>();
-      Map<Long, JsonObject> toDeleteSet = new HashMap<>();
-      long now = System.currentTimeMillis();
-      Instant nowInst = Instant.ofEpochMilli(now);
-      Map<LocalDate, List<JsonObject>> dayToSnapshots = new HashMap<>();
-      found.forEach(json -> {
-        long timestamp = json.getLong("timestamp");
-        Instant snapTime = Instant.ofEpochMilli(timestamp);
-        Duration duration = Duration.between(snapTime, nowInst);
-        if (duration.toHours() < 24) {
-          // keep all snapshots for the last 24 hours
-          notToDeleteSet.put(timestamp, json);
-        }
-        dayToSnapshots.computeIfAbsent(ZonedDateTime.ofInstant(snapTime, UTC).toLocalDate(), k -> new ArrayList<>())
-          .add(json);
-        // format snapTime to include the day of the week
-        json.put("formatted", ZonedDateTime.ofInstant(snapTime, UTC).format(Main.DATA_TIME_WITH_WEEKDAY));
-        json.put("local_date", ZonedDateTime.ofInstant(snapTime, UTC).toLocalDate().toString());
-      });
-      dayToSnapshots.forEach((day, snapshots) -> {
-        if (Duration.between(day.atStartOfDay(), ZonedDateTime.ofInstant(nowInst, UTC)).toDays() < 7) {
-          // keep minimal snapshot for every day of the last week
-          snapshots.stream().min(Comparator.comparingLong(json -> json.getLong("timestamp"))).ifPresent(json -> {
-            notToDeleteSet.put(json.getLong("timestamp"), json);
-          });
-        } else {
-          // keep only THURSDAY snapshots for every week
-          if (day.getDayOfWeek().equals(DayOfWeek.THURSDAY)) {
-            snapshots.stream().min(Comparator.comparingLong(json -> json.getLong("timestamp"))).ifPresent(json -> {
-              notToDeleteSet.put(json.getLong("timestamp"), json);
-            });
-          }
-        }
-      });
-      // keep only notToDeleteSet
-      found.forEach(json -> {
-        long timestamp = json.getLong("timestamp");
-        if (!notToDeleteSet.containsKey(timestamp)) {
-          toDeleteSet.put(timestamp, json);
-        }
+    SnapshotRetention retention = retentions.get(bracket);
+    Completable init = Completable.complete();
+    if (retention == null) {
+      SnapshotRetention created = new SnapshotRetention();
+      // registered before loading so that inserts made meanwhile are tracked
+      retentions.put(bracket, created);
+      long horizon = SnapshotRetention.horizon(System.currentTimeMillis());
+      FindOptions findOptions = new FindOptions()
+        .setFields(new JsonObject().put("timestamp", 1).put("region", 1).put("base", 1));
+      JsonObject query = new JsonObject().put("timestamp", new JsonObject().put("$gte", horizon));
+      init = mongoClient.findWithOptions(bracket, query, findOptions).doOnSuccess(found -> {
+        found.forEach(json -> created.track(json.getString("region"), json.getLong("timestamp"), json.getLong("base")));
+        log.info("Tracking retention of {} {} snapshots", created.size(), bracket);
+      })
+        .ignoreElement()
+        .andThen(Completable.defer(() -> deleteBeforeHorizon(bracket, created, horizon)))
+        .doOnError(err -> retentions.remove(bracket, created));
+    }
+    return init.andThen(Completable.defer(() -> {
+      Map<String, List<Long>> expired = retentions.get(bracket).compact(System.currentTimeMillis());
+      return Completable.concat(expired.entrySet().stream().map(entry -> {
+        JsonObject filter = new JsonObject().put("region", new JsonObject().put("$eq", entry.getKey()))
+          .put("timestamp", new JsonObject().put("$in", new ArrayList<>(entry.getValue())));
+        return removeSnapshots(bracket, entry.getKey(), filter);
+      }).toList());
+    }));
+  }
+
+  /**
+   * Deletes the snapshots older than the horizon except the ones kept for good,
+   * see {@link SnapshotRetention#keptBefore(long, List)}. Only the first
+   * snapshot of every day is read to find those.
+   */
+  private Completable deleteBeforeHorizon(String bracket, SnapshotRetention retention, long horizon) {
+    JsonObject day = new JsonObject().put("$dateToString",
+      new JsonObject().put("format", "%Y-%m-%d").put("date", new JsonObject().put("$toDate", "$timestamp")));
+    JsonArray pipeline = new JsonArray()
+      .add(new JsonObject().put("$match", new JsonObject().put("timestamp", new JsonObject().put("$lt", horizon))))
+      .add(new JsonObject().put("$sort", new JsonObject().put("timestamp", 1)))
+      .add(new JsonObject().put("$group",
+        new JsonObject().put("_id", new JsonObject().put("region", "$region").put("day", day))
+          .put("timestamp", new JsonObject().put("$first", "$timestamp"))
+          .put("base", new JsonObject().put("$first", "$base"))));
+    return mongoClient.aggregateWithOptions(bracket, pipeline, new AggregateOptions().setAllowDiskUse(true))
+      .toFlowable()
+      .map(json -> {
+        JsonObject id = json.getJsonObject("_id");
+        return new SnapshotRetention.FirstOfDay(id.getString("region"), LocalDate.parse(id.getString("day")),
+          json.getLong("timestamp"), json.getLong("base"));
+      })
+      .toList()
+      .flatMapCompletable(days -> {
+        Map<String, Set<Long>> kept = retention.keptBefore(horizon, days);
+        return Completable.concat(kept.entrySet().stream().map(entry -> {
+          JsonObject filter = new JsonObject().put("region", new JsonObject().put("$eq", entry.getKey()))
+            .put("timestamp", new JsonObject().put("$lt", horizon).put("$nin", new ArrayList<>(entry.getValue())));
+          return removeSnapshots(bracket, entry.getKey(), filter);
+        }).toList());
       });
-      return mongoClient
-        .removeDocuments(bracket,
-          new JsonObject().put("timestamp", new JsonObject().put("$in", new ArrayList<>(toDeleteSet.keySet()))))
-        .doOnSuccess(res -> log.info("Deleted " + res.getRemovedCount() + " records " + bracket + " snapshots"))
-        .ignoreElement();
-    });
   }
 
+  private Completable removeSnapshots(String bracket, String region, JsonObject filter) {
+    return bsonSize(bracket, filter).flatMapCompletable(bytes -> mongoClient.removeDocuments(bracket, filter)
+      .doOnSuccess(res -> {
+        RETENTION_DELETED.labelValues(bracket).inc(res.getRemovedCount());
+        RETENTION_RECLAIMED_BYTES.labelValues(bracket).inc(bytes);
+        log.info("Deleted {} {}-{} snapshots, {} bytes", res.getRemovedCount(), region, bracket, bytes);
+      })
+      .ignoreElement());
+  }
+
+  private Single<Long> bsonSize(String collection, JsonObject filter) {
+    JsonObject size = new JsonObject().put("$sum", new JsonObject().put("$bsonSize", "$$ROOT"));
+    JsonArray pipeline = new JsonArray().add(new JsonObject().put("$match", filter))
+      .add(new JsonObject().put("$group", new JsonObject().putNull("_id").put("bytes", size)));
+    return mongoClient.aggregate(collection, pipeline)
+      .toFlowable()
+      .map(json -> json.getLong("bytes", 0L))
+      .first(0L)
+      .doOnError(err -> log.warn("Error measuring {} documents", collection, err))
+      .onErrorReturnItem(0L);
+  }
+
+  /**
+   * Finds the oldest snapshot of the last mins minutes. Only its timestamp is
+   * queried, the document itself comes from the {@link SnapshotCache}.
+   */
   public Maybe<Snapshot> getMinsAgo(String bracket, String region, int mins) {
     long now = System.currentTimeMillis();
     long diff = mins * 60 * 1000L;
     long minsAgo = now - diff;
-    FindOptions fopts = new FindOptions().setSort(new JsonObject().put("timestamp", 1)).setLimit(1);
+    FindOptions fopts = new FindOptions().setFields(new JsonObject().put("timestamp", 1))
+      .setSort(new JsonObject().put("timestamp", 1))
+      .setLimit(1);
     JsonObject opts = new JsonObject().put("timestamp", new JsonObject().put("$lt", now).put("$gt", minsAgo))
       .put("region", new JsonObject().put("$eq", region));
-    return find(bracket, fopts, opts);
+    return mongoClient.findWithOptions(bracket, opts, fopts).flatMapMaybe(res -> {
+      if (res.isEmpty()) {
+        return Maybe.empty();
+      }
+      long timestamp = res.getFirst().getLong("timestamp");
+      return snapshotCache.get(bracket, region, timestamp, () -> {
+        JsonObject byTimestamp = new JsonObject().put("timestamp", timestamp)
+          .put("region", new JsonObject().put("$eq", region));
+        return find(bracket, new FindOptions().setLimit(1), byTimestamp);
+      });
+    });
   }
 
   private Maybe<Snapshot> find(String bracket, FindOptions fopts, JsonObject opts) {
     return mongoClient.findWithOptions(bracket, opts, fopts).flatMapMaybe(res -> {
-      List<Snapshot> snapshots = res.stream().map(Snapshot::fromJson).toList();
-      if (!snapshots.isEmpty()) {
-        return Maybe.just(snapshots.getFirst());
+      if (!res.isEmpty()) {
+        return resolve(bracket, res.getFirst());
       } else {
         return Maybe.empty();
       }
     });
   }
 
+  /**
+   * Full snapshots are read as is, deltas are applied to their keyframe.
+   */
+  private Maybe<Snapshot> resolve(String bracket, JsonObject doc) {
+    Long base = doc.getLong("base");
+    if (base == null) {
+      return Maybe.just(Snapshot.fromJson(doc));
+    }
+    String region = doc.getString("region");
+    Long timestamp = doc.getLong("timestamp");
+    byte[] delta = Base64.getDecoder().decode(doc.getString("delta"));
+    return snapshotCache.get(bracket, region, base, () -> {
+      JsonObject byTimestamp = new JsonObject().put("timestamp", base)
+        .put("region", new JsonObject().put("$eq", region));
+      return find(bracket, new FindOptions().setLimit(1), byTimestamp);
+    })
+      .map(keyframe -> Snapshot.of(SnapshotDelta.decode(keyframe, delta), region, timestamp))
+      .doOnComplete(() -> log.warn("Keyframe {} of {}-{} snapshot {} is missing", base, region, bracket, timestamp));
+  }
+
   public Maybe<MongoClientBulkWriteResult> bulkUpdateChars(List<WowAPICharacter> characters) {
     if (characters.isEmpty()) {
       log.warn("Empty list of characters to update, skipping");
@@ -241,10 +340,64 @@ public class DB {
     });
   }
 
+  /**
+   * Saves the snapshot as a delta against the last keyframe, see
+   * {@link SnapshotDelta}. It is saved whole as a new keyframe when there is no
+   * keyframe yet, the keyframe is older than {@link #KEYFRAME_INTERVAL_MS} or a
+   * quarter of the rows don't match the keyframe anymore.
+   */
   public Completable insertOnlyIfDifferent(String bracket, String region, Snapshot snapshot) {
-    return mongoClient.save(bracket, snapshot.toJson())
-      .doOnSuccess(ok -> log.info("Inserted data for {}-{}", region, bracket))
-      .ignoreElement();
+    return lastKeyframe(bracket, region).mapOptional(keyframe -> deltaDocument(bracket, keyframe, snapshot))
+      .map(Optional::of)
+      .defaultIfEmpty(Optional.empty())
+      .flatMapCompletable(delta -> {
+        if (delta.isPresent()) {
+          return mongoClient.save(bracket, delta.get()).doOnSuccess(ok -> {
+            track(bracket, region, snapshot.timestamp(), delta.get().getLong("base"));
+            log.info("Inserted delta for {}-{}", region, bracket);
+          })
+            .ignoreElement();
+        }
+        return mongoClient.save(bracket, snapshot.toJson()).doOnSuccess(ok -> {
+          keyframes.put(bracket + "/" + region, snapshot);
+          track(bracket, region, snapshot.timestamp(), null);
+          log.info("Inserted keyframe for {}-{}", region, bracket);
+        }).ignoreElement();
+      });
+  }
+
+  private void track(String bracket, String region, long timestamp, Long base) {
+    SnapshotRetention retention = retentions.get(bracket);
+    if (retention != null) {
+      retention.track(region, timestamp, base);
+    }
+  }
+
+  private Maybe<Snapshot> lastKeyframe(String bracket, String region) {
+    String key = bracket + "/" + region;
+    Snapshot keyframe = keyframes.get(key);
+    if (keyframe != null) {
+      return Maybe.just(keyframe);
+    }
+    FindOptions fopts = new FindOptions().setSort(new JsonObject().put("timestamp", -1)).setLimit(1);
+    JsonObject opts = new JsonObject().put("region", new JsonObject().put("$eq", region))
+      .put("base", new JsonObject().put("$exists", false));
+    return find(bracket, fopts, opts).doOnSuccess(found -> keyframes.putIfAbsent(key, found));
+  }
+
+  private Optional<JsonObject> deltaDocument(String bracket, Snapshot keyframe, Snapshot snapshot) {
+    if (snapshot.timestamp() - keyframe.timestamp() >= KEYFRAME_INTERVAL_MS
+      || snapshot.timestamp() <= keyframe.timestamp()) {
+      return Optional.empty();
+    }
+    SnapshotDelta.Encoded delta = SnapshotDelta.encode(keyframe, snapshot, bracket.equals(SHUFFLE));
+    if (delta.added() > snapshot.characters().size() / 4) {
+      return Optional.empty();
+    }
+    return Optional.of(new JsonObject().put("timestamp", snapshot.timestamp())
+      .put("region", snapshot.region())
+      .put("base", keyframe.timestamp())
+      .put("delta", Base64.getEncoder().encodeToString(delta.bytes())));
   }
 
   public Maybe<MongoClientUpdateResult> upsertCharacter(WowAPICharacter character) {
@@ -283,6 +436,57 @@ public class DB {
       .map(WowAPICharacter::fromJson);
   }
 
+  /**
+   * Fetches the profiles of the region with fromId <= id < toId, so the
+   * collection can be read with several cursors at once.
+   */
+  public Flowable<WowAPICharacter> fetchCharFlow(String region, long fromId, long toId) {
+    JsonObject query = new JsonObject().put("region", region)
+      .put("id", new JsonObject().put("$gte", fromId).put("$lt", toId));
+    return mongoClient.findBatch("profile", query).toFlowable().map(WowAPICharacter::fromJson);
+  }
+
+  /**
+   * @return smallest and largest profile id of the region, empty if there are
+   *         no profiles
+   */
+  public Maybe<Pair<Long, Long>> profileIdRange(String region) {
+    JsonObject query = new JsonObject().put("region", region);
+    return Single.zip(profileIdBound(query, 1), profileIdBound(query, -1), (min, max) -> {
+      if (min.isEmpty() || max.isEmpty()) {
+        return Optional.<Pair<Long, Long>>empty();
+      }
+      return Optional.of(new Pair<>(min.get(), max.get()));
+    }).flatMapMaybe(range -> range.map(Maybe::just).orElseGet(Maybe::empty));
+  }
+
+  /**
+   * @return ids of up to size random profiles of the region
+   */
+  public Single<List<Long>> profileIdSample(String region, int size) {
+    JsonArray pipeline = new JsonArray().add(new JsonObject().put("$match", new JsonObject().put("region", region)))
+      .add(new JsonObject().put("$sample", new JsonObject().put("size", size)))
+      .add(new JsonObject().put("$project", new JsonObject().put("id", 1)));
+    return mongoClient.aggregate("profile", pipeline).toFlowable().map(json -> json.getLong("id")).toList();
+  }
+
+  private Single<Optional<Long>> profileIdBound(JsonObject query, int order) {
+    FindOptions fopts = new FindOptions().setFields(new JsonObject().put("id", 1))
+      .setSort(new JsonObject().put("id", order))
+      .setLimit(1);
+    return mongoClient.findWithOptions("profile", query, fopts)
+      .map(res -> res.stream().map(json -> json.getLong("id")).findFirst());
+  }
+
+  /**
+   * Fetches only the profiles of the region updated after the given timestamp.
+   */
+  public Flowable<WowAPICharacter> fetchCharFlowUpdatedAfter(String region, long updatedAfterUTCms) {
+    JsonObject query = new JsonObject().put("region", region)
+      .put("lastUpdatedUTCms", new JsonObject().put("$gt", updatedAfterUTCms));
+    return mongoClient.findBatch("profile", query).toFlowable().map(WowAPICharacter::fromJson);
+  }
+
   public Completable insertRealms(Realms realms) {
     return mongoClient
       .bulkWrite("realm",
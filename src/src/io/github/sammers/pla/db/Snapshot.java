@@ -23,6 +23,14 @@ import static java.time.ZoneOffset.UTC;
 public record Snapshot(List<Character> characters, Long timestamp, String region, String dateTime) implements Resp {
 
   private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(Snapshot.class);
+
+  /**
+   * Characters are always kept columnar, see {@link CharacterColumns}.
+   */
+  public Snapshot {
+    characters = characters == null ? null : CharacterColumns.of(characters);
+  }
+
   public List<Character> findChar(String fullName) {
     return characters.stream().filter(c -> c.fullName().equals(fullName)).toList();
   }
@@ -42,33 +50,19 @@ public record Snapshot(List<Character> characters, Long timestamp, String region
   }
 
   public Snapshot filter(final List<String> specs) {
-    final List<Character> chars = characters.stream().filter(c -> {
-      boolean res = false;
-      for (String spec : specs) {
-        res = res || c.fullSpec()
-          .toLowerCase()
-          .replaceAll(" ", "")
-          .replaceAll("'", "")
-          .contains(spec.toLowerCase().replaceAll(" ", "").replaceAll("'", ""));
-      }
-      return res;
-    }).sorted(Comparator.comparing(Character::rating).reversed()).toList();
-    return new Snapshot(chars, timestamp, region, dateTime);
+    return new Snapshot(((CharacterColumns) characters).filterSpecs(specs), timestamp, region, dateTime);
   }
 
   public JsonObject toJson(Long page) {
-    List<JsonObject> chars = characters.stream()
-      .skip((page - 1) * 100L)
-      .limit(100)
-      .map(JsonConvertable::toJson)
-      .toList();
+    int from = (int) Math.min(characters.size(), Math.max(0, (page - 1) * 100L));
+    int to = Math.min(characters.size(), from + 100);
+    List<JsonObject> chars = characters.subList(from, to).stream().map(JsonConvertable::toJson).toList();
     return new JsonObject().put("characters", new JsonArray(chars))
       .put("timestamp", timestamp)
       .put("date_time", dateTime)
       .put("region", region)
       .put("page", page)
-      .put("total_pages", Calculator.totalPages(this.characters().size(), 100))
-      .put("last_seen", Main.PRETTY_TIME.format(new Date(timestamp)));
+      .put("total_pages", Calculator.totalPages(this.characters().size(), 100));
   }
 
   public JsonObject toJson() {
@@ -264,11 +258,8 @@ public record Snapshot(List<Character> characters, Long timestamp, String region
   }
 
   public Snapshot applySlugToName(Realms realms) {
-    return new Snapshot(characters().stream().map(ch -> {
-      String realmSlug = ch.realm();
-      String realmName = realms.slugToName(realmSlug);
-      return ch.changeRealmName(realmName);
-    }).toList(), timestamp(), region(), dateTime());
+    return new Snapshot(((CharacterColumns) characters).mapRealms(realms::slugToName), timestamp(), region(),
+      dateTime());
   }
 
   /**
@@ -0,0 +1,74 @@
+package io.github.sammers.pla.db;
+
+import io.prometheus.metrics.core.metrics.Counter;
+import io.reactivex.rxjava3.core.Maybe;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * LRU cache of the snapshot documents read from the bracket collections, keyed
+ * by collection, region and timestamp. It is bounded by the total number of
+ * characters in the cached snapshots, and concurrent loads of the same snapshot
+ * share a single query.
+ */
+class SnapshotCache {
+  private static final Counter SNAPSHOT_CACHE_REQUESTS = Counter.builder()
+    .name("db_snapshot_cache_requests_total")
+    .help("Snapshot cache lookups by result: hit, shared (joined a load in flight) or miss")
+    .labelNames("collection", "result")
+    .register();
+  private final long maxCharacters;
+  private final LinkedHashMap<Key, Snapshot> cache = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<Key, Maybe<Snapshot>> inFlight = new HashMap<>();
+  private long characters;
+
+  private record Key(String collection, String region, long timestamp) {
+  }
+
+  SnapshotCache(long maxCharacters) {
+    this.maxCharacters = maxCharacters;
+  }
+
+  Maybe<Snapshot> get(String collection, String region, long timestamp, Supplier<Maybe<Snapshot>> loader) {
+    return Maybe.defer(() -> {
+      Key key = new Key(collection, region, timestamp);
+      synchronized (this) {
+        Snapshot cached = cache.get(key);
+        if (cached != null) {
+          SNAPSHOT_CACHE_REQUESTS.labelValues(collection, "hit").inc();
+          return Maybe.just(cached);
+        }
+        Maybe<Snapshot> loading = inFlight.get(key);
+        if (loading != null) {
+          SNAPSHOT_CACHE_REQUESTS.labelValues(collection, "shared").inc();
+          return loading;
+        }
+        SNAPSHOT_CACHE_REQUESTS.labelValues(collection, "miss").inc();
+        loading = loader.get().doOnSuccess(snapshot -> put(key, snapshot)).doFinally(() -> loaded(key)).cache();
+        inFlight.put(key, loading);
+        return loading;
+      }
+    });
+  }
+
+  private synchronized void put(Key key, Snapshot snapshot) {
+    Snapshot prev = cache.put(key, snapshot);
+    if (prev != null) {
+      characters -= prev.characters().size();
+    }
+    characters += snapshot.characters().size();
+    Iterator<Snapshot> eldest = cache.values().iterator();
+    while (characters > maxCharacters && cache.size() > 1 && eldest.hasNext()) {
+      characters -= eldest.next().characters().size();
+      eldest.remove();
+    }
+  }
+
+  private synchronized void loaded(Key key) {
+    inFlight.remove(key);
+  }
+}
@@ -0,0 +1,177 @@
+package io.github.sammers.pla.db;
+
+import io.github.sammers.pla.logic.Calculator;
+import io.github.sammers.pla.logic.LongLongMap;
+import io.vertx.core.json.JsonObject;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Encoding of a snapshot relative to a keyframe, the last full snapshot of the
+ * same bracket and region. Every row of the snapshot refers to its row in the
+ * keyframe and carries only the pos, rating, wins and losses that changed, rows
+ * that don't match a keyframe row (new characters, changed spec, race, etc.)
+ * are stored whole. Row order is kept, so decoding gives back the exact list.
+ * <p>
+ * Numbers are zigzag varints, the whole delta is gzipped.
+ */
+final class SnapshotDelta {
+  private static final int VERSION = 1;
+  private static final int POS = 1;
+  private static final int RATING = 1 << 1;
+  private static final int WINS = 1 << 2;
+  private static final int LOSSES = 1 << 3;
+  private static final int IN_CUTOFF = 1 << 4;
+  private static final int ADDED = 1 << 7;
+
+  /**
+   * @param added
+   *          rows stored whole
+   */
+  record Encoded(byte[] bytes, int added) {
+  }
+
+  private SnapshotDelta() {
+  }
+
+  /**
+   * @param withSpec
+   *          whether rows are matched by name with spec, see
+   *          {@link Calculator#getIdFunction(String)}
+   */
+  static Encoded encode(Snapshot keyframe, Snapshot snapshot, boolean withSpec) {
+    CharacterColumns base = CharacterColumns.of(keyframe.characters());
+    CharacterColumns cols = CharacterColumns.of(snapshot.characters());
+    LongLongMap baseRows = new LongLongMap(base.size());
+    for (int i = 0; i < base.size(); i++) {
+      long identity = base.identity(i, withSpec);
+      if (baseRows.get(identity) == LongLongMap.MISSING) {
+        baseRows.put(identity, i);
+      }
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream(cols.size() * 4);
+    writeVarLong(out, VERSION);
+    writeVarLong(out, cols.size());
+    int added = 0;
+    long prevRow = -1;
+    for (int i = 0; i < cols.size(); i++) {
+      Character ch = cols.get(i);
+      long row = baseRows.get(cols.identity(i, withSpec));
+      Character old = row == LongLongMap.MISSING ? null : base.get((int) row);
+      if (old == null || !sameExceptNumbers(old, ch)) {
+        byte[] json = ch.toJson().encode().getBytes(StandardCharsets.UTF_8);
+        out.write(ADDED);
+        writeVarLong(out, json.length);
+        out.write(json, 0, json.length);
+        added++;
+        continue;
+      }
+      int flags = (ch.inCutoff() ? IN_CUTOFF : 0) | (ch.pos().equals(old.pos()) ? 0 : POS)
+        | (ch.rating().equals(old.rating()) ? 0 : RATING) | (ch.wins().equals(old.wins()) ? 0 : WINS)
+        | (ch.losses().equals(old.losses()) ? 0 : LOSSES);
+      out.write(flags);
+      writeVarLong(out, row - prevRow - 1);
+      prevRow = row;
+      if ((flags & POS) != 0) {
+        writeVarLong(out, ch.pos() - old.pos());
+      }
+      if ((flags & RATING) != 0) {
+        writeVarLong(out, ch.rating() - old.rating());
+      }
+      if ((flags & WINS) != 0) {
+        writeVarLong(out, ch.wins() - old.wins());
+      }
+      if ((flags & LOSSES) != 0) {
+        writeVarLong(out, ch.losses() - old.losses());
+      }
+    }
+    return new Encoded(Calculator.gzipCompress(out.toByteArray()), added);
+  }
+
+  static List<Character> decode(Snapshot keyframe, byte[] delta) {
+    CharacterColumns base = CharacterColumns.of(keyframe.characters());
+    Reader in = new Reader(Calculator.gzipUncompress(delta));
+    long version = in.readVarLong();
+    if (version != VERSION) {
+      throw new IllegalStateException("Unknown snapshot delta version " + version);
+    }
+    int size = (int) in.readVarLong();
+    List<Character> res = new ArrayList<>(size);
+    long prevRow = -1;
+    for (int i = 0; i < size; i++) {
+      int flags = in.readByte();
+      if ((flags & ADDED) != 0) {
+        int length = (int) in.readVarLong();
+        res.add(Character.fromJson(new JsonObject(in.readString(length))));
+        continue;
+      }
+      long row = prevRow + 1 + in.readVarLong();
+      prevRow = row;
+      Character old = base.get((int) row);
+      long pos = old.pos() + ((flags & POS) != 0 ? in.readVarLong() : 0);
+      long rating = old.rating() + ((flags & RATING) != 0 ? in.readVarLong() : 0);
+      long wins = old.wins() + ((flags & WINS) != 0 ? in.readVarLong() : 0);
+      long losses = old.losses() + ((flags & LOSSES) != 0 ? in.readVarLong() : 0);
+      res.add(new Character(pos, rating, (flags & IN_CUTOFF) != 0, old.name(), old.clazz(), old.fullSpec(),
+        old.fraction(), old.gender(), old.race(), old.realm(), wins, losses, old.pethash()));
+    }
+    return res;
+  }
+
+  /**
+   * Rows are delta-encoded only when the numbers are present on both sides and
+   * everything else is equal.
+   */
+  private static boolean sameExceptNumbers(Character old, Character ch) {
+    return old.pos() != null && old.rating() != null && old.wins() != null && old.losses() != null
+      && ch.pos() != null && ch.rating() != null && ch.wins() != null && ch.losses() != null
+      && Objects.equals(old.name(), ch.name()) && Objects.equals(old.clazz(), ch.clazz())
+      && Objects.equals(old.fullSpec(), ch.fullSpec()) && Objects.equals(old.fraction(), ch.fraction())
+      && Objects.equals(old.gender(), ch.gender()) && Objects.equals(old.race(), ch.race())
+      && Objects.equals(old.realm(), ch.realm()) && Objects.equals(old.pethash(), ch.pethash());
+  }
+
+  private static void writeVarLong(ByteArrayOutputStream out, long value) {
+    long zigzag = (value << 1) ^ (value >> 63);
+    while ((zigzag & ~0x7FL) != 0) {
+      out.write((int) ((zigzag & 0x7F) | 0x80));
+      zigzag >>>= 7;
+    }
+    out.write((int) zigzag);
+  }
+
+  private static final class Reader {
+    private final byte[] bytes;
+    private int offset;
+
+    Reader(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    int readByte() {
+      return bytes[offset++] & 0xFF;
+    }
+
+    long readVarLong() {
+      long zigzag = 0;
+      int shift = 0;
+      int b;
+      do {
+        b = readByte();
+        zigzag |= (long) (b & 0x7F) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    String readString(int length) {
+      String res = new String(bytes, offset, length, StandardCharsets.UTF_8);
+      offset += length;
+      return res;
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package io.github.sammers.pla.db;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+
+import static java.time.ZoneOffset.UTC;
+
+/**
+ * Retention of the snapshots of one bracket: all snapshots of the last 24
+ * hours, the first snapshot of every day of the last week and the first
+ * Thursday snapshot of every older week. Keyframes of kept deltas are kept too,
+ * see {@link SnapshotDelta}.
+ * <p>
+ * Only the snapshots whose fate can still change are tracked. Once a day is
+ * {@link #FINAL_DAYS} old its kept snapshots are final and forgotten, so every
+ * compaction looks at about a week of timestamps and returns only the ones that
+ * have just expired.
+ */
+class SnapshotRetention {
+  /**
+   * A day later than the weekly rule kicks in, so the deltas of the next day
+   * are settled before their keyframe is.
+   */
+  static final int FINAL_DAYS = 8;
+  private static final long NO_BASE = -1;
+  private final Map<String, TreeMap<Long, Long>> tracked = new HashMap<>();
+
+  /**
+   * First snapshot of a day older than the horizon.
+   *
+   * @param base
+   *          keyframe timestamp of a delta, null for keyframes
+   */
+  record FirstOfDay(String region, LocalDate day, long timestamp, Long base) {
+  }
+
+  /**
+   * @return start of the oldest day still tracked, older snapshots are final
+   */
+  static long horizon(long now) {
+    return day(now).minusDays(FINAL_DAYS).atStartOfDay(UTC).toInstant().toEpochMilli();
+  }
+
+  /**
+   * @param base
+   *          keyframe timestamp of a delta, null for keyframes
+   */
+  synchronized void track(String region, long timestamp, Long base) {
+    tracked.computeIfAbsent(region, k -> new TreeMap<>()).put(timestamp, base == null ? NO_BASE : base);
+  }
+
+  /**
+   * Snapshots older than the horizon that are kept for good: the first Thursday
+   * snapshots with their keyframes, and the keyframes of tracked deltas.
+   *
+   * @return kept timestamps of every region of the given days and of the
+   *         tracked snapshots
+   */
+  synchronized Map<String, Set<Long>> keptBefore(long horizon, List<FirstOfDay> days) {
+    Map<String, Set<Long>> kept = new HashMap<>();
+    for (FirstOfDay first : days) {
+      Set<Long> regionKept = kept.computeIfAbsent(first.region(), k -> new HashSet<>());
+      if (weekly(first.day())) {
+        regionKept.add(first.timestamp());
+        if (first.base() != null) {
+          regionKept.add(first.base());
+        }
+      }
+    }
+    tracked.forEach((region, snapshots) -> {
+      Set<Long> regionKept = kept.computeIfAbsent(region, k -> new HashSet<>());
+      snapshots.values().stream().filter(base -> base != NO_BASE && base < horizon).forEach(regionKept::add);
+    });
+    return kept;
+  }
+
+  synchronized int size() {
+    return tracked.values().stream().mapToInt(Map::size).sum();
+  }
+
+  /**
+   * Forgets the expired snapshots and the final ones.
+   *
+   * @return expired timestamps by region
+   */
+  synchronized Map<String, List<Long>> compact(long now) {
+    Map<String, List<Long>> expired = new HashMap<>();
+    LocalDate today = day(now);
+    tracked.forEach((region, snapshots) -> {
+      Set<Long> keep = new HashSet<>();
+      Map<LocalDate, Long> firstOfDay = new HashMap<>();
+      snapshots.keySet().forEach(timestamp -> {
+        if (now - timestamp < Duration.ofHours(24).toMillis()) {
+          keep.add(timestamp);
+        }
+        firstOfDay.putIfAbsent(day(timestamp), timestamp);
+      });
+      firstOfDay.forEach((day, timestamp) -> {
+        if (day.plusDays(7).isAfter(today) || weekly(day)) {
+          keep.add(timestamp);
+        }
+      });
+      List.copyOf(keep).forEach(timestamp -> keep.add(snapshots.get(timestamp)));
+      List<Long> regionExpired = new ArrayList<>();
+      snapshots.entrySet().removeIf(entry -> {
+        long timestamp = entry.getKey();
+        if (!keep.contains(timestamp)) {
+          regionExpired.add(timestamp);
+          return true;
+        }
+        return !day(timestamp).plusDays(FINAL_DAYS).isAfter(today);
+      });
+      if (!regionExpired.isEmpty()) {
+        expired.put(region, regionExpired);
+      }
+    });
+    return expired;
+  }
+
+  private static boolean weekly(LocalDate day) {
+    return day.getDayOfWeek().equals(DayOfWeek.THURSDAY);
+  }
+
+  private static LocalDate day(long timestamp) {
+    return Instant.ofEpochMilli(timestamp).atZone(UTC).toLocalDate();
+  }
+}
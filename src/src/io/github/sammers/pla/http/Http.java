@@ -4,7 +4,9 @@ import io.github.sammers.pla.blizzard.*;
 import io.github.sammers.pla.db.*;
 import io.github.sammers.pla.db.Character;
 import io.github.sammers.pla.logic.*;
+import io.github.sammers.pla.ratelim.RequestPriority;
 import io.reactivex.rxjava3.core.Single;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.Cookie;
 import io.vertx.core.http.HttpServerOptions;
 import io.vertx.core.json.JsonArray;
@@ -17,6 +19,7 @@ import org.javatuples.Pair;
 import org.slf4j.Logger;
 
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import static io.github.sammers.pla.Main.VTHREAD_EXECUTOR;
@@ -25,6 +28,11 @@ import static io.github.sammers.pla.logic.Conts.*;
 public class Http {
   private static final Logger log = org.slf4j.LoggerFactory.getLogger(Http.class);
   private static final Integer SEARCH_RESULT_SIZE = 20;
+  /**
+   * Ladders are refreshed every minute, clients may reuse a page for that long
+   * and revalidate it with its ETag afterwards.
+   */
+  private static final String LADDER_CACHE_CONTROL = "public, max-age=60, must-revalidate";
   private static final List<Multiclassers.Role> MULTICLASSER_ROLES = List.of(Multiclassers.Role.ALL, Multiclassers.Role.DPS, Multiclassers.Role.HEALER, Multiclassers.Role.MELEE, Multiclassers.Role.RANGED, Multiclassers.Role.TANK);
   private final Vertx vertx;
   private final Ladder ladder;
@@ -33,6 +41,11 @@ public class Http {
   private final UserLogic userLogic;
   private final RealmStats realmStats;
   private final DB db;
+  private final PageCache pageCache = new PageCache();
+  private volatile RealmsVersion realmsVersion;
+
+  private record RealmsVersion(Realms realms, int version) {
+  }
 
   public Http(Vertx vertx, Ladder ladder, Refs refs, CharacterCache characterCache, UserLogic userLogic, DB db) {
     this.vertx = vertx;
@@ -323,13 +336,20 @@ public class Http {
         Multiclassers.Role role = Optional.ofNullable(ctx.request().getParam("role"))
           .map(x -> Multiclassers.Role.valueOf(x.toUpperCase()))
           .orElse(Multiclassers.Role.ALL);
-        ladder(ctx, refs.refMulticlassers(role, region).get());
+        Multiclassers multiclassers = refs.refMulticlassers(role, region).get();
+        if (multiclassers == null) {
+          ladder(ctx, null);
+        } else {
+          cachedLadder(ctx, MULTICLASSERS, role.role, region, multiclassers, null, null, () -> multiclassers);
+        }
       } else {
         Snapshot snapshot = refs.refByBracket(bracket, region).get();
         if (snapshot == null) {
           ctx.response().end(Snapshot.empty(region).toJson().encode());
         } else {
-          ladder(ctx, applySpecFilter(ctx, snapshot.applySlugToName(ladder.realms.get())));
+          Realms realms = ladder.realms.get();
+          cachedLadder(ctx, "ladder", bracket, region, snapshot, realms, snapshot.timestamp(),
+            () -> applySpecFilter(ctx, snapshot.applySlugToName(realms)));
         }
       }
     });
@@ -371,7 +391,9 @@ public class Http {
       if (snapshotDiff == null) {
         ctx.response().end(Snapshot.empty(region).toJson().encode());
       } else {
-        ladder(ctx, applySpecFilter(ctx, snapshotDiff.applySlugToName(ladder.realms.get())));
+        Realms realms = ladder.realms.get();
+        cachedLadder(ctx, "activity", bracket, region, snapshotDiff, realms, snapshotDiff.timestamp(),
+          () -> applySpecFilter(ctx, snapshotDiff.applySlugToName(realms)));
       }
     });
     router.get("/api/:region/:realm/:name").handler(ctx -> {
@@ -410,7 +432,8 @@ public class Http {
         String realm = ctx.pathParam("realm");
         String name = ctx.pathParam("name");
         ctx.response().putHeader("Content-Type", "application/json");
-        ladder.blizzardAPI.equipment(region, realm, name).subscribe(equipment -> {
+        BlizzardAPI api = ladder.blizzardAPI.withPriority(RequestPriority.INTERACTIVE);
+        api.equipment(region, realm, name).subscribe(equipment -> {
           JsonArray items = new JsonArray(equipment.stream()
             .map(io.github.sammers.pla.blizzard.EquippedItem::toJson)
             .toList());
@@ -427,7 +450,8 @@ public class Http {
         String realm = ctx.pathParam("realm");
         String name = ctx.pathParam("name");
         ctx.response().putHeader("Content-Type", "application/json");
-        ladder.blizzardAPI.talents(region, realm, name).subscribe(talents -> {
+        BlizzardAPI api = ladder.blizzardAPI.withPriority(RequestPriority.INTERACTIVE);
+        api.talents(region, realm, name).subscribe(talents -> {
           ctx.response().end(talents.encode());
         }, err -> {
           log.error("Error fetching talents for {} on {} in {}", name, realm, region, err);
@@ -565,11 +589,134 @@ public class Http {
     return summary;
   }
 
+  /**
+   * Serves the page from {@link PageCache}, rendering it only if the ref or
+   * the realms were replaced since it was cached. If the data has a version
+   * (the snapshot timestamp) the page gets an ETag and a matching
+   * If-None-Match is answered with 304 without rendering the page.
+   */
+  private void cachedLadder(RoutingContext ctx, String kind, String bracket, String region, Object source,
+    Realms realms, Long version, Supplier<JsonPaged> view) {
+    Long page = page(ctx);
+    PageCache.Key key = new PageCache.Key(kind, bracket, region, page, specs(ctx));
+    boolean gzip = acceptsGzip(ctx.request().getHeader("Accept-Encoding"));
+    ctx.response()
+      .putHeader("Content-Type", "application/json")
+      .putHeader("Vary", "Accept-Encoding")
+      .putHeader("Cache-Control", LADDER_CACHE_CONTROL);
+    if (version != null) {
+      String etag = etag(key, version, realmsVersion(realms), gzip);
+      ctx.response().putHeader("ETag", etag);
+      if (etagMatches(ctx.request().getHeader("If-None-Match"), etag)) {
+        ctx.response().setStatusCode(304).end();
+        return;
+      }
+    }
+    PageCache.Page cached = pageCache.get(key, source, realms, () -> {
+      JsonPaged paged = view.get();
+      return paged == null ? Snapshot.empty(EU).toJson(page) : paged.toJson(page);
+    });
+    if (gzip) {
+      // the server compressor leaves responses with a content encoding alone
+      ctx.response().putHeader("Content-Encoding", "gzip").end(Buffer.buffer(cached.gzip()));
+    } else {
+      ctx.response().end(Buffer.buffer(cached.json()));
+    }
+  }
+
+  /**
+   * Strong ETag of a page, the encodings are different representations so they
+   * get different tags. Built only from what the body depends on, the data
+   * version and the realms naming the characters, so the tag is the same on
+   * every node and across restarts.
+   *
+   * @param realmsVersion
+   *          see {@link #realmsVersion(Realms)}
+   */
+  static String etag(PageCache.Key key, long version, int realmsVersion, boolean gzip) {
+    return "\"" + key.kind() + "-" + key.bracket() + "-" + key.region() + "-" + version + "-" + key.page() + "-"
+      + Integer.toHexString(key.specs().hashCode()) + "-" + Integer.toHexString(realmsVersion) + (gzip ? "-gz" : "")
+      + "\"";
+  }
+
+  /**
+   * Content hash of the realms, computed once per realms object. Realms are
+   * replaced rather than modified, see {@link Ladder#realms}.
+   */
+  private int realmsVersion(Realms realms) {
+    if (realms == null) {
+      return 0;
+    }
+    RealmsVersion current = realmsVersion;
+    if (current == null || current.realms() != realms) {
+      current = new RealmsVersion(realms, realms.idToRealm().hashCode());
+      realmsVersion = current;
+    }
+    return current.version();
+  }
+
+  /**
+   * @return whether the Accept-Encoding allows gzip, i.e. gzip or, if gzip isn't
+   *         listed, * has a non-zero q-value
+   */
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    double gzip = -1;
+    double any = -1;
+    for (String candidate : acceptEncoding.split(",")) {
+      String[] params = candidate.split(";");
+      String coding = params[0].trim().toLowerCase();
+      double q = 1;
+      for (int i = 1; i < params.length; i++) {
+        String param = params[i].trim();
+        if (param.length() > 2 && param.substring(0, 2).equalsIgnoreCase("q=")) {
+          try {
+            q = Double.parseDouble(param.substring(2).trim());
+          } catch (NumberFormatException e) {
+            q = 0;
+          }
+        }
+      }
+      if (coding.equals("gzip") || coding.equals("x-gzip")) {
+        gzip = Math.max(gzip, q);
+      } else if (coding.equals("*")) {
+        any = Math.max(any, q);
+      }
+    }
+    return gzip >= 0 ? gzip > 0 : any > 0;
+  }
+
+  /**
+   * If-None-Match uses the weak comparison, W/ prefixes are ignored.
+   */
+  static boolean etagMatches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals("*") || tag.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static Long page(RoutingContext ctx) {
+    return Optional.of(ctx.queryParam("page")).flatMap(l -> l.stream().findFirst()).map(Long::parseLong).orElse(1L);
+  }
+
+  private static List<String> specs(RoutingContext ctx) {
+    return ctx.queryParam("specs").stream().flatMap(spcs -> Arrays.stream(spcs.split(","))).toList();
+  }
+
   private void ladder(RoutingContext ctx, JsonPaged snapshot) {
-    Long page = Optional.of(ctx.queryParam("page"))
-      .flatMap(l -> l.stream().findFirst())
-      .map(Long::parseLong)
-      .orElse(1L);
+    Long page = page(ctx);
     if (snapshot == null) {
       ctx.response().end(Snapshot.empty(EU).toJson(page).encode());
     } else {
@@ -581,7 +728,7 @@ public class Http {
     if (specFiltered == null) {
       return null;
     }
-    List<String> specs = ctx.queryParam("specs").stream().flatMap(spcs -> Arrays.stream(spcs.split(","))).toList();
+    List<String> specs = specs(ctx);
     if (specs.isEmpty()) {
       return specFiltered;
     } else {
@@ -0,0 +1,60 @@
+package io.github.sammers.pla.http;
+
+import io.github.sammers.pla.logic.Calculator;
+import io.github.sammers.pla.logic.SpecIndex;
+import io.prometheus.metrics.core.metrics.Counter;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Pre-encoded and pre-gzipped pages of the ladder and activity responses. An
+ * entry is versioned by the identity of the objects it was rendered from (the
+ * snapshot in the ref, the realms used to name them), so replacing the ref
+ * invalidates all of its pages at once. Pages contain nothing relative to the
+ * current time, so they stay valid as long as the data does.
+ */
+public class PageCache {
+  private static final int MAX_ENTRIES = 4096;
+  private static final Counter PAGE_CACHE_REQUESTS = Counter.builder()
+    .name("http_page_cache_requests_total")
+    .help("Ladder page cache lookups")
+    .labelNames("kind", "result")
+    .register();
+  private final Map<Key, Page> pages = new ConcurrentHashMap<>();
+
+  /**
+   * @param specs
+   *          spec filter, order and spelling which normalize the same are one
+   *          key
+   */
+  public record Key(String kind, String bracket, String region, long page, List<String> specs) {
+    public Key {
+      specs = specs.stream().map(SpecIndex::normalize).distinct().sorted().toList();
+    }
+  }
+
+  public record Page(Object source, Object realms, byte[] json, byte[] gzip) {
+  }
+
+  public Page get(Key key, Object source, Object realms, Supplier<JsonObject> render) {
+    Page page = pages.get(key);
+    if (page != null && page.source() == source && page.realms() == realms) {
+      PAGE_CACHE_REQUESTS.labelValues(key.kind(), "hit").inc();
+      return page;
+    }
+    PAGE_CACHE_REQUESTS.labelValues(key.kind(), "miss").inc();
+    byte[] json = render.get().encode().getBytes(StandardCharsets.UTF_8);
+    page = new Page(source, realms, json, Calculator.gzipCompress(json));
+    if (pages.size() >= MAX_ENTRIES) {
+      // entries of replaced refs are only overwritten on access, drop them all
+      pages.clear();
+    }
+    pages.put(key, page);
+    return page;
+  }
+}
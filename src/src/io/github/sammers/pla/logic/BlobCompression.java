@@ -0,0 +1,31 @@
+package io.github.sammers.pla.logic;
+
+/**
+ * Compression used for cached blobs. Every implementation has a unique id which
+ * is stored next to the compressed bytes, so blobs compressed by an older
+ * implementation can still be decompressed after a new one is installed.
+ */
+public interface BlobCompression {
+  BlobCompression GZIP = new BlobCompression() {
+    @Override
+    public int id() {
+      return 0;
+    }
+
+    @Override
+    public byte[] compress(byte[] data) {
+      return Calculator.gzipCompress(data);
+    }
+
+    @Override
+    public byte[] decompress(byte[] data) {
+      return Calculator.gzipUncompress(data);
+    }
+  };
+
+  int id();
+
+  byte[] compress(byte[] data);
+
+  byte[] decompress(byte[] data);
+}
@@ -7,6 +7,7 @@ import io.github.sammers.pla.blizzard.WowAPICharacter;
 import io.github.sammers.pla.db.*;
 import io.github.sammers.pla.db.Character;
 import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Single;
 import org.javatuples.Pair;
 import org.javatuples.Triplet;
 import org.slf4j.Logger;
@@ -248,12 +249,17 @@ public class Calculator {
     return 0;
   }
 
-  public static Maybe<SnapshotDiff> calcDiffAndCombine(String bracket, String region, List<Maybe<Snapshot>> snaps) {
+  /**
+   * Diffs every pair of consecutive snapshots, the result is ordered oldest
+   * first and seeds the {@link DiffWindow} of the bracket.
+   */
+  public static Single<List<SnapshotDiff>> calcConsecutiveDiffs(String bracket, String region,
+    List<Maybe<Snapshot>> snaps) {
     AtomicInteger snapsCnt = new AtomicInteger();
     return Maybe.merge(snaps).toList().map(snapshots -> {
       snapsCnt.set(snapshots.size());
       return snapshots.stream().sorted(Comparator.comparing(Snapshot::timestamp)).toList();
-    }).flatMapMaybe(snapshots -> {
+    }).map(snapshots -> {
       try {
         List<SnapshotDiff> diffs = new ArrayList<>();
         for (int i = 1; i < snapshots.size(); i++) {
@@ -264,26 +270,13 @@ public class Calculator {
             diffs.add(e);
           }
         }
-        SnapshotDiff res = null;
-        if (diffs.size() > 0) {
-          res = diffs.get(diffs.size() - 1);
-        }
-        for (int i = diffs.size() - 1; i > 0; i--) {
-          res = Calculator.combine(diffs.get(i - 1), res, bracket);
-        }
-        SnapshotDiff resSnap;
-        if (res == null) {
-          resSnap = SnapshotDiff.empty();
-        } else {
-          resSnap = res;
-        }
-        log.info("Diffs has been calculated for bracket {}-{}, snaps:{}, uniqSnaps={}, snapDiffs={}, " + "diffs:{}",
-          region, bracket, snapsCnt.get(), snapshots.size(),
-          diffs.stream().map(SnapshotDiff::chars).map(List::size).reduce(0, Integer::sum), resSnap.chars().size());
-        return Maybe.just(resSnap);
+        log.info("Diffs has been calculated for bracket {}-{}, snaps:{}, uniqSnaps={}, snapDiffs={}", region, bracket,
+          snapsCnt.get(), snapshots.size(),
+          diffs.stream().map(SnapshotDiff::chars).map(List::size).reduce(0, Integer::sum));
+        return diffs;
       } catch (Exception e) {
         log.error("Error while calculating diff for bracket {}", bracket, e);
-        return Maybe.error(e);
+        throw e;
       }
     });
   }
@@ -365,38 +358,50 @@ public class Calculator {
       oldChars = newChars;
       newChars = temp;
     }
-    ArrayList<CharAndDiff> res = new ArrayList<>(newChars.characters().size());
-    Function<Character, String> idF = getIdFunction(bracket);
-    Map<String, Character> oldMap;
-    if (oldChars == null) {
-      oldMap = new HashMap<>();
-    } else {
-      oldMap = oldChars.characters().stream().collect(Collectors.toMap(idF, c -> c, (a, b) -> a));
+    // hash join on the precomputed identities, see getIdFunction
+    boolean withSpec = bracket.equals("shuffle");
+    CharacterColumns newCols = CharacterColumns.of(newChars.characters());
+    CharacterColumns oldCols = oldChars == null ? CharacterColumns.empty() : CharacterColumns.of(oldChars.characters());
+    LongLongMap oldRows = new LongLongMap(oldCols.size());
+    for (int i = 0; i < oldCols.size(); i++) {
+      long identity = oldCols.identity(i, withSpec);
+      if (oldRows.get(identity) == LongLongMap.MISSING) {
+        oldRows.put(identity, i);
+      }
     }
-    for (Character newChar : newChars.characters()) {
-      Character oldChar = oldMap.get(idF.apply(newChar));
-      CharAndDiff e;
-      if (oldChar == null) {
+    ArrayList<CharAndDiff> res = new ArrayList<>();
+    for (int i = 0; i < newCols.size(); i++) {
+      if (!newCols.hasStats(i)) {
+        continue;
+      }
+      long oldRow = oldRows.get(newCols.identity(i, withSpec));
+      Diff diff;
+      if (oldRow == LongLongMap.MISSING) {
         if (newIsZero) {
-          e = new CharAndDiff(newChar, new Diff(0L, 0L, 0L, 0L, newChars.timestamp()));
-        } else {
-          e = new CharAndDiff(newChar,
-            new Diff(newChar.wins(), newChar.losses(), newChar.rating(), newChar.pos(), newChars.timestamp()));
+          continue;
         }
+        diff = new Diff(newCols.wins(i), newCols.losses(i), newCols.rating(i), newCols.pos(i), newChars.timestamp());
       } else {
-        e = new CharAndDiff(newChar, new Diff(newChar.wins() - oldChar.wins(), newChar.losses() - oldChar.losses(),
-          newChar.rating() - oldChar.rating(), newChar.pos() - oldChar.pos(), newChars.timestamp()));
-        if (e.diff().won() < 0 || e.diff().lost() < 0) {
-          log.debug("Negative diff: " + e);
-          e = new CharAndDiff(e.character(), new Diff(e.diff().won(), e.diff().lost(), e.diff().ratingDiff(),
-            e.diff().rankDiff(), e.diff().timestamp()));
+        int old = (int) oldRow;
+        if (!oldCols.hasStats(old)) {
+          continue;
         }
+        long won = newCols.wins(i) - oldCols.wins(old);
+        long lost = newCols.losses(i) - oldCols.losses(old);
+        if (won == 0 && lost == 0) {
+          continue;
+        }
+        diff = new Diff(won, lost, newCols.rating(i) - oldCols.rating(old), newCols.pos(i) - oldCols.pos(old),
+          newChars.timestamp());
       }
-      if (e.diff().lost() == 0 && e.diff().won() == 0) {
+      if (diff.lost() == 0 && diff.won() == 0) {
         continue;
-      } else {
-        res.add(e);
       }
+      CharAndDiff e = new CharAndDiff(newCols.get(i), diff);
+      if (diff.won() < 0 || diff.lost() < 0) {
+        log.debug("Negative diff: " + e);
+      }
+      res.add(e);
     }
     res.sort(Comparator.comparing((CharAndDiff o) -> o.character().rating()).reversed());
     return new SnapshotDiff(res, newChars.timestamp());
@@ -6,6 +6,7 @@ import io.github.sammers.pla.blizzard.WowAPICharacter;
 import io.github.sammers.pla.db.Character;
 import io.github.sammers.pla.db.DB;
 import io.github.sammers.pla.db.Snapshot;
+import io.github.sammers.pla.ratelim.RequestPriority;
 import io.prometheus.metrics.core.metrics.Counter;
 import io.prometheus.metrics.core.metrics.Gauge;
 import io.reactivex.rxjava3.core.Completable;
@@ -99,7 +100,8 @@ public class CharUpdater {
 
   public Single<Optional<WowAPICharacter>> updateChar(String region, String nickName, boolean fast) {
     return Single.defer(() -> {
-      Maybe<WowAPICharacter> charMaybe = mainApi.character(region, nickName);
+      RequestPriority priority = fast ? RequestPriority.INTERACTIVE : RequestPriority.BACKGROUND;
+      Maybe<WowAPICharacter> charMaybe = mainApi.withPriority(priority).character(region, nickName);
       return charMaybe.map(Optional::of).defaultIfEmpty(Optional.empty()).flatMap(wowAPICharacterOpt -> {
         if (wowAPICharacterOpt.isEmpty()) {
           return Single.just(Optional.empty());
@@ -286,8 +288,8 @@ public class CharUpdater {
     }
     // Count not found cache entries for this region
     long notFoundCount = notFoundCache.entrySet().stream().filter(e -> {
-      WowAPICharacter cached = characterCache.getByFullName(e.getKey());
-      return cached == null || cached.region().equals(realRegion);
+      String cachedRegion = characterCache.regionByFullName(e.getKey());
+      return cachedRegion == null || cachedRegion.equals(realRegion);
     }).count();
     // Categorize characters
     for (String fullName : allLeaderboardChars) {
@@ -295,16 +297,16 @@ public class CharUpdater {
       if (isInNotFoundCache(fullName)) {
         continue;
       }
-      WowAPICharacter cached = characterCache.getByFullName(fullName);
+      Long lastUpdated = characterCache.lastUpdatedByFullName(fullName);
       long pos = leaderboardPositions.getOrDefault(fullName, Long.MAX_VALUE);
       boolean inTop200 = pos > 0 && pos <= 200;
-      if (cached == null) {
+      if (lastUpdated == null) {
         newChars.add(fullName);
         if (inTop200) {
           top200NewChars.add(fullName);
         }
       } else {
-        long staleness = now - cached.lastUpdatedUTCms();
+        long staleness = now - lastUpdated;
         totalStalenessMs += staleness;
         totalCharsCount++;
         if (staleness > MS_30_DAYS) {
@@ -460,9 +462,8 @@ public class CharUpdater {
           wowAPICharacter.id(), existing.fullName(), existing.id());
         LinkedHashMap<Long, WowAPICharacter> migrateFromById = new LinkedHashMap<>();
         migrateFromById.put(existing.id(), existing);
-        Set<Long> candidateIds = new HashSet<>(
-          Optional.ofNullable(characterCache.alts.get(wowAPICharacter.petHash())).orElse(Set.of()));
-        candidateIds.addAll(Optional.ofNullable(characterCache.alts.get(existing.petHash())).orElse(Set.of()));
+        Set<Long> candidateIds = characterCache.altsByPetHash(wowAPICharacter.petHash());
+        candidateIds.addAll(characterCache.altsByPetHash(existing.petHash()));
         if (wowAPICharacter.alts() != null) {
           candidateIds.addAll(wowAPICharacter.alts());
         }
@@ -518,9 +519,8 @@ public class CharUpdater {
                 wowAPICharacter.id(), prev.fullName(), prev.id());
               LinkedHashMap<Long, WowAPICharacter> migrateFromById = new LinkedHashMap<>();
               migrateFromById.put(prev.id(), prev);
-              Set<Long> candidateIds = new HashSet<>(
-                Optional.ofNullable(characterCache.alts.get(wowAPICharacter.petHash())).orElse(Set.of()));
-              candidateIds.addAll(Optional.ofNullable(characterCache.alts.get(prev.petHash())).orElse(Set.of()));
+              Set<Long> candidateIds = characterCache.altsByPetHash(wowAPICharacter.petHash());
+              candidateIds.addAll(characterCache.altsByPetHash(prev.petHash()));
               if (wowAPICharacter.alts() != null) {
                 candidateIds.addAll(wowAPICharacter.alts());
               }
@@ -611,7 +611,7 @@ public class CharUpdater {
     if (character == null) {
       return Set.of();
     }
-    Set<Long> ids = new HashSet<>(Optional.ofNullable(characterCache.alts.get(character.petHash())).orElse(Set.of()));
+    Set<Long> ids = characterCache.altsByPetHash(character.petHash());
     if (character.alts() != null) {
       ids.addAll(character.alts());
     }
@@ -661,7 +661,7 @@ public class CharUpdater {
     }
     long oldId = previous.id();
     long newId = updated.id();
-    Set<Long> ids = new HashSet<>(Optional.ofNullable(characterCache.alts.get(updated.petHash())).orElse(Set.of()));
+    Set<Long> ids = characterCache.altsByPetHash(updated.petHash());
     if (updated.alts() != null) {
       ids.addAll(updated.alts());
     }
@@ -1,68 +1,240 @@
 package io.github.sammers.pla.logic;
 
 import io.github.sammers.pla.blizzard.BracketType;
+import io.github.sammers.pla.blizzard.CharacterCodec;
 import io.github.sammers.pla.blizzard.WowAPICharacter;
 import io.github.sammers.pla.db.Character;
 import io.prometheus.metrics.core.metrics.Gauge;
 import org.javatuples.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class CharacterCache {
-  private final Map<Long, byte[]> idCache;
-  private final Map<String, byte[]> nameCache;
-  public final Map<Integer, Set<Long>> alts;
+  private static final Logger log = LoggerFactory.getLogger(CharacterCache.class);
+  private static final int COMPRESSION_SAMPLE_SIZE = 20_000;
+  private static final int EXPECTED_SIZE = 1 << 16;
+  /** Guards records, names, alts and region counts. */
+  private final StampedLock lock = new StampedLock();
+  /** Character id to encoded record, the only place where records are stored. */
+  private final CharacterRecords records;
+  /** 64-bit hash of the full name to character id. */
+  private final LongLongMap names;
+  /** Pet hash to ids of the characters with this pet hash. */
+  private final IntLongMultimap alts;
+  private final Map<String, Integer> regionCounts = new HashMap<>();
+  /** Highest lastUpdatedUTCms of the cached characters. */
+  private long watermark;
   public final RealmStats realmStats;
   private static final Gauge ID_CACHE_SIZE = Gauge.builder()
     .name("IdGzipCacheSize")
     .help("How many characters are " + "in the id cache")
     .labelNames()
     .register();
+  private static final Gauge ID_CACHE_BYTES_PER_CHAR = Gauge.builder()
+    .name("IdCacheBytesPerChar")
+    .help("Average size of the encoded character record in the id cache")
+    .labelNames()
+    .register();
+  private static final Gauge COMPRESSION_BYTES_PER_CHAR = Gauge.builder()
+    .name("CharacterCacheCompressionBytesPerChar")
+    .help("Average encoded character size before and after shared dictionary training")
+    .labelNames("stage")
+    .register();
 
   public CharacterCache() {
-    nameCache = new ConcurrentHashMap<>();
-    idCache = new ConcurrentHashMap<>();
-    alts = new ConcurrentHashMap<>();
+    this(new HeapCharacterRecords(EXPECTED_SIZE));
+  }
+
+  /**
+   * Creates a cache on top of the given records, indexing the ones which are
+   * already there (e.g. loaded from {@link CharacterSegmentStore}).
+   */
+  public CharacterCache(CharacterRecords records) {
+    this.records = records;
+    int expected = Math.max(EXPECTED_SIZE, records.size());
+    names = new LongLongMap(expected);
+    alts = new IntLongMultimap(expected);
     realmStats = new RealmStats();
+    for (long id : records.ids()) {
+      byte[] record = records.get(id);
+      String region = CharacterCodec.region(record);
+      if (names.put(nameKey(CharacterCodec.fullName(record)), id) == LongLongMap.MISSING) {
+        realmStats.addRealmStat(CharacterCodec.realm(record), region, 1);
+      }
+      int petHash = CharacterCodec.petHash(record);
+      if (petHash != -1) {
+        alts.add(petHash, id);
+      }
+      regionCounts.merge(regionKey(region), 1, Integer::sum);
+      watermark = Math.max(watermark, CharacterCodec.lastUpdatedUTCms(record));
+    }
   }
 
   public void calculateSizeMetrics() {
-    long bytes = idCache.values().stream().mapToLong(b -> b.length).sum();
+    long bytes;
+    int size;
+    long stamp = lock.readLock();
+    try {
+      bytes = records.totalBytes();
+      size = records.size();
+    } finally {
+      lock.unlockRead(stamp);
+    }
     ID_CACHE_SIZE.set(bytes);
+    ID_CACHE_BYTES_PER_CHAR.set(size == 0 ? 0 : (double) bytes / size);
+  }
+
+  /**
+   * Persists the watermark of the cached characters if the records are backed
+   * by a {@link CharacterSegmentStore}.
+   */
+  public void checkpoint() {
+    if (!(records instanceof CharacterSegmentStore store)) {
+      return;
+    }
+    long checkpointWatermark;
+    long position;
+    long stamp = lock.readLock();
+    try {
+      checkpointWatermark = watermark;
+      position = store.position();
+    } finally {
+      lock.unlockRead(stamp);
+    }
+    // Forcing the segment takes a while, writers don't wait for it
+    store.checkpoint(checkpointWatermark, position);
+  }
+
+  /**
+   * Trains a shared dictionary on a sample of the cached characters, switches
+   * the codec to it and recompresses everything that is already cached.
+   */
+  public void trainCompression() {
+    if (CharacterCodec.tailCompression() instanceof DictionaryCompression) {
+      log.info("Character cache already uses a trained dictionary, skipping compression training");
+      return;
+    }
+    List<byte[]> samples = Arrays.stream(ids())
+      .limit(COMPRESSION_SAMPLE_SIZE)
+      .mapToObj(this::record)
+      .filter(Objects::nonNull)
+      .map(CharacterCodec::tail)
+      .toList();
+    if (samples.isEmpty()) {
+      log.info("Character cache is empty, skipping compression training");
+      return;
+    }
+    long tick = System.nanoTime();
+    double before = bytesPerChar();
+    DictionaryCompression compression = DictionaryCompression.train(CharacterCodec.nextCompressionId(), samples);
+    CharacterCodec.useTailCompression(compression);
+    for (long id : ids()) {
+      byte[] old = record(id);
+      if (old == null) {
+        continue;
+      }
+      byte[] recompressed = CharacterCodec.recompressTail(old);
+      long stamp = lock.writeLock();
+      try {
+        if (recompressed != old && Arrays.equals(records.get(id), old)) {
+          records.put(id, recompressed);
+        }
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+    double after = bytesPerChar();
+    COMPRESSION_BYTES_PER_CHAR.labelValues("before").set(before);
+    COMPRESSION_BYTES_PER_CHAR.labelValues("after").set(after);
+    calculateSizeMetrics();
+    log.info("Trained {} bytes dictionary on {} characters in {} ms, bytes per char {} -> {}",
+      compression.dictionarySize(), samples.size(), (System.nanoTime() - tick) / 1_000_000,
+      String.format("%.1f", before), String.format("%.1f", after));
+  }
+
+  private double bytesPerChar() {
+    long stamp = lock.readLock();
+    try {
+      return records.size() == 0 ? 0 : (double) records.totalBytes() / records.size();
+    } finally {
+      lock.unlockRead(stamp);
+    }
   }
 
   public WowAPICharacter getByFullName(String name) {
-    return WowAPICharacter.fromGzippedJson(nameCache.get(name));
+    return CharacterCodec.decode(recordByFullName(name));
   }
 
   public WowAPICharacter getById(Long id) {
-    return WowAPICharacter.fromGzippedJson(idCache.get(id));
+    return id == null ? null : CharacterCodec.decode(record(id));
+  }
+
+  /**
+   * Reads only the region of the cached character, without decoding the whole
+   * record.
+   *
+   * @return region or null if the character is not cached
+   */
+  public String regionByFullName(String name) {
+    byte[] bytes = recordByFullName(name);
+    return bytes == null ? null : CharacterCodec.region(bytes);
+  }
+
+  /**
+   * Reads only the last update timestamp of the cached character.
+   *
+   * @return timestamp or null if the character is not cached
+   */
+  public Long lastUpdatedByFullName(String name) {
+    byte[] bytes = recordByFullName(name);
+    return bytes == null ? null : CharacterCodec.lastUpdatedUTCms(bytes);
+  }
+
+  /**
+   * @return mutable copy of the ids of the characters with the given pet hash
+   */
+  public Set<Long> altsByPetHash(int petHash) {
+    long stamp = lock.readLock();
+    long[] ids;
+    try {
+      ids = alts.get(petHash);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+    Set<Long> res = new HashSet<>(ids.length);
+    for (long id : ids) {
+      res.add(id);
+    }
+    return res;
   }
 
   public void remove(WowAPICharacter character) {
     if (character == null) {
       return;
     }
-    nameCache.remove(character.fullName());
-    idCache.remove(character.id());
-    int petHash = character.petHash();
-    if (petHash != -1) {
-      alts.computeIfPresent(petHash, (k, v) -> {
-        v.remove(character.id());
-        return v.isEmpty() ? null : v;
-      });
+    long stamp = lock.writeLock();
+    try {
+      removeLocked(character.id(), character.fullName(), character.petHash());
+    } finally {
+      lock.unlockWrite(stamp);
     }
   }
 
   public void removeById(Long id) {
-    WowAPICharacter character = getById(id);
-    if (character != null) {
-      remove(character);
-    } else {
-      idCache.remove(id);
+    long stamp = lock.writeLock();
+    try {
+      byte[] record = records.get(id);
+      if (record != null) {
+        removeLocked(id, CharacterCodec.fullName(record), CharacterCodec.petHash(record));
+      }
+    } finally {
+      lock.unlockWrite(stamp);
     }
   }
 
@@ -74,12 +246,39 @@ public class CharacterCache {
       remove(character);
       return;
     }
-    byte[] gzip = character.toGzippedJson();
-    int ncsize = nameCache.size();
-    nameCache.put(character.fullName(), gzip);
-    idCache.put(character.id(), gzip);
-    indexCharAlts(alts, character.id(), character.petHash());
-    if (ncsize != nameCache.size()) {
+    byte[] encoded = CharacterCodec.encode(character);
+    long id = character.id();
+    String fullName = character.fullName();
+    int petHash = character.petHash();
+    boolean newName;
+    long stamp = lock.writeLock();
+    try {
+      byte[] prev = records.get(id);
+      if (Arrays.equals(prev, encoded)) {
+        return;
+      }
+      records.put(id, encoded);
+      if (prev != null) {
+        String prevName = CharacterCodec.fullName(prev);
+        if (!prevName.equals(fullName)) {
+          names.remove(nameKey(prevName), id);
+        }
+        int prevPetHash = CharacterCodec.petHash(prev);
+        if (prevPetHash != petHash) {
+          alts.remove(prevPetHash, id);
+        }
+        regionCounts.computeIfPresent(regionKey(CharacterCodec.region(prev)), (k, v) -> v > 1 ? v - 1 : null);
+      }
+      regionCounts.merge(regionKey(character.region()), 1, Integer::sum);
+      newName = names.put(nameKey(fullName), id) == LongLongMap.MISSING;
+      if (petHash != -1) {
+        alts.add(petHash, id);
+      }
+      watermark = Math.max(watermark, Optional.ofNullable(character.lastUpdatedUTCms()).orElse(0L));
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    if (newName) {
       realmStats.addRealmStat(character.realm(), character.region(), 1);
     }
   }
@@ -117,8 +316,8 @@ public class CharacterCache {
   public Set<WowAPICharacter> findAltsInconsistenciesAndFix(WowAPICharacter character) {
     Set<Long> idSet = new HashSet<>(character.alts());
     Set<WowAPICharacter> charset = idSet.stream()
-      .map(idCache::get)
-      .map(WowAPICharacter::fromGzippedJson)
+      .map(this::record)
+      .map(CharacterCodec::decode)
       .filter(Objects::nonNull)
       .collect(Collectors.toSet());
     charset.add(character);
@@ -143,8 +342,8 @@ public class CharacterCache {
   public Pair<Set<Long>, Set<WowAPICharacter>> removeNickDuplicates(WowAPICharacter character) {
     List<WowAPICharacter> sameNickButDiffId = new ArrayList<>(character.alts()
       .stream()
-      .flatMap(id -> Stream.ofNullable(idCache.get(id)))
-      .map(WowAPICharacter::fromGzippedJson)
+      .flatMap(id -> Stream.ofNullable(record(id)))
+      .map(CharacterCodec::decode)
       .filter(idLookedUp -> idLookedUp.fullName().equalsIgnoreCase(character.fullName()))
       .toList());
     sameNickButDiffId.add(character);
@@ -157,8 +356,8 @@ public class CharacterCache {
     toUpdate.add(newest);
     toUpdate.addAll(newest.alts()
       .stream()
-      .flatMap(id -> Stream.ofNullable(idCache.get(id)))
-      .map(WowAPICharacter::fromGzippedJson)
+      .flatMap(id -> Stream.ofNullable(record(id)))
+      .map(CharacterCodec::decode)
       .filter(ch -> !toDelete.contains(ch.id()))
       .map(ch -> {
         var cur = ch.alts();
@@ -169,12 +368,13 @@ public class CharacterCache {
     return new Pair<>(toDelete, toUpdate);
   }
 
-  public Collection<byte[]> values() {
-    return idCache.values();
-  }
-
   public int size() {
-    return idCache.size();
+    long stamp = lock.readLock();
+    try {
+      return records.size();
+    } finally {
+      lock.unlockRead(stamp);
+    }
   }
 
   /**
@@ -185,40 +385,137 @@ public class CharacterCache {
    * @return The number of characters in that region
    */
   public int countByRegion(String region) {
-    return (int) idCache.values()
-      .stream()
-      .map(WowAPICharacter::fromGzippedJson)
-      .filter(Objects::nonNull)
-      .filter(c -> region.equalsIgnoreCase(c.region()))
-      .count();
+    long stamp = lock.readLock();
+    try {
+      return regionCounts.getOrDefault(regionKey(region), 0);
+    } finally {
+      lock.unlockRead(stamp);
+    }
   }
 
-  public Set<WowAPICharacter> altsFor(WowAPICharacter character) {
-    Set<Long> longs = new HashSet<>();
-    Set<Long> cached = alts.get(character.petHash());
-    if (cached != null) {
-      longs.addAll(cached);
+  /**
+   * @return highest lastUpdatedUTCms of the cached characters
+   */
+  public long watermark() {
+    long stamp = lock.readLock();
+    try {
+      return watermark;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * @return watermark of the last checkpoint of the underlying segment, 0 if
+   *         the records are not persisted or were never checkpointed
+   */
+  public long persistedWatermark() {
+    return records instanceof CharacterSegmentStore store ? store.watermark() : 0;
+  }
+
+  /**
+   * Decodes the visible characters of the region and hands them to the consumer
+   * in batches. Hidden characters are skipped without being decoded.
+   */
+  public void forEachVisibleInRegion(String region, int batchSize, Consumer<List<WowAPICharacter>> consumer) {
+    String key = regionKey(region);
+    List<WowAPICharacter> batch = new ArrayList<>(batchSize);
+    for (long id : ids()) {
+      byte[] record = record(id);
+      if (record == null || CharacterCodec.hidden(record) || !key.equals(regionKey(CharacterCodec.region(record)))) {
+        continue;
+      }
+      batch.add(CharacterCodec.decode(record));
+      if (batch.size() == batchSize) {
+        consumer.accept(batch);
+        batch = new ArrayList<>(batchSize);
+      }
+    }
+    if (!batch.isEmpty()) {
+      consumer.accept(batch);
     }
+  }
+
+  public Set<WowAPICharacter> altsFor(WowAPICharacter character) {
+    Set<Long> longs = altsByPetHash(character.petHash());
     longs.addAll(character.alts());
     return longs.stream()
-      .map(idCache::get)
-      .map(WowAPICharacter::fromGzippedJson)
+      .map(this::record)
+      .map(CharacterCodec::decode)
       .filter(Objects::nonNull)
       .filter(c -> !c.hidden())
       .collect(Collectors.toSet());
   }
 
-  public static void indexCharAlts(Map<Integer, Set<Long>> alts, Long charId, int petHash) {
-    alts.compute(petHash, (key, value) -> {
-      if (key == -1) {
-        return null;
-      }
-      if (value == null) {
-        value = ConcurrentHashMap.newKeySet();
-      }
-      value.remove(charId);
-      value.add(charId);
-      return value;
-    });
+  private long[] ids() {
+    long stamp = lock.readLock();
+    try {
+      return records.ids();
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  private byte[] record(long id) {
+    long stamp = lock.readLock();
+    try {
+      return records.get(id);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * The name index only stores hashes, so the name of the found record is
+   * checked to never return a different character on a hash collision.
+   */
+  private byte[] recordByFullName(String name) {
+    if (name == null) {
+      return null;
+    }
+    byte[] record;
+    long stamp = lock.readLock();
+    try {
+      long id = names.get(nameKey(name));
+      record = id == LongLongMap.MISSING ? null : records.get(id);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+    if (record == null || !name.equals(CharacterCodec.fullName(record))) {
+      return null;
+    }
+    return record;
+  }
+
+  private void removeLocked(long id, String fullName, int petHash) {
+    byte[] prev = records.remove(id);
+    names.remove(nameKey(fullName), id);
+    alts.remove(petHash, id);
+    if (prev != null) {
+      names.remove(nameKey(CharacterCodec.fullName(prev)), id);
+      alts.remove(CharacterCodec.petHash(prev), id);
+      regionCounts.computeIfPresent(regionKey(CharacterCodec.region(prev)), (k, v) -> v > 1 ? v - 1 : null);
+    }
+  }
+
+  private static String regionKey(String region) {
+    return region == null ? "" : region.toLowerCase();
+  }
+
+  /**
+   * 64-bit FNV-1a of the name finished with the murmur3 mixer.
+   */
+  public static long nameKey(String name) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < name.length(); i++) {
+      h ^= name.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
   }
 }
@@ -0,0 +1,34 @@
+package io.github.sammers.pla.logic;
+
+/**
+ * Storage of encoded character records by character id. Implementations are
+ * not thread safe, {@link CharacterCache} synchronizes access.
+ */
+public interface CharacterRecords {
+  byte[] get(long id);
+
+  /**
+   * @return previous record or null
+   */
+  byte[] put(long id, byte[] record);
+
+  /**
+   * @return removed record or null
+   */
+  byte[] remove(long id);
+
+  int size();
+
+  long[] ids();
+
+  /**
+   * @return total size of the live records in bytes
+   */
+  long totalBytes();
+
+  /**
+   * Makes everything written so far durable. No-op for in-memory storage.
+   */
+  default void force() {
+  }
+}
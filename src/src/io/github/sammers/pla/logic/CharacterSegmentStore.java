@@ -0,0 +1,408 @@
+package io.github.sammers.pla.logic;
+
+import io.github.sammers.pla.blizzard.CharacterCodec;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, memory-mapped segment file with the encoded character records,
+ * so the cache lives off the Java heap and survives restarts.
+ *
+ * Every entry is [type:byte][length:int][crc:int][payload], the CRC32C covers
+ * type, length and payload. Besides records and deletions the segment contains
+ * the codec dictionary strings and the tail compression dictionaries, always
+ * appended before the first record using them, so replaying the segment from
+ * the start restores everything needed to decode the records. A zero type byte
+ * marks the end of the data, the file is grown in chunks and the tail is zero
+ * filled.
+ *
+ * Next to the segment lives a checkpoint with the highest lastUpdatedUTCms of
+ * the records which were forced to disk and the segment position they end at,
+ * see {@link #checkpoint(long, long)}. Replay stops at the first invalid entry,
+ * torn by a crash or corrupt, and truncates the segment there. Past the
+ * checkpoint position that is an unflushed write and the checkpoint stays,
+ * before it the checkpoint is dropped so the records are reloaded.
+ */
+public class CharacterSegmentStore implements CharacterRecords {
+  private static final Logger log = LoggerFactory.getLogger(CharacterSegmentStore.class);
+  private static final String SEGMENT_FILE = "characters.seg";
+  private static final String CHECKPOINT_FILE = "characters.checkpoint";
+  private static final byte STRING = 1;
+  private static final byte TAIL_DICTIONARY = 2;
+  private static final byte RECORD = 3;
+  private static final byte DELETE = 4;
+  private static final int CRC_OFFSET = 5;
+  static final int ENTRY_HEADER = 9;
+  private static final int ZERO_CHUNK = 1 << 20;
+  private static final long MIN_SIZE = 64L << 20;
+  /** Compact on open when less than this share of the segment is live. */
+  private static final double COMPACTION_LIVE_RATIO = 0.5;
+  private final Path dir;
+  private final Path segmentPath;
+  private final LongLongMap offsets;
+  private final Set<Integer> persistedCompressions = new HashSet<>();
+  private FileChannel channel;
+  private volatile MemorySegment segment;
+  private long position;
+  private long totalBytes;
+  private int persistedStrings;
+  private volatile long watermark;
+
+  private CharacterSegmentStore(Path dir, Path segmentPath, int expected) {
+    this.dir = dir;
+    this.segmentPath = segmentPath;
+    this.offsets = new LongLongMap(expected);
+  }
+
+  /**
+   * Opens the segment in the directory and replays it, compacting it first if
+   * most of it is garbage. Has to be called before anything is encoded with
+   * {@link CharacterCodec}, the codec dictionary is restored from the segment.
+   */
+  public static CharacterSegmentStore open(Path dir, int expected) {
+    try {
+      Files.createDirectories(dir);
+      CharacterSegmentStore store = new CharacterSegmentStore(dir, dir.resolve(SEGMENT_FILE), expected);
+      long tick = System.nanoTime();
+      store.map();
+      JsonObject checkpoint = store.readCheckpoint();
+      long checkpointPosition = Optional.ofNullable(checkpoint.getLong("position")).orElse(0L);
+      store.replay(checkpointPosition);
+      if (checkpointPosition > store.position) {
+        log.warn("Character segment is shorter than its checkpoint ({} < {}), ignoring the checkpoint",
+          store.position, checkpointPosition);
+      } else {
+        store.watermark = Optional.ofNullable(checkpoint.getLong("watermark")).orElse(0L);
+      }
+      log.info("Character segment {} opened in {} ms: records={} bytes={} live={} watermark={}", store.segmentPath,
+        (System.nanoTime() - tick) / 1_000_000, store.size(), store.position, store.totalBytes, store.watermark);
+      if (store.position > MIN_SIZE && store.totalBytes < store.position * COMPACTION_LIVE_RATIO) {
+        store.compact();
+      }
+      return store;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to open character segment in " + dir, e);
+    }
+  }
+
+  /**
+   * @return lastUpdatedUTCms of the last checkpoint, 0 if there was none
+   */
+  public long watermark() {
+    return watermark;
+  }
+
+  @Override
+  public byte[] get(long id) {
+    long offset = offsets.get(id);
+    if (offset == LongLongMap.MISSING) {
+      return null;
+    }
+    return read(segment, offset);
+  }
+
+  @Override
+  public byte[] put(long id, byte[] record) {
+    persistDictionaries();
+    byte[] prev = get(id);
+    long offset = append(RECORD, record);
+    offsets.put(id, offset);
+    totalBytes += record.length - (prev == null ? 0 : prev.length);
+    return prev;
+  }
+
+  @Override
+  public byte[] remove(long id) {
+    byte[] prev = get(id);
+    if (prev == null) {
+      return null;
+    }
+    byte[] payload = new byte[Long.BYTES];
+    MemorySegment.ofArray(payload).set(ValueLayout.JAVA_LONG_UNALIGNED, 0, id);
+    append(DELETE, payload);
+    offsets.remove(id);
+    totalBytes -= prev.length;
+    return prev;
+  }
+
+  @Override
+  public int size() {
+    return offsets.size();
+  }
+
+  @Override
+  public long[] ids() {
+    return offsets.keys();
+  }
+
+  @Override
+  public long totalBytes() {
+    return totalBytes;
+  }
+
+  @Override
+  public void force() {
+    segment.force();
+  }
+
+  /**
+   * @return end of the entries appended so far
+   */
+  public long position() {
+    return position;
+  }
+
+  /**
+   * Forces the segment to disk and records that every record updated at or
+   * before the watermark is durable. The watermark and the position have to be
+   * read together, the force and the write don't need the cache lock.
+   *
+   * @param durablePosition
+   *          {@link #position()} when the watermark was read
+   */
+  public synchronized void checkpoint(long newWatermark, long durablePosition) {
+    force();
+    Path tmp = dir.resolve(CHECKPOINT_FILE + ".tmp");
+    try {
+      Files.writeString(tmp,
+        new JsonObject().put("watermark", newWatermark).put("position", durablePosition).encode());
+      Files.move(tmp, dir.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+      watermark = newWatermark;
+    } catch (IOException e) {
+      log.error("Unable to write character segment checkpoint", e);
+    }
+  }
+
+  private JsonObject readCheckpoint() throws IOException {
+    Path path = dir.resolve(CHECKPOINT_FILE);
+    if (!Files.exists(path)) {
+      return new JsonObject();
+    }
+    return new JsonObject(Files.readString(path));
+  }
+
+  /**
+   * Appends the codec strings and tail compressions which are not in the
+   * segment yet, records encoded with them may follow.
+   */
+  private void persistDictionaries() {
+    int size = CharacterCodec.dictionarySize();
+    while (persistedStrings < size) {
+      String value = CharacterCodec.dictionaryValue(persistedStrings + 1);
+      append(STRING, value.getBytes(StandardCharsets.UTF_8));
+      persistedStrings++;
+    }
+    for (BlobCompression compression : CharacterCodec.tailCompressions()) {
+      if (compression instanceof DictionaryCompression dc && persistedCompressions.add(dc.id())) {
+        byte[] dictionary = dc.dictionary();
+        byte[] payload = new byte[Integer.BYTES + dictionary.length];
+        MemorySegment.ofArray(payload).set(ValueLayout.JAVA_INT_UNALIGNED, 0, dc.id());
+        System.arraycopy(dictionary, 0, payload, Integer.BYTES, dictionary.length);
+        append(TAIL_DICTIONARY, payload);
+      }
+    }
+  }
+
+  /**
+   * @param checkpointPosition
+   *          entries before it were forced to disk, an invalid one there is
+   *          corruption rather than a torn write
+   */
+  private void replay(long checkpointPosition) {
+    MemorySegment seg = segment;
+    long pos = 0;
+    long size = seg.byteSize();
+    while (pos + ENTRY_HEADER <= size) {
+      byte type = seg.get(ValueLayout.JAVA_BYTE, pos);
+      if (type == 0) {
+        break;
+      }
+      if (!valid(seg, pos)) {
+        if (pos < checkpointPosition) {
+          log.error("Corrupt entry at {} in {} before the checkpoint at {}, truncating", pos, segmentPath,
+            checkpointPosition);
+        } else {
+          log.warn("Torn entry at {} in {}, truncating", pos, segmentPath);
+        }
+        break;
+      }
+      int length = seg.get(ValueLayout.JAVA_INT_UNALIGNED, pos + 1);
+      switch (type) {
+        case STRING -> {
+          persistedStrings++;
+          CharacterCodec.restoreDictionaryValue(persistedStrings,
+            new String(read(seg, pos), StandardCharsets.UTF_8));
+        }
+        case TAIL_DICTIONARY -> {
+          byte[] payload = read(seg, pos);
+          int id = MemorySegment.ofArray(payload).get(ValueLayout.JAVA_INT_UNALIGNED, 0);
+          byte[] dictionary = new byte[payload.length - Integer.BYTES];
+          System.arraycopy(payload, Integer.BYTES, dictionary, 0, dictionary.length);
+          CharacterCodec.useTailCompression(new DictionaryCompression(id, dictionary));
+          persistedCompressions.add(id);
+        }
+        case RECORD -> {
+          byte[] record = read(seg, pos);
+          long id = CharacterCodec.id(record);
+          byte[] prev = get(id);
+          offsets.put(id, pos);
+          totalBytes += record.length - (prev == null ? 0 : prev.length);
+        }
+        case DELETE -> {
+          long id = seg.get(ValueLayout.JAVA_LONG_UNALIGNED, pos + ENTRY_HEADER);
+          byte[] prev = get(id);
+          if (prev != null) {
+            offsets.remove(id);
+            totalBytes -= prev.length;
+          }
+        }
+      }
+      pos += ENTRY_HEADER + length;
+    }
+    position = pos;
+    truncate(seg);
+  }
+
+  /**
+   * @return whether the entry at the offset is complete, of a known type and
+   *         matches its CRC
+   */
+  private static boolean valid(MemorySegment seg, long offset) {
+    byte type = seg.get(ValueLayout.JAVA_BYTE, offset);
+    int length = seg.get(ValueLayout.JAVA_INT_UNALIGNED, offset + 1);
+    if (length < 0 || offset + ENTRY_HEADER + length > seg.byteSize()) {
+      return false;
+    }
+    boolean knownLength = switch (type) {
+      case STRING, RECORD -> true;
+      case TAIL_DICTIONARY -> length >= Integer.BYTES;
+      case DELETE -> length == Long.BYTES;
+      default -> false;
+    };
+    return knownLength && seg.get(ValueLayout.JAVA_INT_UNALIGNED, offset + CRC_OFFSET) == crc(type, length,
+      seg.asSlice(offset + ENTRY_HEADER, length).asByteBuffer());
+  }
+
+  /**
+   * Zero fills everything after the replayed entries, so the entries appended
+   * from now on can't run into leftovers of an entry that was never complete.
+   */
+  private void truncate(MemorySegment seg) {
+    MemorySegment zeros = MemorySegment.ofArray(new byte[ZERO_CHUNK]);
+    long size = seg.byteSize();
+    for (long from = position; from < size; from += ZERO_CHUNK) {
+      long to = Math.min(size, from + ZERO_CHUNK);
+      if (MemorySegment.mismatch(seg, from, to, zeros, 0, to - from) != -1) {
+        log.warn("Zero filling {} bytes after {} in {}", size - position, position, segmentPath);
+        seg.asSlice(position).fill((byte) 0);
+        seg.force();
+        return;
+      }
+    }
+  }
+
+  private static int crc(byte type, int length, ByteBuffer payload) {
+    CRC32C crc = new CRC32C();
+    crc.update(type);
+    crc.update(length);
+    crc.update(length >>> 8);
+    crc.update(length >>> 16);
+    crc.update(length >>> 24);
+    crc.update(payload);
+    return (int) crc.getValue();
+  }
+
+  /**
+   * Rewrites the live records into a fresh segment and swaps it in.
+   */
+  void compact() throws IOException {
+    long tick = System.nanoTime();
+    Path tmpPath = dir.resolve(SEGMENT_FILE + ".compact");
+    Files.deleteIfExists(tmpPath);
+    CharacterSegmentStore compacted = new CharacterSegmentStore(dir, tmpPath, Math.max(16, size()));
+    compacted.map();
+    for (long id : ids()) {
+      compacted.put(id, get(id));
+    }
+    compacted.force();
+    compacted.channel.close();
+    channel.close();
+    Files.move(tmpPath, segmentPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    long before = position;
+    map();
+    offsets.clear();
+    for (long id : compacted.ids()) {
+      offsets.put(id, compacted.offsets.get(id));
+    }
+    position = compacted.position;
+    // The old checkpoint position means nothing in the new segment
+    checkpoint(watermark, position);
+    log.info("Character segment compacted from {} to {} bytes in {} ms", before, position,
+      (System.nanoTime() - tick) / 1_000_000);
+  }
+
+  private long append(byte type, byte[] payload) {
+    long offset = position;
+    long end = offset + ENTRY_HEADER + payload.length;
+    MemorySegment seg = segment;
+    if (end > seg.byteSize()) {
+      seg = grow(end);
+    }
+    seg.set(ValueLayout.JAVA_INT_UNALIGNED, offset + 1, payload.length);
+    seg.set(ValueLayout.JAVA_INT_UNALIGNED, offset + CRC_OFFSET, crc(type, payload.length, ByteBuffer.wrap(payload)));
+    MemorySegment.copy(payload, 0, seg, ValueLayout.JAVA_BYTE, offset + ENTRY_HEADER, payload.length);
+    // type goes last, the entry is visible for replay only once it is complete
+    seg.set(ValueLayout.JAVA_BYTE, offset, type);
+    position = end;
+    return offset;
+  }
+
+  private static byte[] read(MemorySegment seg, long offset) {
+    int length = seg.get(ValueLayout.JAVA_INT_UNALIGNED, offset + 1);
+    byte[] res = new byte[length];
+    MemorySegment.copy(seg, ValueLayout.JAVA_BYTE, offset + ENTRY_HEADER, res, 0, length);
+    return res;
+  }
+
+  private void map() throws IOException {
+    channel = FileChannel.open(segmentPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+      StandardOpenOption.WRITE);
+    segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(MIN_SIZE, channel.size()), Arena.ofAuto());
+  }
+
+  /**
+   * Maps a bigger region of the file. Readers holding the old mapping keep
+   * using it, it stays valid until it is garbage collected.
+   */
+  private MemorySegment grow(long required) {
+    long size = segment.byteSize();
+    while (size < required) {
+      size *= 2;
+    }
+    try {
+      segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size, Arena.ofAuto());
+      return segment;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to grow character segment to " + size + " bytes", e);
+    }
+  }
+}
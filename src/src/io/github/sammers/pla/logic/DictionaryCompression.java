@@ -0,0 +1,121 @@
+package io.github.sammers.pla.logic;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Raw deflate with a preset dictionary shared by all blobs. Small JSON blobs
+ * repeat the same keys and values (achievement names, titles...), a shared
+ * dictionary lets deflate reference them instead of storing them in every
+ * blob, and raw deflate avoids the per-blob gzip header and trailer.
+ */
+public class DictionaryCompression implements BlobCompression {
+  /** Deflate can not look back further than 32KB, the rest would be ignored. */
+  private static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+  private final int id;
+  private final byte[] dictionary;
+
+  public DictionaryCompression(int id, byte[] dictionary) {
+    this.id = id;
+    this.dictionary = dictionary;
+  }
+
+  /**
+   * Builds a dictionary out of the quoted strings which are repeated across the
+   * samples. The most valuable strings (occurrences * length) are put at the
+   * end of the dictionary, closer to the data, so the references to them are
+   * shorter.
+   */
+  public static DictionaryCompression train(int id, List<byte[]> samples) {
+    Map<String, Integer> counts = new HashMap<>();
+    for (byte[] sample : samples) {
+      String json = new String(sample, StandardCharsets.UTF_8);
+      int start = json.indexOf('"');
+      while (start >= 0) {
+        int end = json.indexOf('"', start + 1);
+        if (end < 0) {
+          break;
+        }
+        counts.merge(json.substring(start, end + 1), 1, Integer::sum);
+        start = json.indexOf('"', end + 1);
+      }
+    }
+    List<Map.Entry<String, Integer>> tokens = counts.entrySet()
+      .stream()
+      .filter(e -> e.getValue() > 1)
+      .sorted(Comparator.comparingLong(e -> -(long) e.getValue() * e.getKey().length()))
+      .toList();
+    Deque<byte[]> picked = new ArrayDeque<>();
+    int size = 0;
+    for (Map.Entry<String, Integer> token : tokens) {
+      byte[] bytes = token.getKey().getBytes(StandardCharsets.UTF_8);
+      if (size + bytes.length > MAX_DICTIONARY_SIZE) {
+        continue;
+      }
+      picked.addFirst(bytes);
+      size += bytes.length;
+    }
+    ByteArrayOutputStream dictionary = new ByteArrayOutputStream(size);
+    picked.forEach(dictionary::writeBytes);
+    return new DictionaryCompression(id, dictionary.toByteArray());
+  }
+
+  @Override
+  public int id() {
+    return id;
+  }
+
+  public int dictionarySize() {
+    return dictionary.length;
+  }
+
+  public byte[] dictionary() {
+    return dictionary.clone();
+  }
+
+  @Override
+  public byte[] compress(byte[] data) {
+    Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+    try {
+      deflater.setDictionary(dictionary);
+      deflater.setInput(data);
+      deflater.finish();
+      ByteArrayOutputStream bos = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+      byte[] buffer = new byte[1024];
+      while (!deflater.finished()) {
+        int len = deflater.deflate(buffer);
+        bos.write(buffer, 0, len);
+      }
+      return bos.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  @Override
+  public byte[] decompress(byte[] data) {
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setDictionary(dictionary);
+      inflater.setInput(data);
+      ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length * 4);
+      byte[] buffer = new byte[1024];
+      while (!inflater.finished()) {
+        int len = inflater.inflate(buffer);
+        if (len == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        bos.write(buffer, 0, len);
+      }
+      return bos.toByteArray();
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Corrupted blob for dictionary " + id, e);
+    } finally {
+      inflater.end();
+    }
+  }
+}
@@ -1,18 +1,19 @@
 package io.github.sammers.pla.logic;
 
-import io.github.sammers.pla.Main;
 import io.github.sammers.pla.http.JsonConvertable;
 import io.vertx.core.json.JsonObject;
-import java.util.Date;
 
 public record Diff(Long won, Long lost, Long ratingDiff, Long rankDiff, Long timestamp) implements JsonConvertable {
+  /**
+   * No relative last seen time, clients compute it from the timestamp so the
+   * json only changes with the data, see {@link io.github.sammers.pla.http.PageCache}.
+   */
   public JsonObject toJson() {
     return new JsonObject().put("won", won)
       .put("lost", lost)
       .put("rating_diff", ratingDiff)
       .put("rank_diff", rankDiff)
-      .put("timestamp", timestamp)
-      .put("last_seen", Main.PRETTY_TIME.format(new Date(timestamp)));
+      .put("timestamp", timestamp);
   }
 
   public static Diff fromJson(JsonObject entries) {
@@ -0,0 +1,144 @@
+package io.github.sammers.pla.logic;
+
+import io.github.sammers.pla.db.Character;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Sliding window of the diffs of a bracket, maintained incrementally. The diffs
+ * of a character within the window are accumulated: won, lost, rating and rank
+ * changes are summed up, so they cover the first diff to the latest one, and
+ * the character is the latest one. Once a diff is older than the window its
+ * changes are taken out of the sums again.
+ */
+public class DiffWindow {
+  private final Function<Character, String> idF;
+  private final long maxAgeMs;
+  private final Deque<Delta> deltas = new ArrayDeque<>();
+  private LongObjectMap<Accumulated> latest = new LongObjectMap<>(1024);
+
+  private record Delta(long timestamp, long[] ids) {
+  }
+
+  private record Part(long timestamp, Diff diff) {
+  }
+
+  /**
+   * Diffs of a character within the window, oldest first, and their sums.
+   */
+  private static final class Accumulated {
+    final Deque<Part> parts = new ArrayDeque<>(2);
+    Character character;
+    long won;
+    long lost;
+    long ratingDiff;
+    long rankDiff;
+
+    void add(long timestamp, CharAndDiff charAndDiff) {
+      Diff diff = charAndDiff.diff();
+      parts.addLast(new Part(timestamp, diff));
+      character = charAndDiff.character();
+      won += orZero(diff.won());
+      lost += orZero(diff.lost());
+      ratingDiff += orZero(diff.ratingDiff());
+      rankDiff += orZero(diff.rankDiff());
+    }
+
+    void removeFirst() {
+      Diff diff = parts.pollFirst().diff();
+      won -= orZero(diff.won());
+      lost -= orZero(diff.lost());
+      ratingDiff -= orZero(diff.ratingDiff());
+      rankDiff -= orZero(diff.rankDiff());
+    }
+
+    CharAndDiff toCharAndDiff() {
+      Diff last = parts.peekLast().diff();
+      if (parts.size() == 1) {
+        return new CharAndDiff(character, last);
+      }
+      return new CharAndDiff(character, new Diff(won, lost, ratingDiff, rankDiff, last.timestamp()));
+    }
+
+    private static long orZero(Long value) {
+      return value == null ? 0 : value;
+    }
+  }
+
+  public DiffWindow(String bracket, long maxAgeMs) {
+    this.idF = Calculator.getIdFunction(bracket);
+    this.maxAgeMs = maxAgeMs;
+  }
+
+  /**
+   * Replaces the window with the given diffs, oldest first.
+   */
+  public synchronized void reset(List<SnapshotDiff> diffs) {
+    deltas.clear();
+    latest = new LongObjectMap<>(1024);
+    diffs.forEach(this::appendLocked);
+  }
+
+  /**
+   * Adds the diff of a new snapshot, diffs not newer than the last one are
+   * ignored.
+   */
+  public synchronized void append(SnapshotDiff diff) {
+    appendLocked(diff);
+  }
+
+  /**
+   * @return accumulated diff of every character updated within the window, by
+   *         rating descending
+   */
+  public synchronized SnapshotDiff combined(long now) {
+    while (!deltas.isEmpty() && deltas.peekFirst().timestamp() < now - maxAgeMs) {
+      Delta expired = deltas.pollFirst();
+      for (long id : expired.ids()) {
+        Accumulated current = latest.get(id);
+        if (current == null) {
+          continue;
+        }
+        while (!current.parts.isEmpty() && current.parts.peekFirst().timestamp() == expired.timestamp()) {
+          current.removeFirst();
+        }
+        if (current.parts.isEmpty()) {
+          latest.remove(id);
+        }
+      }
+    }
+    if (deltas.isEmpty()) {
+      return SnapshotDiff.empty();
+    }
+    List<CharAndDiff> chars = new ArrayList<>(latest.size());
+    for (Accumulated accumulated : latest.values()) {
+      chars.add(accumulated.toCharAndDiff());
+    }
+    chars.sort(Comparator.comparing((CharAndDiff o) -> o.character().rating()).reversed());
+    return new SnapshotDiff(chars, deltas.peekLast().timestamp());
+  }
+
+  public synchronized int size() {
+    return latest.size();
+  }
+
+  private void appendLocked(SnapshotDiff diff) {
+    if (diff.chars().isEmpty() || (!deltas.isEmpty() && diff.timestamp() <= deltas.peekLast().timestamp())) {
+      return;
+    }
+    long[] ids = new long[diff.chars().size()];
+    int i = 0;
+    for (CharAndDiff charAndDiff : diff.chars()) {
+      long id = CharacterCache.nameKey(idF.apply(charAndDiff.character()));
+      ids[i++] = id;
+      Accumulated accumulated = latest.get(id);
+      if (accumulated == null) {
+        accumulated = new Accumulated();
+        latest.put(id, accumulated);
+      }
+      accumulated.add(diff.timestamp(), charAndDiff);
+    }
+    deltas.addLast(new Delta(diff.timestamp(), ids));
+  }
+}
@@ -0,0 +1,49 @@
+package io.github.sammers.pla.logic;
+
+/**
+ * Records kept on the Java heap, nothing survives a restart.
+ */
+public class HeapCharacterRecords implements CharacterRecords {
+  private final LongObjectMap<byte[]> records;
+  private long totalBytes;
+
+  public HeapCharacterRecords(int expected) {
+    records = new LongObjectMap<>(expected);
+  }
+
+  @Override
+  public byte[] get(long id) {
+    return records.get(id);
+  }
+
+  @Override
+  public byte[] put(long id, byte[] record) {
+    byte[] prev = records.put(id, record);
+    totalBytes += record.length - (prev == null ? 0 : prev.length);
+    return prev;
+  }
+
+  @Override
+  public byte[] remove(long id) {
+    byte[] prev = records.remove(id);
+    if (prev != null) {
+      totalBytes -= prev.length;
+    }
+    return prev;
+  }
+
+  @Override
+  public int size() {
+    return records.size();
+  }
+
+  @Override
+  public long[] ids() {
+    return records.keys();
+  }
+
+  @Override
+  public long totalBytes() {
+    return totalBytes;
+  }
+}
@@ -0,0 +1,135 @@
+package io.github.sammers.pla.logic;
+
+import java.util.Arrays;
+
+/**
+ * Multimap from a primitive int key to a set of longs kept in a plain long[].
+ * Sets are expected to be small (alts sharing a pet hash), so add and remove
+ * are linear scans. A slot is empty when its array is null. Not thread safe,
+ * callers have to synchronize.
+ */
+public class IntLongMultimap {
+  private static final long[] EMPTY = new long[0];
+  private static final float LOAD_FACTOR = 0.6f;
+  private int[] keys;
+  private long[][] values;
+  private int mask;
+  private int size;
+
+  public IntLongMultimap(int expected) {
+    int capacity = LongObjectMap.tableSize(expected);
+    keys = new int[capacity];
+    values = new long[capacity][];
+    mask = capacity - 1;
+  }
+
+  /**
+   * @return copy of the values for the key, empty array if there are none
+   */
+  public long[] get(int key) {
+    int pos = find(key);
+    return pos < 0 ? EMPTY : values[pos].clone();
+  }
+
+  public void add(int key, long value) {
+    int pos = LongObjectMap.slot(key, mask);
+    long[] cur;
+    while ((cur = values[pos]) != null) {
+      if (keys[pos] == key) {
+        for (long v : cur) {
+          if (v == value) {
+            return;
+          }
+        }
+        long[] extended = Arrays.copyOf(cur, cur.length + 1);
+        extended[cur.length] = value;
+        values[pos] = extended;
+        return;
+      }
+      pos = (pos + 1) & mask;
+    }
+    keys[pos] = key;
+    values[pos] = new long[] { value };
+    if (++size > (int) (values.length * LOAD_FACTOR)) {
+      rehash(values.length * 2);
+    }
+  }
+
+  public void remove(int key, long value) {
+    int pos = find(key);
+    if (pos < 0) {
+      return;
+    }
+    long[] cur = values[pos];
+    for (int i = 0; i < cur.length; i++) {
+      if (cur[i] == value) {
+        if (cur.length == 1) {
+          size--;
+          shiftKeys(pos);
+        } else {
+          long[] shrunk = new long[cur.length - 1];
+          System.arraycopy(cur, 0, shrunk, 0, i);
+          System.arraycopy(cur, i + 1, shrunk, i, cur.length - i - 1);
+          values[pos] = shrunk;
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * @return number of keys
+   */
+  public int size() {
+    return size;
+  }
+
+  private int find(int key) {
+    int pos = LongObjectMap.slot(key, mask);
+    while (values[pos] != null) {
+      if (keys[pos] == key) {
+        return pos;
+      }
+      pos = (pos + 1) & mask;
+    }
+    return -1;
+  }
+
+  private void shiftKeys(int pos) {
+    int last;
+    while (true) {
+      pos = ((last = pos) + 1) & mask;
+      while (true) {
+        if (values[pos] == null) {
+          values[last] = null;
+          return;
+        }
+        int slot = LongObjectMap.slot(keys[pos], mask);
+        if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+          break;
+        }
+        pos = (pos + 1) & mask;
+      }
+      keys[last] = keys[pos];
+      values[last] = values[pos];
+    }
+  }
+
+  private void rehash(int capacity) {
+    int[] oldKeys = keys;
+    long[][] oldValues = values;
+    keys = new int[capacity];
+    values = new long[capacity][];
+    mask = capacity - 1;
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] != null) {
+        int pos = LongObjectMap.slot(oldKeys[i], mask);
+        while (values[pos] != null) {
+          pos = (pos + 1) & mask;
+        }
+        keys[pos] = oldKeys[i];
+        values[pos] = oldValues[i];
+      }
+    }
+  }
+}
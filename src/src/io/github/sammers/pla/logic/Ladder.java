@@ -6,12 +6,19 @@ import io.github.sammers.pla.db.Character;
 import io.github.sammers.pla.db.DB;
 import io.github.sammers.pla.db.Meta;
 import io.github.sammers.pla.db.Snapshot;
+import io.github.sammers.pla.ratelim.GcraRateLimiter;
+import io.github.sammers.pla.ratelim.RxRateLimiterImpl;
+import io.prometheus.metrics.core.metrics.Counter;
+import io.prometheus.metrics.core.metrics.Gauge;
+import io.prometheus.metrics.core.metrics.Histogram;
 import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Single;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.rxjava3.ext.web.client.HttpRequest;
+import io.vertx.rxjava3.ext.web.client.HttpResponse;
 import io.vertx.rxjava3.ext.web.client.WebClient;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
@@ -38,6 +45,39 @@ import static java.util.concurrent.TimeUnit.*;
 
 public class Ladder {
   private static final Logger log = LoggerFactory.getLogger(Ladder.class);
+  /**
+   * Profiles updated shortly before a checkpoint may have been written to Mongo
+   * after the cache saw them, the delta load re-reads this window.
+   */
+  private static final long DELTA_LOAD_SAFETY_MARGIN_MS = MINUTES.toMillis(30);
+  /** Activity diffs cover the same 12 hours the window is seeded with. */
+  private static final long DIFF_WINDOW_MS = HOURS.toMillis(12);
+  private static final int LOAD_PARTITIONS = Math.max(2, Math.min(16, Runtime.getRuntime().availableProcessors()));
+  private static final int LOAD_SAMPLES_PER_PARTITION = 100;
+  /**
+   * Leaderboards fetched per minute of both regions together, 162 would fetch
+   * all, see {@link #fetchCost(String)}.
+   */
+  private static final int UPDATE_BUDGET_PER_MINUTE = 130;
+  private static final int SPEC_FETCH_CONCURRENCY = 8;
+  // Ladder pages of all brackets and regions together
+  private static final int PAGE_SCRAPES_PER_SECOND = 20;
+  private static final Histogram SPEC_FETCH_DURATION = Histogram.builder()
+    .name("ladder_spec_fetch_duration_seconds")
+    .help("Duration of fetching the leaderboard of one spec of a solo bracket")
+    .labelNames("region", "spec", "source")
+    .classicExponentialUpperBounds(0.05, 2, 12)
+    .register();
+  private static final Counter CHARACTERS_LOADED = Counter.builder()
+    .name("character_load_chars_total")
+    .help("Characters loaded to the cache on startup")
+    .labelNames("region", "partition")
+    .register();
+  private static final Gauge PARTITION_THROUGHPUT = Gauge.builder()
+    .name("character_load_partition_chars_per_second")
+    .help("Throughput of the last startup load of a profile partition")
+    .labelNames("region", "partition")
+    .register();
   private final WebClient web;
   private final Refs refs;
   public final CharacterCache characterCache;
@@ -50,6 +90,11 @@ public class Ladder {
   public final BlizzardAPI blizzardAPI;
   public final BlizzardAPI blizzardIndexerAPI;
   private final AtomicBoolean charsLoaded = new AtomicBoolean(false);
+  private final Map<String, DiffWindow> diffWindows = new ConcurrentHashMap<>();
+  private final LadderPayloads payloads = new LadderPayloads();
+  private final UpdateCadence cadence = new UpdateCadence(UPDATE_BUDGET_PER_MINUTE, Ladder::fetchCost);
+  private final RxRateLimiterImpl pageLimiter = new RxRateLimiterImpl("ladder-pages",
+    new GcraRateLimiter("ladder-pages-" + PAGE_SCRAPES_PER_SECOND + "-per-sec", PAGE_SCRAPES_PER_SECOND, 1, SECONDS));
 
   public Ladder(WebClient web, DB db, BlizzardAPI blizzardAPI, BlizzardAPI blizzardIndexerAPI,
     CharacterCache characterCache, Refs refs, Map<String, Cutoffs> regionCutoff, CharUpdater charUpdater,
@@ -83,6 +128,7 @@ public class Ladder {
         return Observable.interval(initialDelay, usPeriod, MINUTES);
       })));
     loadRealms().andThen(Completable.mergeArray(loadRegionData(EU), loadRegionData(US)))
+      .andThen(Completable.fromAction(characterCache::trainCompression).subscribeOn(VTHREAD_SCHEDULER))
       .andThen(charsAreLoaded())
       .andThen(charUpdater.startBackgroundIndexers())
       .andThen(Completable.mergeArray(calculateMulticlassersLeaderboard(EU), calculateMulticlassersLeaderboard(US)))
@@ -94,10 +140,24 @@ public class Ladder {
       log.info("Updating realms");
       return updateRealms(EU).andThen(updateRealms(US));
     }).subscribe();
+    Observable.interval(15, 15, MINUTES).flatMapCompletable(ignored -> {
+      return Completable.concat(BRACKETS.stream().map(db::cleanBracketSnapshot).toList())
+        .doOnError(e -> log.error("Error compacting bracket snapshots", e))
+        .onErrorComplete();
+    }).subscribe();
+    Observable.interval(10, 10, MINUTES).filter(ignored -> charsLoaded.get()).flatMapCompletable(ignored -> {
+      return Completable.fromAction(characterCache::checkpoint)
+        .subscribeOn(VTHREAD_SCHEDULER)
+        .doOnError(e -> log.error("Error checkpointing character cache", e))
+        .onErrorComplete();
+    }).subscribe();
   }
 
   private Completable charsAreLoaded() {
     return Completable.fromAction(() -> {
+      // the watermark is only meaningful once every character has been loaded
+      characterCache.checkpoint();
+      Runtime.getRuntime().addShutdownHook(new Thread(characterCache::checkpoint));
       charsLoaded.set(true);
       log.info("Chars are loaded. Updates are allowed now");
     });
@@ -110,13 +170,7 @@ public class Ladder {
         lastSetToTrue.set(System.nanoTime());
         long tick = System.nanoTime();
         log.info("Starting data updater for region=" + region);
-        return loadCutoffs(region).andThen(blitz(region).ignoreElement())
-          .andThen(threeVThree(region).ignoreElement())
-          .andThen(twoVTwo(region).ignoreElement())
-          .andThen(battlegrounds(region).ignoreElement())
-          .andThen(shuffle(region).ignoreElement())
-          .andThen(updateCutoffs(region))
-          .andThen(calculateMeta(region))
+        return updateStages(region).run()
           .onErrorComplete(e -> {
             log.error("Error updating data for region {}", region, e);
             return true;
@@ -139,6 +193,49 @@ public class Ladder {
     });
   }
 
+  /**
+   * Brackets are fetched concurrently once the cutoffs are loaded. Blizzard API
+   * requests are bounded by its rate limiter, the ladder pages by
+   * {@link #pageLimiter} shared by all brackets and regions. Meta of a bracket
+   * is calculated as soon as the bracket is fetched, multiclassers as soon as
+   * shuffle has changed.
+   * Brackets that are quiet lately are not fetched every cycle, see
+   * {@link UpdateCadence}.
+   */
+  private StageGraph updateStages(String region) {
+    StageGraph graph = new StageGraph(region).stage("cutoffs", loadCutoffs(region));
+    Set<String> changed = ConcurrentHashMap.newKeySet();
+    List<String> brackets = cadence.select(region, List.of(BLITZ, THREE_V_THREE, TWO_V_TWO, RBG, SHUFFLE),
+      System.currentTimeMillis());
+    log.info("Brackets to fetch for region={}: {}", region, brackets);
+    for (String bracket : brackets) {
+      graph.stage(bracket, Completable.defer(() -> {
+        Snapshot before = refs.refByBracket(bracket, region).get();
+        return fetchLadder(bracket, region).doOnSuccess(ignored -> {
+          if (refs.refByBracket(bracket, region).get() != before) {
+            changed.add(bracket);
+          }
+        }).ignoreElement();
+      }), "cutoffs");
+      graph.stage("meta_" + bracket, calculateMeta(region, bracket), bracket);
+    }
+    graph.stage("update_cutoffs", updateCutoffs(region), brackets.toArray(String[]::new));
+    if (brackets.contains(SHUFFLE)) {
+      graph.stage("multiclassers", Completable.defer(() -> {
+        return changed.contains(SHUFFLE) ? calculateMulticlassersLeaderboard(region) : Completable.complete();
+      }), SHUFFLE);
+    }
+    return graph;
+  }
+
+  /**
+   * @return leaderboards of a bracket fetch, each one is an API call and the
+   *         pages of its ladder
+   */
+  private static int fetchCost(String bracket) {
+    return ZOLO_BRACKETS.contains(bracket) ? zoloSpecList(bracket).size() : 1;
+  }
+
   public Completable loadRealms() {
     return Completable.defer(() -> db.loadRealms().map((Realms newValue) -> {
       Realms merge = realms.get().merge(newValue);
@@ -225,44 +322,62 @@ public class Ladder {
   public Single<List<Character>> pureBlizzardApiFetch(String bracket, String region) {
     Single<List<Character>> resCharList;
     if (ZOLO_BRACKETS.contains(bracket)) {
-      List<String> zoloSepcs = zoloSpecList(bracket);
-      Single<List<Character>> res = Single.just(new ArrayList<>(5000 * zoloSepcs.size()));
-      for (String zoloSpec : zoloSepcs) {
-        Single<List<Character>> sh = Single.just(new ArrayList<>(zoloSepcs.size()));
+      resCharList = fetchSpecs(bracket, region, "api", zoloSpec -> {
         String specForBlizApi = zoloSpec.replaceAll("/", "-");
-        sh = sh
-          .flatMap(thisSpecChars -> blizzardAPI.pvpLeaderboard(specForBlizApi, region).flatMapSingle(leaderboard -> {
-            return Single.fromCallable(() -> leaderboard.toCharacters(characterCache, zoloSpec))
-              .subscribeOn(Main.VTHREAD_SCHEDULER)
-              .map(chrs -> {
-                thisSpecChars.addAll(chrs);
-                return thisSpecChars;
-              });
-          }).defaultIfEmpty(thisSpecChars));
-        Single<List<Character>> finalSh = sh;
-        res = res.flatMap(characters -> finalSh.map(s -> {
-          characters.addAll(s);
-          return characters;
-        }));
-      }
-      resCharList = res.map(chars -> {
-        chars.sort(Comparator.comparing(Character::rating).reversed());
-        return chars;
+        return leaderboardCharacters(bracket, specForBlizApi, region, zoloSpec).defaultIfEmpty(List.of());
       });
     } else {
       Single<List<Character>> res = Single.just(new ArrayList<>(5000));
-      resCharList = res.flatMap(s -> blizzardAPI.pvpLeaderboard(bracket, region).flatMapSingle(leaderboard -> {
-        return Single.fromCallable(() -> leaderboard.toCharacters(characterCache, bracket))
-          .subscribeOn(Main.VTHREAD_SCHEDULER)
-          .map(chrs -> {
-            s.addAll(chrs);
-            return s;
-          });
+      resCharList = res.flatMap(s -> leaderboardCharacters(bracket, bracket, region, bracket).map(chrs -> {
+        s.addAll(chrs);
+        return s;
       }).defaultIfEmpty(s));
     }
     return resCharList;
   }
 
+  /**
+   * Fetches the specs of a solo bracket, up to {@link #SPEC_FETCH_CONCURRENCY}
+   * at a time, and merges them in spec order. Blizzard API requests are still
+   * throttled by its rate limiter, the ladder pages by {@link #pageLimiter}.
+   *
+   * @param source
+   *          label of the spec fetch duration
+   */
+  private Single<List<Character>> fetchSpecs(String bracket, String region, String source,
+    Function<String, Single<List<Character>>> fetchSpec) {
+    return Flowable.fromIterable(zoloSpecList(bracket)).concatMapEager(spec -> Single.defer(() -> {
+      long start = System.nanoTime();
+      return fetchSpec.apply(spec).doFinally(() -> SPEC_FETCH_DURATION.labelValues(region, spec, source)
+        .observe((System.nanoTime() - start) / 1e9));
+    }).toFlowable(), SPEC_FETCH_CONCURRENCY, 1).collect(ArrayList<Character>::new, ArrayList::addAll).map(chars -> {
+      chars.sort(Comparator.comparing(Character::rating).reversed());
+      return chars;
+    });
+  }
+
+  /**
+   * Characters of the leaderboard, parsed only when its payload changed since the
+   * last fetch, see {@link LadderPayloads}.
+   */
+  private Maybe<List<Character>> leaderboardCharacters(String bracket, String apiBracket, String region,
+    String charBracket) {
+    return Maybe
+      .defer(() -> blizzardAPI.pvpLeaderboardPayload(apiBracket, region, payloads.lastModified(region, apiBracket)))
+      .flatMapSingle(payload -> Single.fromCallable(() -> {
+        LeaderboardRows rows = payloads.parse(bracket, region, apiBracket, payload.body(), payload.lastModified(),
+          LeaderboardRows::parse);
+        return rows.toCharacters(characterCache, charBracket);
+      }).subscribeOn(Main.VTHREAD_SCHEDULER));
+  }
+
+  private Maybe<LeaderboardRows> leaderboard(String bracket, String apiBracket, String region) {
+    String page = "leaderboard/" + apiBracket;
+    return Maybe.defer(() -> blizzardAPI.pvpLeaderboardPayload(apiBracket, region, payloads.lastModified(region, page)))
+      .map(payload -> payloads.parse(bracket, region, page, payload.body(), payload.lastModified(),
+        LeaderboardRows::parse));
+  }
+
   public Single<Snapshot> fetchLadder(String bracket, String region, boolean newWay) {
     Single<List<Character>> resCharList;
     if (newWay) {
@@ -293,8 +408,22 @@ public class Ladder {
     } else {
       resCharList = ladderPageFetch(bracket, region);
     }
-    return resCharList.map(chars -> Snapshot.of(chars, region, System.currentTimeMillis()))
-      .flatMap(d -> newDataOnBracket(bracket, region, d).andThen(Single.just(d)))
+    Single<List<Character>> fetched = resCharList;
+    return Single.defer(() -> {
+      long changesBefore = payloads.changes(bracket, region);
+      return fetched.flatMap(chars -> {
+        Snapshot current = refs.refByBracket(bracket, region).get();
+        if (current != null && !current.characters().isEmpty() && payloads.changes(bracket, region) == changesBefore) {
+          // the same payloads as last time, nothing to diff. Refreshed cutoffs are
+          // applied to the published snapshot by loadCutoffs already
+          cadence.record(bracket, region, 0, System.currentTimeMillis());
+          log.info("Payloads for bracket {}-{} are unchanged, not updating", region, bracket);
+          return Single.just(current);
+        }
+        Snapshot d = Snapshot.of(chars, region, System.currentTimeMillis());
+        return newDataOnBracket(bracket, region, d).andThen(Single.just(d));
+      });
+    })
       .doOnError(e -> log.error("Error fetching ladder, returning empty snapshot", e))
       .onErrorReturnItem(Snapshot.empty(region));
   }
@@ -302,10 +431,8 @@ public class Ladder {
   public Single<List<Character>> ladderPageFetch(String bracket, String region) {
     Single<List<Character>> resCharList;
     if (ZOLO_BRACKETS.contains(bracket)) {
-      List<String> zoloSpecs = zoloSpecList(bracket);
-      Single<List<Character>> res = Single.just(new ArrayList<>(1000 * zoloSpecs.size()));
-      for (String shuffleSpec : zoloSpecs) {
-        Single<List<Character>> sh = Single.just(new ArrayList<>(zoloSpecs.size()));
+      resCharList = fetchSpecs(bracket, region, "page", shuffleSpec -> {
+        Single<List<Character>> sh = Single.just(new ArrayList<>(1000));
         for (int i = 1; i <= 10; i++) {
           int finalI = i;
           sh = sh.flatMap(characters -> ladderShuffle(shuffleSpec, finalI, region).map(c -> {
@@ -314,18 +441,8 @@ public class Ladder {
           }));
         }
         String specForBlizApi = shuffleSpec.replaceAll("/", "-");
-        sh = sh.flatMap(s -> blizzardAPI.pvpLeaderboard(specForBlizApi, region)
-          .map(leaderboard -> leaderboard.enrich(s))
+        return sh.flatMap(s -> leaderboard(bracket, specForBlizApi, region).map(leaderboard -> leaderboard.enrich(s))
           .defaultIfEmpty(s));
-        Single<List<Character>> finalSh = sh;
-        res = res.flatMap(characters -> finalSh.map(s -> {
-          characters.addAll(s);
-          return characters;
-        }));
-      }
-      resCharList = res.map(chars -> {
-        chars.sort(Comparator.comparing(Character::rating).reversed());
-        return chars;
       });
     } else {
       Single<List<Character>> res = Single.just(new ArrayList<>(1000));
@@ -337,7 +454,7 @@ public class Ladder {
         }));
       }
       resCharList = res.flatMap(s -> {
-        Maybe<List<Character>> map = blizzardAPI.pvpLeaderboard(bracket, region).map((PvpLeaderBoard leaderboard) -> {
+        Maybe<List<Character>> map = leaderboard(bracket, bracket, region).map((LeaderboardRows leaderboard) -> {
           Set<Character> enriched = new HashSet<>(leaderboard.enrich(s));
           return enriched.stream().toList();
         });
@@ -352,44 +469,52 @@ public class Ladder {
     return web.getAbs(url).addQueryParam("page", page.toString());
   }
 
+  private Single<HttpResponse<Buffer>> sendLadderRequest(String bracket, Integer page, String region) {
+    return pageLimiter.request().andThen(Single.defer(() -> ladderRequest(bracket, page, region).send()));
+  }
+
   public Single<List<Character>> ladderShuffle(String bracket, Integer page, String region) {
-    return ladderRequest(bracket, page, region).send().map(ok -> {
-      String ers = ok.bodyAsString();
-      Document parse = Jsoup.parse(ers);
-      Elements select = parse.select("#main > div.Pane.Pane--dirtBlue.bordered > div.Pane-content > div"
-        + ".Paginator > div.Paginator-pages > div:nth-child(1) > div > div.SortTable-body");
-      if (select.isEmpty()) {
-        return new ArrayList<Character>();
-      } else {
-        Element element = select.getFirst();
-        List<Node> nodes = element.childNodes();
-        return nodes.stream().map(Node::childNodes).map(nodeList -> {
-          Node nameNode = nodeList.get(2);
-          Long pos = Long.parseLong(nodeList.get(0).attr("data-value"));
-          Long rating = Long
-            .parseLong(((Element) nodeList.get(1).childNode(0).childNode(0).childNode(0).childNode(1)).text());
-          String name = nameNode.attr("data-value");
-          String[] splitted = bracket.split("/");
-          String clazz = nodeList.get(3).attr("data-value");
-          // Use SHUFFLE_SPEC_TO_SPEC mapping for
-          // proper spec name formatting
-          // (e.g., "Beast Mastery Hunter" instead
-          // of "Beastmastery Hunter")
-          String fullSpec = Conts.SHUFFLE_SPEC_TO_SPEC.getOrDefault(bracket,
-            (splitted[2].substring(0, 1).toUpperCase() + splitted[2].substring(1) + " " + clazz).trim());
-          String fraction = nodeList.get(5).attr("data-value");
-          String realm = Calculator.realmCalc(nodeList.get(6).attr("data-value"));
-          Long wins = Long.parseLong(nodeList.get(7).attr("data-value"));
-          Long losses = Long.parseLong(nodeList.get(8).attr("data-value"));
-          return enrichWithSpecialData(new Character(pos, rating, false, name, clazz, fullSpec, fraction, "", "", realm,
-            wins, losses, Optional.empty()), bracket, region);
-        }).toList();
-      }
-    })
+    String zoloBracket = bracket.split("/")[0];
+    return sendLadderRequest(bracket, page, region)
+      .map(ok -> payloads.parse(zoloBracket, region, bracket + "/" + page, ok.bodyAsString(), null,
+        ers -> parseShufflePage(bracket, region, ers)))
       .doOnSuccess(ignored -> log.debug(String.format("%s-%s ladder has been fetched page=%s", region, bracket, page)))
       .doOnError(err -> log.error(String.format("ERR %s %s %s", region, bracket, page), err));
   }
 
+  private List<Character> parseShufflePage(String bracket, String region, String ers) {
+    Document parse = Jsoup.parse(ers);
+    Elements select = parse.select("#main > div.Pane.Pane--dirtBlue.bordered > div.Pane-content > div"
+      + ".Paginator > div.Paginator-pages > div:nth-child(1) > div > div.SortTable-body");
+    if (select.isEmpty()) {
+      return new ArrayList<Character>();
+    } else {
+      Element element = select.getFirst();
+      List<Node> nodes = element.childNodes();
+      return nodes.stream().map(Node::childNodes).map(nodeList -> {
+        Node nameNode = nodeList.get(2);
+        Long pos = Long.parseLong(nodeList.get(0).attr("data-value"));
+        Long rating = Long
+          .parseLong(((Element) nodeList.get(1).childNode(0).childNode(0).childNode(0).childNode(1)).text());
+        String name = nameNode.attr("data-value");
+        String[] splitted = bracket.split("/");
+        String clazz = nodeList.get(3).attr("data-value");
+        // Use SHUFFLE_SPEC_TO_SPEC mapping for
+        // proper spec name formatting
+        // (e.g., "Beast Mastery Hunter" instead
+        // of "Beastmastery Hunter")
+        String fullSpec = Conts.SHUFFLE_SPEC_TO_SPEC.getOrDefault(bracket,
+          (splitted[2].substring(0, 1).toUpperCase() + splitted[2].substring(1) + " " + clazz).trim());
+        String fraction = nodeList.get(5).attr("data-value");
+        String realm = Calculator.realmCalc(nodeList.get(6).attr("data-value"));
+        Long wins = Long.parseLong(nodeList.get(7).attr("data-value"));
+        Long losses = Long.parseLong(nodeList.get(8).attr("data-value"));
+        return enrichWithSpecialData(new Character(pos, rating, false, name, clazz, fullSpec, fraction, "", "", realm,
+          wins, losses, Optional.empty()), bracket, region);
+      }).toList();
+    }
+  }
+
   private Character enrichWithSpecialData(Character character, String region, String bracket) {
     Optional<WowAPICharacter> apiCharacter = Optional.ofNullable(characterCache.getByFullName(character.fullName()));
     String gender = apiCharacter.map(WowAPICharacter::gender).orElse("unknown");
@@ -423,98 +548,106 @@ public class Ladder {
   }
 
   public Single<List<Character>> ladderTraditional(String bracket, Integer page, String region) {
-    return ladderRequest(bracket, page, region).send().map(ok -> {
+    return sendLadderRequest(bracket, page, region).map(ok -> {
       int code = ok.statusCode();
       if (code != 200) {
         log.info("NON 200 code: {}, while fetching ladder traditional page for bracket={}, page={}, " + "region={}",
           code, bracket, page, region);
         return new ArrayList<Character>();
       }
-      String ers = ok.bodyAsString();
-      Document parse = Jsoup.parse(ers);
-      Elements select = parse.select("#main > div.Pane.Pane--dirtBlue.bordered > div.Pane-content > div"
-        + ".Paginator > div.Paginator-pages > div:nth-child(1) > div > div.SortTable-body");
-      if (select.isEmpty()) {
-        return new ArrayList<Character>();
-      } else {
-        Element element = select.getFirst();
-        List<Node> nodes = element.childNodes();
-        return nodes.stream().map(Node::childNodes).map(nodeList -> {
-          Node nameNode = nodeList.get(2);
-          String fullSpec = "UNKNOWN";
-          try {
-            Node specNode = nameNode.childNode(0).childNode(0).childNode(0).childNode(2).childNode(2);
-            fullSpec = ((Element) specNode).text().substring(2);
-          } catch (Exception ignored) {
-          }
-          Long pos = Long.parseLong(nodeList.get(0).attr("data-value"));
-          Long rating = Long
-            .parseLong(((Element) nodeList.get(1).childNode(0).childNode(0).childNode(0).childNode(1)).text());
-          String name = nameNode.attr("data-value");
-          String clazz = nodeList.get(3).attr("data-value");
-          String fraction = nodeList.get(4).attr("data-value");
-          String realm = Calculator.realmCalc(nodeList.get(5).attr("data-value"));
-          Long wins = Long.parseLong(nodeList.get(6).attr("data-value"));
-          Long losses = Long.parseLong(nodeList.get(7).attr("data-value"));
-          return enrichWithSpecialData(new Character(pos, rating, false, name, clazz, fullSpec, fraction, "", "", realm,
-            wins, losses, Optional.empty()), bracket, region);
-        }).toList();
-      }
+      return payloads.parse(bracket, region, bracket + "/" + page, ok.bodyAsString(), null,
+        ers -> parseTraditionalPage(bracket, region, ers));
     })
       .doOnSuccess(ignored -> log.debug(String.format("%s-%s ladder has been fetched page=%s", region, bracket, page)))
       .doOnError(ignored -> log.error(String.format("ERR %s %s %s", region, bracket, page)));
   }
 
+  private List<Character> parseTraditionalPage(String bracket, String region, String ers) {
+    Document parse = Jsoup.parse(ers);
+    Elements select = parse.select("#main > div.Pane.Pane--dirtBlue.bordered > div.Pane-content > div"
+      + ".Paginator > div.Paginator-pages > div:nth-child(1) > div > div.SortTable-body");
+    if (select.isEmpty()) {
+      return new ArrayList<Character>();
+    } else {
+      Element element = select.getFirst();
+      List<Node> nodes = element.childNodes();
+      return nodes.stream().map(Node::childNodes).map(nodeList -> {
+        Node nameNode = nodeList.get(2);
+        String fullSpec = "UNKNOWN";
+        try {
+          Node specNode = nameNode.childNode(0).childNode(0).childNode(0).childNode(2).childNode(2);
+          fullSpec = ((Element) specNode).text().substring(2);
+        } catch (Exception ignored) {
+        }
+        Long pos = Long.parseLong(nodeList.get(0).attr("data-value"));
+        Long rating = Long
+          .parseLong(((Element) nodeList.get(1).childNode(0).childNode(0).childNode(0).childNode(1)).text());
+        String name = nameNode.attr("data-value");
+        String clazz = nodeList.get(3).attr("data-value");
+        String fraction = nodeList.get(4).attr("data-value");
+        String realm = Calculator.realmCalc(nodeList.get(5).attr("data-value"));
+        Long wins = Long.parseLong(nodeList.get(6).attr("data-value"));
+        Long losses = Long.parseLong(nodeList.get(7).attr("data-value"));
+        return enrichWithSpecialData(new Character(pos, rating, false, name, clazz, fullSpec, fraction, "", "", realm,
+          wins, losses, Optional.empty()), bracket, region);
+      }).toList();
+    }
+  }
+
   private Completable calculateMeta(String region) {
+    return Completable
+      .merge(Stream.of(TWO_V_TWO, THREE_V_THREE, RBG, SHUFFLE, BLITZ).map(bracket -> calculateMeta(region, bracket))
+        .toList());
+  }
+
+  private Completable calculateMeta(String region, String bracket) {
     String realRegion = realRegion(region);
     return Completable.defer(() -> {
-      List<Completable> res = Stream.of(TWO_V_TWO, THREE_V_THREE, RBG, SHUFFLE, BLITZ).flatMap(bracket -> {
-        log.info("Calculating meta for bracket=" + bracket + " region=" + region);
-        Snapshot now = refs.refByBracket(bracket, region).get();
-        if (now == null) {
-          log.info("No data for bracket=" + bracket + " region=" + region);
-          return Stream.empty();
-        }
-        return Stream.of("this_season", "last_month", "last_week", "last_day")
-          .flatMap(period -> Stream.of("all", "melee", "ranged", "dps", "healer", "tank").flatMap(role -> {
-            Maybe<SnapshotDiff> diff;
-            if (period.equals("this_season")) {
-              Snapshot empty = Snapshot.empty(region);
-              diff = Maybe.fromCallable(() -> Calculator.calculateDiff(empty, now, bracket, false))
-                .subscribeOn(VTHREAD_SCHEDULER);
-            } else {
-              int minsAgo = switch (period) {
-                case "last_month" -> 60 * 24 * 30;
-                case "last_week" -> 60 * 24 * 7;
-                case "last_day" -> 60 * 24;
-                default -> 0;
-              };
-              diff = db.getMinsAgo(bracket, region, minsAgo)
-                .observeOn(VTHREAD_SCHEDULER)
-                .map(snap -> Calculator.calculateDiff(snap, now, bracket, false));
+      log.info("Calculating meta for bracket=" + bracket + " region=" + region);
+      Snapshot now = refs.refByBracket(bracket, region).get();
+      if (now == null) {
+        log.info("No data for bracket=" + bracket + " region=" + region);
+        return Completable.complete();
+      }
+      List<Completable> res = Stream.of("this_season", "last_month", "last_week", "last_day")
+        .flatMap(period -> Stream.of("all", "melee", "ranged", "dps", "healer", "tank").flatMap(role -> {
+          Maybe<SnapshotDiff> diff;
+          if (period.equals("this_season")) {
+            Snapshot empty = Snapshot.empty(region);
+            diff = Maybe.fromCallable(() -> Calculator.calculateDiff(empty, now, bracket, false))
+              .subscribeOn(VTHREAD_SCHEDULER);
+          } else {
+            int minsAgo = switch (period) {
+              case "last_month" -> 60 * 24 * 30;
+              case "last_week" -> 60 * 24 * 7;
+              case "last_day" -> 60 * 24;
+              default -> 0;
+            };
+            diff = db.getMinsAgo(bracket, region, minsAgo)
+              .observeOn(VTHREAD_SCHEDULER)
+              .map(snap -> Calculator.calculateDiff(snap, now, bracket, false));
+          }
+          return Stream.of(diff.flatMapCompletable(realDiff -> {
+            try {
+              VTHREAD_SCHEDULER.scheduleDirect(() -> {
+                long tick = System.nanoTime();
+                Meta meta = Calculator.calculateMeta(realDiff, role, bracket, 0.05, 0.10, 0.85);
+                metaRef(bracket, realRegion, role, period).set(meta);
+                long elapsed = (System.nanoTime() - tick) / 1000000;
+                String msg = "Meta for bracket={} region={} role={} period={} has been calculated in " + "{} ms";
+                if (elapsed > 1000) {
+                  log.info(msg, bracket, region, role, period, elapsed);
+                } else {
+                  log.debug(msg, bracket, region, role, period, elapsed);
+                }
+              });
+              return Completable.complete();
+            } catch (Exception e) {
+              log.error("Error calculating meta for " + bracket + " " + region + " " + role + " " + period, e);
+              return Completable.error(e);
             }
-            return Stream.of(diff.flatMapCompletable(realDiff -> {
-              try {
-                VTHREAD_SCHEDULER.scheduleDirect(() -> {
-                  long tick = System.nanoTime();
-                  Meta meta = Calculator.calculateMeta(realDiff, role, bracket, 0.05, 0.10, 0.85);
-                  metaRef(bracket, realRegion, role, period).set(meta);
-                  long elapsed = (System.nanoTime() - tick) / 1000000;
-                  String msg = "Meta for bracket={} region={} role={} period={} has been calculated in " + "{} ms";
-                  if (elapsed > 1000) {
-                    log.info(msg, bracket, region, role, period, elapsed);
-                  } else {
-                    log.debug(msg, bracket, region, role, period, elapsed);
-                  }
-                });
-                return Completable.complete();
-              } catch (Exception e) {
-                log.error("Error calculating meta for " + bracket + " " + region + " " + role + " " + period, e);
-                return Completable.error(e);
-              }
-            }).onErrorComplete());
-          }));
-      }).collect(Collectors.toList());
+          }).onErrorComplete());
+        })).collect(Collectors.toList());
       return Completable.merge(res);
     });
   }
@@ -589,26 +722,109 @@ public class Ladder {
 
   public Completable loadWowCharApiData(String region) {
     return Completable.defer(() -> {
-      log.info("Loading WoW Character API data for region " + region);
       String realRegion;
       if (region.equals(EU)) {
         realRegion = "eu";
       } else {
         realRegion = "us";
       }
-      return db.fetchCharFlow(realRegion)
+      long persistedWatermark = characterCache.persistedWatermark();
+      if (persistedWatermark > 0) {
+        return loadWowCharApiDelta(region, realRegion, persistedWatermark);
+      }
+      log.info("Loading WoW Character API data for region " + region);
+      return db.profileIdRange(realRegion)
+        .flatMapCompletable(range -> db.profileIdSample(realRegion, LOAD_PARTITIONS * LOAD_SAMPLES_PER_PARTITION)
+          .flatMapCompletable(sample -> loadWowCharApiPartitions(region, realRegion,
+            idPartitions(range.getValue0(), range.getValue1(), sample, LOAD_PARTITIONS))));
+    }).andThen(Completable.fromAction(characterCache::calculateSizeMetrics));
+  }
+
+  /**
+   * Reads the id partitions of the region with concurrent cursors. Characters
+   * are upserted on virtual threads as the batches arrive while the search
+   * index is written by a single sequential writer, the index writer is
+   * exclusive anyway.
+   */
+  private Completable loadWowCharApiPartitions(String region, String realRegion, List<long[]> partitions) {
+    long tick = System.nanoTime();
+    AtomicLong loaded = new AtomicLong();
+    return Flowable.range(0, partitions.size()).flatMap(idx -> {
+      long[] partition = partitions.get(idx);
+      String partitionLabel = String.valueOf(idx);
+      long partitionTick = System.nanoTime();
+      AtomicLong partitionLoaded = new AtomicLong();
+      return db.fetchCharFlow(realRegion, partition[0], partition[1])
         .buffer(5000)
-        .flatMapCompletable(characters -> Completable.create(emitter -> VTHREAD_SCHEDULER.scheduleDirect(() -> {
-          log.info("Character data size={} for region={} is being loaded to cache", characters.size(), region);
-          long tick = System.nanoTime();
-          long totalHidden = characters.stream().filter(WowAPICharacter::hidden).count();
+        .concatMapSingle(characters -> Single.fromCallable(() -> {
           characters.forEach(characterCache::upsert);
-          charSearchIndex.insertNickNamesWC(characters);
-          log.info("Character data size={} for region={} hidden={} chars has been loaded to cache in {} ms",
-            characters.size(), region, totalHidden, (System.nanoTime() - tick) / 1000000);
-          emitter.onComplete();
-        })));
-    }).andThen(Completable.fromAction(characterCache::calculateSizeMetrics));
+          CHARACTERS_LOADED.labelValues(region, partitionLabel).inc(characters.size());
+          partitionLoaded.addAndGet(characters.size());
+          return characters;
+        }).subscribeOn(VTHREAD_SCHEDULER))
+        .doOnComplete(() -> {
+          double seconds = (System.nanoTime() - partitionTick) / 1e9;
+          double rate = seconds > 0 ? partitionLoaded.get() / seconds : 0;
+          PARTITION_THROUGHPUT.labelValues(region, partitionLabel).set(rate);
+          log.info("Character partition {} [{}, {}) for region={} loaded {} chars, {} chars/s", partitionLabel,
+            partition[0], partition[1], region, partitionLoaded.get(), (long) rate);
+        });
+    }, partitions.size()).concatMapCompletable(characters -> Completable.fromAction(() -> {
+      charSearchIndex.insertNickNamesWC(characters);
+      loaded.addAndGet(characters.size());
+    }).subscribeOn(VTHREAD_SCHEDULER)).doOnComplete(() -> log.info(
+      "Character data size={} for region={} has been loaded to cache from {} partitions in {} ms", loaded.get(), region,
+      partitions.size(), (System.nanoTime() - tick) / 1000000));
+  }
+
+  /**
+   * Ids are far from uniform, so the bounds are quantiles of a sample of the
+   * ids rather than equal widths, and the partitions hold about as many
+   * profiles each.
+   *
+   * @return up to count [from, to) ranges covering minId..maxId
+   */
+  static List<long[]> idPartitions(long minId, long maxId, List<Long> sample, int count) {
+    long[] sorted = sample.stream().mapToLong(Long::longValue).sorted().toArray();
+    List<long[]> res = new ArrayList<>(count);
+    long from = minId;
+    for (int i = 1; i < count && sorted.length > 0; i++) {
+      long bound = sorted[(int) ((long) i * sorted.length / count)];
+      if (bound > from && bound <= maxId) {
+        res.add(new long[] { from, bound });
+        from = bound;
+      }
+    }
+    res.add(new long[] { from, maxId + 1 });
+    return res;
+  }
+
+  /**
+   * The cache was restored from its segment, so only the profiles updated after
+   * the last checkpoint are fetched and applied on top of it. Afterwards the
+   * search index is built from the cache, indexing the restored and the updated
+   * characters exactly once.
+   */
+  private Completable loadWowCharApiDelta(String region, String realRegion, long persistedWatermark) {
+    long updatedAfter = persistedWatermark - DELTA_LOAD_SAFETY_MARGIN_MS;
+    log.info("Loading WoW Character API data for region {} updated after {}, {} chars restored from the segment",
+      region, updatedAfter, characterCache.countByRegion(realRegion));
+    AtomicLong loaded = new AtomicLong();
+    long tick = System.nanoTime();
+    return db.fetchCharFlowUpdatedAfter(realRegion, updatedAfter)
+      .buffer(5000)
+      .flatMapCompletable(characters -> Completable.fromAction(() -> {
+        characters.forEach(characterCache::upsert);
+        loaded.addAndGet(characters.size());
+      }).subscribeOn(VTHREAD_SCHEDULER))
+      .andThen(Completable.fromAction(() -> {
+        log.info("Character delta size={} for region={} has been loaded to cache in {} ms", loaded.get(), region,
+          (System.nanoTime() - tick) / 1000000);
+        long indexTick = System.nanoTime();
+        characterCache.forEachVisibleInRegion(realRegion, 5000, charSearchIndex::insertNickNamesWC);
+        log.info("Search index for region={} has been built from cache in {} ms", region,
+          (System.nanoTime() - indexTick) / 1000000);
+      }).subscribeOn(VTHREAD_SCHEDULER));
   }
 
   private Completable loadLast(String bracket, String region) {
@@ -626,6 +842,11 @@ public class Ladder {
     });
   }
 
+  /**
+   * Seeds the diff window of the bracket from the historical snapshots in the
+   * DB and publishes the combined diff. Afterwards the window is maintained by
+   * {@link #newDataOnBracket(String, String, Snapshot)}.
+   */
   public Completable calcDiffs(String bracket, String region) {
     List<Maybe<Snapshot>> maybes = List.of(
       // db.getMinsAgo(bracket, region, 60 * 24 * 4),
@@ -636,9 +857,23 @@ public class Ladder {
       db.getMinsAgo(bracket, region, 60 * 2), db.getMinsAgo(bracket, region, 60), db.getMinsAgo(bracket, region, 30),
       db.getMinsAgo(bracket, region, 15), db.getMinsAgo(bracket, region, 10), db.getMinsAgo(bracket, region, 5),
       Maybe.just(refs.refByBracket(bracket, region).get()));
-    return Calculator.calcDiffAndCombine(bracket, region, maybes)
-      .flatMapCompletable(res -> Completable.fromAction(
-        () -> refs.diffsByBracket(bracket, region).set(res.applyCutoffs(bracket, regionCutoff.get(region)))));
+    return Calculator.calcConsecutiveDiffs(bracket, region, maybes)
+      .flatMapCompletable(diffs -> Completable.fromAction(() -> {
+        diffWindow(bracket, region).reset(diffs);
+        publishDiffs(bracket, region);
+      }));
+  }
+
+  private DiffWindow diffWindow(String bracket, String region) {
+    return diffWindows.computeIfAbsent(Refs.bucketRef(bracket, region),
+      k -> new DiffWindow(bracket, DIFF_WINDOW_MS));
+  }
+
+  private void publishDiffs(String bracket, String region) {
+    DiffWindow window = diffWindow(bracket, region);
+    SnapshotDiff res = window.combined(System.currentTimeMillis());
+    refs.diffsByBracket(bracket, region).set(res.applyCutoffs(bracket, regionCutoff.get(region)));
+    log.info("Diffs for bracket {}-{} published, diffs:{}", region, bracket, res.chars().size());
   }
 
   public AtomicReference<Meta> metaRef(String bracket, String region, String role, String period) {
@@ -650,15 +885,16 @@ public class Ladder {
     Snapshot curVal = current.get();
     SnapshotDiff diff = Calculator.calculateDiff(curVal, newCharacters, bracket);
     boolean same = diff.chars().isEmpty();
+    cadence.record(bracket, region, diff.chars().size(), System.currentTimeMillis());
     if (!same) {
       current.set(newCharacters.applyCutoffs(bracket, regionCutoff.get(region)));
       log.info("Data for bracket {} is different[diffs={}] performing update", bracket, diff.chars().size());
-      Completable flow = db.insertOnlyIfDifferent(bracket, region, newCharacters)
-        .andThen(db.cleanBracketSnapshot(bracket).andThen(calcDiffs(bracket, region)))
+      Completable flow = Completable.fromAction(() -> {
+        diffWindow(bracket, region).append(diff);
+        publishDiffs(bracket, region);
+      })
+        .andThen(db.insertOnlyIfDifferent(bracket, region, newCharacters))
         .andThen(Completable.defer(() -> upsertGamingHistory(bracket, diff)));
-      if (bracket.equals(SHUFFLE)) {
-        flow = flow.doOnComplete(() -> calculateMulticlassersLeaderboard(region).subscribe());
-      }
       return flow;
     } else {
       newCharacters.applyCutoffs(bracket, regionCutoff.get(region));
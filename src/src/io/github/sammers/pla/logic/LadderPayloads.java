@@ -0,0 +1,77 @@
+package io.github.sammers.pla.logic;
+
+import io.prometheus.metrics.core.metrics.Counter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Raw leaderboard payloads of the last fetch, by content hash, each with what
+ * was parsed from it. A page whose payload hasn't changed isn't parsed again,
+ * and {@link #changes(String, String)} tells whether any page of a bracket
+ * changed at all, so unchanged brackets don't have to be rebuilt.
+ * <p>
+ * Parsed values are shared between fetches and must not be modified.
+ */
+public class LadderPayloads {
+  private static final Counter PAYLOADS = Counter.builder()
+    .name("ladder_payloads_total")
+    .help("Leaderboard payloads fetched by whether their content changed")
+    .labelNames("bracket", "result")
+    .register();
+  private final Map<String, Page> pages = new ConcurrentHashMap<>();
+  private final Map<String, AtomicLong> changes = new ConcurrentHashMap<>();
+
+  private record Page(long hash, String lastModified, Object parsed) {
+  }
+
+  /**
+   * @return Last-Modified of the page when it was parsed, null if unknown
+   */
+  public String lastModified(String region, String page) {
+    Page cached = pages.get(region + "/" + page);
+    return cached == null ? null : cached.lastModified();
+  }
+
+  /**
+   * @param bracket
+   *          bracket the page belongs to, see {@link #changes(String, String)}
+   * @param payload
+   *          response body, null when the server answered Not Modified
+   * @return what was parsed from the same payload before or the new parsed
+   *         value
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T parse(String bracket, String region, String page, String payload, String lastModified,
+    Function<String, T> parser) {
+    String key = region + "/" + page;
+    Page cached = pages.get(key);
+    if (payload == null) {
+      if (cached == null) {
+        throw new IllegalStateException("Not Modified response for " + key + " which was never parsed");
+      }
+      PAYLOADS.labelValues(bracket, "not_modified").inc();
+      return (T) cached.parsed();
+    }
+    long hash = CharacterCache.nameKey(payload);
+    if (cached != null && cached.hash() == hash) {
+      PAYLOADS.labelValues(bracket, "unchanged").inc();
+      return (T) cached.parsed();
+    }
+    PAYLOADS.labelValues(bracket, "changed").inc();
+    T parsed = parser.apply(payload);
+    pages.put(key, new Page(hash, lastModified, parsed));
+    changes.computeIfAbsent(region + "/" + bracket, k -> new AtomicLong()).incrementAndGet();
+    return parsed;
+  }
+
+  /**
+   * @return number of pages of the bracket that had to be parsed so far, equal
+   *         before and after a fetch when nothing changed
+   */
+  public long changes(String bracket, String region) {
+    return changes.computeIfAbsent(region + "/" + bracket, k -> new AtomicLong()).get();
+  }
+}
@@ -0,0 +1,166 @@
+package io.github.sammers.pla.logic;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map with primitive long keys and values. A slot is empty
+ * when its value is {@link #MISSING}, so it can't be stored. Not thread safe,
+ * callers have to synchronize.
+ */
+public class LongLongMap {
+  public static final long MISSING = Long.MIN_VALUE;
+  private static final float LOAD_FACTOR = 0.6f;
+  private long[] keys;
+  private long[] values;
+  private int mask;
+  private int size;
+
+  public LongLongMap(int expected) {
+    int capacity = LongObjectMap.tableSize(expected);
+    keys = new long[capacity];
+    values = newValues(capacity);
+    mask = capacity - 1;
+  }
+
+  /**
+   * @return value or {@link #MISSING}
+   */
+  public long get(long key) {
+    int pos = LongObjectMap.slot(key, mask);
+    long value;
+    while ((value = values[pos]) != MISSING) {
+      if (keys[pos] == key) {
+        return value;
+      }
+      pos = (pos + 1) & mask;
+    }
+    return MISSING;
+  }
+
+  /**
+   * @return previous value or {@link #MISSING}
+   */
+  public long put(long key, long value) {
+    if (value == MISSING) {
+      throw new IllegalArgumentException("MISSING can't be stored");
+    }
+    int pos = LongObjectMap.slot(key, mask);
+    long cur;
+    while ((cur = values[pos]) != MISSING) {
+      if (keys[pos] == key) {
+        values[pos] = value;
+        return cur;
+      }
+      pos = (pos + 1) & mask;
+    }
+    keys[pos] = key;
+    values[pos] = value;
+    if (++size > (int) (values.length * LOAD_FACTOR)) {
+      rehash(values.length * 2);
+    }
+    return MISSING;
+  }
+
+  /**
+   * Removes the key only if it is mapped to the given value.
+   *
+   * @return true if removed
+   */
+  public boolean remove(long key, long value) {
+    int pos = LongObjectMap.slot(key, mask);
+    long cur;
+    while ((cur = values[pos]) != MISSING) {
+      if (keys[pos] == key) {
+        if (cur != value) {
+          return false;
+        }
+        size--;
+        shiftKeys(pos);
+        return true;
+      }
+      pos = (pos + 1) & mask;
+    }
+    return false;
+  }
+
+  /**
+   * @return removed value or {@link #MISSING}
+   */
+  public long remove(long key) {
+    int pos = LongObjectMap.slot(key, mask);
+    long cur;
+    while ((cur = values[pos]) != MISSING) {
+      if (keys[pos] == key) {
+        size--;
+        shiftKeys(pos);
+        return cur;
+      }
+      pos = (pos + 1) & mask;
+    }
+    return MISSING;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public long[] keys() {
+    long[] res = new long[size];
+    int idx = 0;
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != MISSING) {
+        res[idx++] = keys[i];
+      }
+    }
+    return res;
+  }
+
+  public void clear() {
+    Arrays.fill(values, MISSING);
+    size = 0;
+  }
+
+  private void shiftKeys(int pos) {
+    int last;
+    while (true) {
+      pos = ((last = pos) + 1) & mask;
+      while (true) {
+        if (values[pos] == MISSING) {
+          values[last] = MISSING;
+          return;
+        }
+        int slot = LongObjectMap.slot(keys[pos], mask);
+        if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+          break;
+        }
+        pos = (pos + 1) & mask;
+      }
+      keys[last] = keys[pos];
+      values[last] = values[pos];
+    }
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    long[] oldValues = values;
+    keys = new long[capacity];
+    values = newValues(capacity);
+    mask = capacity - 1;
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] != MISSING) {
+        int pos = LongObjectMap.slot(oldKeys[i], mask);
+        while (values[pos] != MISSING) {
+          pos = (pos + 1) & mask;
+        }
+        keys[pos] = oldKeys[i];
+        values[pos] = oldValues[i];
+      }
+    }
+  }
+
+  private static long[] newValues(int capacity) {
+    long[] res = new long[capacity];
+    Arrays.fill(res, MISSING);
+    return res;
+  }
+}
@@ -0,0 +1,158 @@
+package io.github.sammers.pla.logic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Open addressing hash map with primitive long keys and linear probing. A slot
+ * is empty when its value is null, so null values are not allowed. Not thread
+ * safe, callers have to synchronize.
+ */
+public class LongObjectMap<V> {
+  private static final float LOAD_FACTOR = 0.6f;
+  private long[] keys;
+  private Object[] values;
+  private int mask;
+  private int size;
+
+  public LongObjectMap(int expected) {
+    int capacity = tableSize(expected);
+    keys = new long[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(long key) {
+    int pos = slot(key, mask);
+    Object value;
+    while ((value = values[pos]) != null) {
+      if (keys[pos] == key) {
+        return (V) value;
+      }
+      pos = (pos + 1) & mask;
+    }
+    return null;
+  }
+
+  /**
+   * @return previous value or null
+   */
+  @SuppressWarnings("unchecked")
+  public V put(long key, V value) {
+    if (value == null) {
+      throw new IllegalArgumentException("Null values are not supported");
+    }
+    int pos = slot(key, mask);
+    Object cur;
+    while ((cur = values[pos]) != null) {
+      if (keys[pos] == key) {
+        values[pos] = value;
+        return (V) cur;
+      }
+      pos = (pos + 1) & mask;
+    }
+    keys[pos] = key;
+    values[pos] = value;
+    if (++size > (int) (values.length * LOAD_FACTOR)) {
+      rehash(values.length * 2);
+    }
+    return null;
+  }
+
+  /**
+   * @return removed value or null
+   */
+  @SuppressWarnings("unchecked")
+  public V remove(long key) {
+    int pos = slot(key, mask);
+    Object cur;
+    while ((cur = values[pos]) != null) {
+      if (keys[pos] == key) {
+        size--;
+        shiftKeys(pos);
+        return (V) cur;
+      }
+      pos = (pos + 1) & mask;
+    }
+    return null;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public long[] keys() {
+    long[] res = new long[size];
+    int idx = 0;
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        res[idx++] = keys[i];
+      }
+    }
+    return res;
+  }
+
+  @SuppressWarnings("unchecked")
+  public List<V> values() {
+    List<V> res = new ArrayList<>(size);
+    for (Object value : values) {
+      if (value != null) {
+        res.add((V) value);
+      }
+    }
+    return res;
+  }
+
+  /**
+   * Removes the entry at pos and moves the following entries of the probe
+   * sequence back, so lookups never stop at a hole.
+   */
+  private void shiftKeys(int pos) {
+    int last;
+    while (true) {
+      pos = ((last = pos) + 1) & mask;
+      while (true) {
+        if (values[pos] == null) {
+          values[last] = null;
+          return;
+        }
+        int slot = slot(keys[pos], mask);
+        if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+          break;
+        }
+        pos = (pos + 1) & mask;
+      }
+      keys[last] = keys[pos];
+      values[last] = values[pos];
+    }
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    keys = new long[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] != null) {
+        int pos = slot(oldKeys[i], mask);
+        while (values[pos] != null) {
+          pos = (pos + 1) & mask;
+        }
+        keys[pos] = oldKeys[i];
+        values[pos] = oldValues[i];
+      }
+    }
+  }
+
+  static int tableSize(int expected) {
+    int capacity = Integer.highestOneBit(Math.max(2, (int) Math.ceil(expected / LOAD_FACTOR)) - 1) << 1;
+    return Math.max(capacity, 16);
+  }
+
+  static int slot(long key, int mask) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32)) & mask;
+  }
+}
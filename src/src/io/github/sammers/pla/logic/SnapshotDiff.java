@@ -14,24 +14,19 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 public record SnapshotDiff(List<CharAndDiff> chars, Long timestamp) implements Resp {
+  /**
+   * Chars are always spec indexed, see {@link SpecIndexedList}.
+   */
+  public SnapshotDiff {
+    chars = chars == null ? null : SpecIndexedList.of(chars, c -> c.character().fullSpec());
+  }
+
   public static SnapshotDiff empty() {
     return new SnapshotDiff(List.of(), System.currentTimeMillis());
   }
 
   public SnapshotDiff filter(final List<String> specs) {
-    final List<CharAndDiff> rchars = chars().stream().filter(c -> {
-      Boolean res = false;
-      for (String spec : specs) {
-        res = res || c.character()
-          .fullSpec()
-          .toLowerCase()
-          .replaceAll(" ", "")
-          .replaceAll("'", "")
-          .contains(spec.toLowerCase().replaceAll(" ", "").replaceAll("'", ""));
-      }
-      return res;
-    }).toList();
-    return new SnapshotDiff(rchars, timestamp);
+    return new SnapshotDiff(((SpecIndexedList<CharAndDiff>) chars).filterSpecs(specs), timestamp);
   }
 
   @Override
@@ -43,12 +38,13 @@ public record SnapshotDiff(List<CharAndDiff> chars, Long timestamp) implements R
 
   @Override
   public JsonObject toJson(Long page) {
-    List<JsonObject> diffs = chars().stream().skip((page - 1) * 100L).limit(100).map(JsonConvertable::toJson).toList();
+    int from = (int) Math.min(chars.size(), Math.max(0, (page - 1) * 100L));
+    int to = Math.min(chars.size(), from + 100);
+    List<JsonObject> diffs = chars.subList(from, to).stream().map(JsonConvertable::toJson).toList();
     JsonObject put = new JsonObject().put("characters", new JsonArray(diffs))
       .put("timestamp", timestamp)
       .put("page", page)
-      .put("total_pages", Calculator.totalPages(chars().size(), 100))
-      .put("last_seen", Main.PRETTY_TIME.format(new Date(timestamp)));
+      .put("total_pages", Calculator.totalPages(chars().size(), 100));
     return put;
   }
 
@@ -99,10 +95,10 @@ public record SnapshotDiff(List<CharAndDiff> chars, Long timestamp) implements R
   }
 
   public SnapshotDiff applySlugToName(Realms realms) {
-    return new SnapshotDiff(chars().stream().map(charAndDiff -> {
+    return new SnapshotDiff(((SpecIndexedList<CharAndDiff>) chars).map(charAndDiff -> {
       String realmSlug = charAndDiff.character().realm();
       String realmName = realms.slugToName(realmSlug);
       return new CharAndDiff(charAndDiff.character().changeRealmName(realmName), charAndDiff.diff());
-    }).toList(), timestamp());
+    }), timestamp());
   }
 }
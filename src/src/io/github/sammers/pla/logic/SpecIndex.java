@@ -0,0 +1,156 @@
+package io.github.sammers.pla.logic;
+
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Posting lists from the spec to the rows of a ladder having it. A spec filter
+ * only matches the query against the distinct specs and lazily merges the
+ * matching postings, so reading a page of a filtered ladder costs O(page), not
+ * O(ladder).
+ *
+ * Every posting is packed as rank << 32 | row and the lists are sorted, the
+ * merged rows come out ordered by rank and then by row.
+ */
+public final class SpecIndex {
+  private final String[] specs;
+  private final long[][] postings;
+
+  private SpecIndex(String[] specs, long[][] postings) {
+    this.specs = specs;
+    this.postings = postings;
+  }
+
+  /**
+   * @param specOf
+   *          spec of the row
+   * @param rankOf
+   *          non-negative rank of the row, rows with a lower rank come first
+   */
+  public static SpecIndex build(int size, IntFunction<String> specOf, IntUnaryOperator rankOf) {
+    Map<String, Integer> codes = new HashMap<>();
+    int[] rowCodes = new int[size];
+    List<int[]> counts = new ArrayList<>();
+    for (int row = 0; row < size; row++) {
+      String spec = normalize(specOf.apply(row));
+      int code = codes.computeIfAbsent(spec, s -> {
+        counts.add(new int[1]);
+        return counts.size() - 1;
+      });
+      rowCodes[row] = code;
+      counts.get(code)[0]++;
+    }
+    String[] specs = new String[codes.size()];
+    codes.forEach((spec, code) -> specs[code] = spec);
+    long[][] postings = new long[specs.length][];
+    for (int code = 0; code < specs.length; code++) {
+      postings[code] = new long[counts.get(code)[0]];
+    }
+    int[] filled = new int[specs.length];
+    for (int row = 0; row < size; row++) {
+      int code = rowCodes[row];
+      postings[code][filled[code]++] = ((long) rankOf.applyAsInt(row) << 32) | row;
+    }
+    for (long[] posting : postings) {
+      Arrays.sort(posting);
+    }
+    return new SpecIndex(specs, postings);
+  }
+
+  /**
+   * @return rows with a spec containing any of the given specs
+   */
+  public Rows match(List<String> query) {
+    List<String> normalized = query.stream().map(SpecIndex::normalize).toList();
+    List<long[]> matched = new ArrayList<>();
+    for (int code = 0; code < specs.length; code++) {
+      String spec = specs[code];
+      if (normalized.stream().anyMatch(spec::contains)) {
+        matched.add(postings[code]);
+      }
+    }
+    return new MergedRows(matched.toArray(new long[0][]));
+  }
+
+  /**
+   * The normalization the ladder spec filter always used: lower case without
+   * spaces and apostrophes.
+   */
+  public static String normalize(String spec) {
+    return spec == null ? "" : spec.toLowerCase().replace(" ", "").replace("'", "");
+  }
+
+  public interface Rows {
+    int size();
+
+    int get(int index);
+
+    /**
+     * @return rows of the base at the selected positions, the selected rows if
+     *         the base (null) has all of them
+     */
+    static Rows select(Rows base, Rows selected) {
+      if (base == null) {
+        return selected;
+      }
+      return new Rows() {
+        @Override
+        public int size() {
+          return selected.size();
+        }
+
+        @Override
+        public int get(int index) {
+          return base.get(selected.get(index));
+        }
+      };
+    }
+  }
+
+  /**
+   * K-way merge of the matched postings, advanced only as far as the rows are
+   * read. There are a few dozen specs at most, picking the head is a linear
+   * scan.
+   */
+  private static final class MergedRows implements Rows {
+    private final long[][] lists;
+    private final int[] heads;
+    private final int size;
+    private int[] merged = new int[0];
+    private int mergedCount;
+
+    MergedRows(long[][] lists) {
+      this.lists = lists;
+      this.heads = new int[lists.length];
+      int total = 0;
+      for (long[] list : lists) {
+        total += list.length;
+      }
+      this.size = total;
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public synchronized int get(int index) {
+      Objects.checkIndex(index, size);
+      if (index >= merged.length) {
+        merged = Arrays.copyOf(merged, Math.min(size, Math.max(index + 1, merged.length * 2)));
+      }
+      while (mergedCount <= index) {
+        int best = -1;
+        for (int i = 0; i < lists.length; i++) {
+          if (heads[i] < lists[i].length && (best < 0 || lists[i][heads[i]] < lists[best][heads[best]])) {
+            best = i;
+          }
+        }
+        merged[mergedCount++] = (int) lists[best][heads[best]++];
+      }
+      return merged[index];
+    }
+  }
+}
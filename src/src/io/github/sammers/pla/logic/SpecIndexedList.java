@@ -0,0 +1,74 @@
+package io.github.sammers.pla.logic;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Read-only list with a {@link SpecIndex} keeping the list order. Filtered and
+ * mapped lists are views over the same items, a mapped element is only created
+ * when it is accessed.
+ */
+public final class SpecIndexedList<T> extends AbstractList<T> implements RandomAccess {
+  private final List<T> items;
+  private final Function<T, String> specOf;
+  /** Rows of the view, null if the view contains every item in order. */
+  private final SpecIndex.Rows rows;
+  private final UnaryOperator<T> mapper;
+  /** Index of all the items, null for filtered views. */
+  private final SpecIndex specIndex;
+
+  private SpecIndexedList(List<T> items, Function<T, String> specOf, SpecIndex.Rows rows, UnaryOperator<T> mapper,
+    SpecIndex specIndex) {
+    this.items = items;
+    this.specOf = specOf;
+    this.rows = rows;
+    this.mapper = mapper;
+    this.specIndex = specIndex;
+  }
+
+  /**
+   * @return the list itself if it is already indexed, indexed copy otherwise
+   */
+  public static <T> SpecIndexedList<T> of(List<T> items, Function<T, String> specOf) {
+    if (items instanceof SpecIndexedList<T> indexed) {
+      return indexed;
+    }
+    List<T> copy = List.copyOf(items);
+    SpecIndex specIndex = SpecIndex.build(copy.size(), row -> specOf.apply(copy.get(row)), row -> 0);
+    return new SpecIndexedList<>(copy, specOf, null, null, specIndex);
+  }
+
+  @Override
+  public T get(int index) {
+    T item = items.get(rows == null ? index : rows.get(index));
+    return mapper == null ? item : mapper.apply(item);
+  }
+
+  @Override
+  public int size() {
+    return rows == null ? items.size() : rows.size();
+  }
+
+  /**
+   * View of the elements whose normalized spec contains any of the given specs,
+   * in the list order.
+   */
+  public SpecIndexedList<T> filterSpecs(List<String> specs) {
+    SpecIndex index = specIndex;
+    if (index == null) {
+      // filtering a filtered view, index the rows of the view
+      index = SpecIndex.build(size(), i -> specOf.apply(items.get(rows.get(i))), i -> 0);
+    }
+    SpecIndex.Rows filtered = SpecIndex.Rows.select(rows, index.match(specs));
+    return new SpecIndexedList<>(items, specOf, filtered, mapper, null);
+  }
+
+  /**
+   * Lazily mapped view sharing the index, the mapper must not change the spec.
+   */
+  public SpecIndexedList<T> map(UnaryOperator<T> fn) {
+    UnaryOperator<T> composed = mapper == null ? fn : item -> fn.apply(mapper.apply(item));
+    return new SpecIndexedList<>(items, specOf, rows, composed, specIndex);
+  }
+}
@@ -0,0 +1,64 @@
+package io.github.sammers.pla.logic;
+
+import io.prometheus.metrics.core.metrics.Histogram;
+import io.reactivex.rxjava3.core.Completable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stages of one region update. A stage starts as soon as the stages it depends
+ * on are done, independent stages run concurrently. Dependencies have to be
+ * added first, so the graph can't have cycles. A failed stage is logged and
+ * counts as done, its dependents run on the data they already have.
+ * <p>
+ * Stages are cached, a graph runs once.
+ */
+public class StageGraph {
+  private static final Logger log = LoggerFactory.getLogger(StageGraph.class);
+  private static final Histogram STAGE_DURATION = Histogram.builder()
+    .name("ladder_stage_duration_seconds")
+    .help("Duration of the stages of a region update, without waiting for dependencies")
+    .labelNames("region", "stage")
+    // 50ms to ~7min
+    .classicExponentialUpperBounds(0.05, 2, 14)
+    .register();
+  private final String region;
+  private final Map<String, Completable> stages = new LinkedHashMap<>();
+
+  public StageGraph(String region) {
+    this.region = region;
+  }
+
+  public StageGraph stage(String name, Completable work, String... dependsOn) {
+    if (stages.containsKey(name)) {
+      throw new IllegalArgumentException("Stage " + name + " is already added");
+    }
+    List<Completable> dependencies = new ArrayList<>(dependsOn.length);
+    for (String dependency : dependsOn) {
+      Completable stage = stages.get(dependency);
+      if (stage == null) {
+        throw new IllegalArgumentException("Stage " + name + " depends on unknown stage " + dependency);
+      }
+      dependencies.add(stage);
+    }
+    Completable timed = Completable.defer(() -> {
+      long start = System.nanoTime();
+      return work
+        .doFinally(() -> STAGE_DURATION.labelValues(region, name).observe((System.nanoTime() - start) / 1e9));
+    }).onErrorComplete(e -> {
+      log.error("Stage {} of region {} failed", name, region, e);
+      return true;
+    });
+    stages.put(name, Completable.merge(dependencies).andThen(timed).cache());
+    return this;
+  }
+
+  public Completable run() {
+    return Completable.merge(new ArrayList<>(stages.values()));
+  }
+}
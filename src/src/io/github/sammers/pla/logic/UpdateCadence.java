@@ -0,0 +1,143 @@
+package io.github.sammers.pla.logic;
+
+import io.prometheus.metrics.core.metrics.Gauge;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Decides which brackets are fetched in an update cycle. Every bracket has an
+ * exponentially weighted rate of changed characters per minute, taken from the
+ * diffs of its fetches. Busy brackets are fetched every cycle, quiet ones less
+ * often, down to once every {@link #MAX_INTERVAL_MINUTES}.
+ * <p>
+ * All regions share a budget per minute, counted in the cost of the fetches: a
+ * solo bracket is a leaderboard per spec, a team bracket a single one. When
+ * more brackets are due than the budget allows, the due brackets of all regions
+ * are ranked together by expected changes since their last fetch per cost, so
+ * the region that updates first doesn't take the budget the other one needs
+ * more. Brackets not fetched for the max interval are always fetched.
+ */
+public class UpdateCadence {
+  /** Changed characters per minute at which a bracket is fetched every cycle. */
+  static final double HOT_RATE = 20;
+  static final int MAX_INTERVAL_MINUTES = 10;
+  private static final double ALPHA = 0.3;
+  private static final Gauge INTERVAL = Gauge.builder()
+    .name("ladder_update_interval_minutes")
+    .help("Current fetch interval of a bracket")
+    .labelNames("bracket", "region")
+    .register();
+  private final int budgetPerMinute;
+  private final ToIntFunction<String> cost;
+  private final Map<String, State> states = new HashMap<>();
+  private final Map<String, List<String>> regions = new LinkedHashMap<>();
+  private long budgetMinute = -1;
+  private int budgetUsed;
+
+  private static final class State {
+    /** Unknown brackets are assumed busy until their first fetch. */
+    double rate = HOT_RATE;
+    long lastFetch = -1;
+    /** Minute of the last selection, its cost is already in the budget. */
+    long selectedMinute = -1;
+  }
+
+  private record Due(String bracket, String region, int cost, double expected, boolean forced) {
+  }
+
+  /**
+   * @param budgetPerMinute
+   *          cost of the fetches per minute of all regions together
+   * @param cost
+   *          cost of fetching a bracket
+   */
+  public UpdateCadence(int budgetPerMinute, ToIntFunction<String> cost) {
+    this.budgetPerMinute = budgetPerMinute;
+    this.cost = cost;
+  }
+
+  /**
+   * @return brackets of the region to fetch now, in the given order
+   */
+  public synchronized List<String> select(String region, List<String> brackets, long now) {
+    long minute = TimeUnit.MILLISECONDS.toMinutes(now);
+    if (minute != budgetMinute) {
+      budgetMinute = minute;
+      budgetUsed = 0;
+    }
+    regions.put(region, List.copyOf(brackets));
+    List<Due> due = new ArrayList<>();
+    regions.forEach((r, rBrackets) -> rBrackets.forEach(bracket -> {
+      Due d = due(bracket, r, minute, now);
+      if (d != null) {
+        due.add(d);
+      }
+    }));
+    // forced fetches of every region take their share first, the others go by
+    // expected changes per cost
+    due.sort(Comparator.comparing(Due::forced)
+      .thenComparing(d -> d.expected() / d.cost())
+      .reversed());
+    int left = budgetPerMinute - budgetUsed;
+    Set<String> selected = new HashSet<>();
+    for (Due d : due) {
+      if (!d.forced() && d.cost() > left) {
+        continue;
+      }
+      // due brackets of the other regions keep their budget until they update
+      left -= d.cost();
+      if (d.region().equals(region)) {
+        selected.add(d.bracket());
+        state(d.bracket(), region).selectedMinute = minute;
+        budgetUsed += d.cost();
+      }
+    }
+    return brackets.stream().filter(selected::contains).toList();
+  }
+
+  /**
+   * @param changed
+   *          characters that changed since the previous fetch
+   */
+  public synchronized void record(String bracket, String region, int changed, long now) {
+    State state = state(bracket, region);
+    if (state.lastFetch >= 0 && now > state.lastFetch) {
+      double minutes = Math.max(1, (now - state.lastFetch) / 60_000.0);
+      state.rate = ALPHA * (changed / minutes) + (1 - ALPHA) * state.rate;
+    }
+    state.lastFetch = now;
+  }
+
+  static int interval(double rate) {
+    if (rate <= 0) {
+      return MAX_INTERVAL_MINUTES;
+    }
+    return (int) Math.clamp(Math.round(HOT_RATE / rate), 1, MAX_INTERVAL_MINUTES);
+  }
+
+  private Due due(String bracket, String region, long minute, long now) {
+    State state = state(bracket, region);
+    if (state.selectedMinute == minute) {
+      return null;
+    }
+    int c = Math.max(1, cost.applyAsInt(bracket));
+    if (state.lastFetch < 0) {
+      return new Due(bracket, region, c, Double.MAX_VALUE, true);
+    }
+    double minutes = (now - state.lastFetch) / 60_000.0;
+    int interval = interval(state.rate);
+    INTERVAL.labelValues(bracket, region).set(interval);
+    if (minutes >= MAX_INTERVAL_MINUTES) {
+      return new Due(bracket, region, c, Double.MAX_VALUE, true);
+    } else if (minutes + 0.5 >= interval) {
+      return new Due(bracket, region, c, state.rate * minutes, false);
+    }
+    return null;
+  }
+
+  private State state(String bracket, String region) {
+    return states.computeIfAbsent(bracket + "/" + region, k -> new State());
+  }
+}
@@ -0,0 +1,141 @@
+package io.github.sammers.pla.ratelim;
+
+import io.prometheus.metrics.core.metrics.Counter;
+import io.prometheus.metrics.core.metrics.Gauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * A rate limiter whose rate follows the responses of the API it guards, AIMD
+ * style: every throttled request (429, 503, timeout or failed connection)
+ * halves the rate, every successful one adds a bit, about
+ * {@link #INCREASE_PER_SECOND} permits per second each second. Other server
+ * errors leave the rate as it is. A Retry-After pauses all permits until it passes.
+ *
+ * <p>
+ * Meant to be composed with the static quota limiters, see
+ * {@link ComposedRateLimiter}: those keep the hard limits, this one backs off
+ * below them when the API pushes back. Permits are handed out like in
+ * {@link GcraRateLimiter}, lock-free, with bursts of up to a second worth of the
+ * current rate.
+ */
+public class AdaptiveRateLimiter implements RateLimiter {
+  private static final Logger log = LoggerFactory.getLogger(AdaptiveRateLimiter.class);
+  static final double DECREASE_FACTOR = 0.5;
+  static final double INCREASE_PER_SECOND = 1;
+  // Requests in flight fail together, only the first of them counts
+  private static final long DECREASE_COOLDOWN_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private static final long BURST_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private static final Gauge RATE = Gauge.builder()
+    .name("rate_limiter_adaptive_rate")
+    .help("Current permits per second of an adaptive rate limiter")
+    .labelNames("name")
+    .register();
+  private static final Counter THROTTLED = Counter.builder()
+    .name("rate_limiter_throttled_total")
+    .help("Throttled responses seen by an adaptive rate limiter")
+    .labelNames("name")
+    .register();
+  private final String name;
+  private final double minRate;
+  private final double maxRate;
+  private final AtomicLong tat = new AtomicLong(System.nanoTime());
+  // Double bits of the current permits per second
+  private final AtomicLong rate;
+  private final AtomicLong lastDecrease = new AtomicLong(System.nanoTime() - DECREASE_COOLDOWN_NANOS);
+
+  /**
+   * @param minRate
+   *          permits per second the rate never drops below
+   * @param maxRate
+   *          permits per second to start with and probe up to
+   */
+  public AdaptiveRateLimiter(String name, double minRate, double maxRate) {
+    this.name = name;
+    this.minRate = minRate;
+    this.maxRate = maxRate;
+    this.rate = new AtomicLong(Double.doubleToLongBits(maxRate));
+    RATE.labelValues(name).set(maxRate);
+    log.info("AdaptiveRateLimiter '{}' initialized: {} to {} permits per second", name, minRate, maxRate);
+  }
+
+  @Override
+  public boolean tryAcquire() {
+    long interval = interval();
+    while (true) {
+      long now = System.nanoTime();
+      long current = tat.get();
+      long next = Math.max(current, now) + interval;
+      if (next - now > BURST_NANOS) {
+        return false;
+      }
+      if (tat.compareAndSet(current, next)) {
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public void returnNonUsed() {
+    tat.addAndGet(-interval());
+  }
+
+  @Override
+  public long nanosUntilNextPermit() {
+    long now = System.nanoTime();
+    return Math.max(0, Math.max(tat.get(), now) + interval() - BURST_NANOS - now);
+  }
+
+  /**
+   * Additive increase after a request that wasn't throttled.
+   */
+  public void onSuccess() {
+    update(current -> Math.min(maxRate, current + INCREASE_PER_SECOND / current));
+  }
+
+  /**
+   * Multiplicative decrease after a throttled request.
+   *
+   * @param retryAfterMillis
+   *          Retry-After of the response, 0 if there was none
+   */
+  public void onThrottled(long retryAfterMillis) {
+    THROTTLED.labelValues(name).inc();
+    long now = System.nanoTime();
+    long last = lastDecrease.get();
+    if (now - last >= DECREASE_COOLDOWN_NANOS && lastDecrease.compareAndSet(last, now)) {
+      double decreased = update(current -> Math.max(minRate, current * DECREASE_FACTOR));
+      log.info("AdaptiveRateLimiter '{}': throttled, rate decreased to {} per second", name, decreased);
+    }
+    if (retryAfterMillis > 0) {
+      long resume = now + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis) + BURST_NANOS;
+      tat.getAndUpdate(current -> Math.max(current, resume));
+    }
+  }
+
+  /**
+   * @return the current permits per second
+   */
+  public double rate() {
+    return Double.longBitsToDouble(rate.get());
+  }
+
+  private long interval() {
+    return (long) (TimeUnit.SECONDS.toNanos(1) / rate());
+  }
+
+  private double update(DoubleUnaryOperator function) {
+    while (true) {
+      long bits = rate.get();
+      double updated = function.applyAsDouble(Double.longBitsToDouble(bits));
+      if (rate.compareAndSet(bits, Double.doubleToLongBits(updated))) {
+        RATE.labelValues(name).set(updated);
+        return updated;
+      }
+    }
+  }
+}
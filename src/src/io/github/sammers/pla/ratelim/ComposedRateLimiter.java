@@ -111,6 +111,18 @@ public class ComposedRateLimiter implements RateLimiter {
     log.trace("ComposedRateLimiter '{}': returned permits to all {} limiters", name, limiters.size());
   }
 
+  /**
+   * Returns the longest wait of the underlying rate limiters.
+   */
+  @Override
+  public long nanosUntilNextPermit() {
+    long wait = 0;
+    for (RateLimiter limiter : limiters) {
+      wait = Math.max(wait, limiter.nanosUntilNextPermit());
+    }
+    return wait;
+  }
+
   /**
    * Returns the list of underlying rate limiters.
    *
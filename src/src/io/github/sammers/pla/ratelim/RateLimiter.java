@@ -1,5 +1,7 @@
 package io.github.sammers.pla.ratelim;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Rate limiter.
  */
@@ -7,4 +9,15 @@ public interface RateLimiter {
   boolean tryAcquire();
 
   void returnNonUsed();
+
+  /**
+   * Returns how long to wait before {@link #tryAcquire()} may succeed, 0 if a
+   * permit is available now. Limiters that can't tell answer with a short poll
+   * interval.
+   *
+   * @return the wait in nanoseconds
+   */
+  default long nanosUntilNextPermit() {
+    return TimeUnit.MILLISECONDS.toNanos(1);
+  }
 }
@@ -208,6 +208,18 @@ public class RateLimiterV2 implements RateLimiter {
     }
   }
 
+  @Override
+  public long nanosUntilNextPermit() {
+    long now = System.nanoTime();
+    lock.lock();
+    try {
+      long oldestTimestamp = timestamps[(int) ((cursor - permits + 1) & mask)];
+      return Math.max(0, windowNanos - (now - oldestTimestamp));
+    } finally {
+      lock.unlock();
+    }
+  }
+
   /**
    * Returns the number of currently available permits.
    *
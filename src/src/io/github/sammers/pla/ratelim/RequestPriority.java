@@ -0,0 +1,29 @@
+package io.github.sammers.pla.ratelim;
+
+/**
+ * Priority lanes of {@link RxRateLimiterImpl}. Waiting requests get permits in
+ * proportion to the weight of their lane, so user triggered requests don't wait
+ * behind a saturated background indexer, while no lane starves.
+ */
+public enum RequestPriority {
+  /** Requests a user waits for, e.g. a character update. */
+  INTERACTIVE(16),
+  /** Ladder, cutoffs and realms refreshes. */
+  LADDER(4),
+  /** Background character indexing. */
+  BACKGROUND(1);
+
+  private final int weight;
+
+  RequestPriority(int weight) {
+    this.weight = weight;
+  }
+
+  public int weight() {
+    return weight;
+  }
+
+  public String label() {
+    return name().toLowerCase();
+  }
+}
@@ -1,5 +1,7 @@
 package io.github.sammers.pla.ratelim;
 
+import io.prometheus.metrics.core.metrics.Gauge;
+import io.prometheus.metrics.core.metrics.Histogram;
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.CompletableEmitter;
 import org.slf4j.Logger;
@@ -8,6 +10,9 @@ import org.slf4j.LoggerFactory;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * An RxJava wrapper around the {@link RateLimiter} interface that processes
@@ -15,14 +20,23 @@ import java.util.concurrent.Executors;
  *
  * <p>
  * This implementation queues incoming requests and processes them in a
- * background virtual thread, waiting until permits become available from the
- * underlying rate limiter.
+ * background virtual thread. The thread parks while the queue is empty and is
+ * woken up by new requests. While rate limited it parks exactly until the next
+ * permit, as told by {@link RateLimiter#nanosUntilNextPermit()}, instead of
+ * polling.
+ *
+ * <p>
+ * Every {@link RequestPriority} has its own queue. Permits go to the queues by
+ * smooth weighted round robin: among the non-empty queues each one is served in
+ * proportion to its weight, and an empty queue doesn't hold back the others.
  *
  * <p>
  * Key features:
  * <ul>
  * <li>Uses virtual threads for efficient blocking operations</li>
  * <li>Queue-based request processing</li>
+ * <li>Wakeup-driven, no polling or idle sleeps</li>
+ * <li>Weighted fair priority lanes</li>
  * <li>Backpressure via queue size limits</li>
  * <li>Returns RxJava {@link Completable} for reactive composition</li>
  * </ul>
@@ -30,16 +44,38 @@ import java.util.concurrent.Executors;
 public class RxRateLimiterImpl {
   private static final Logger log = LoggerFactory.getLogger(RxRateLimiterImpl.class);
   private static final int DEFAULT_MAX_QUEUE_SIZE = 1000;
-  private static final long DEFAULT_POLL_INTERVAL_MS = 1;
-  private static final long DEFAULT_IDLE_SLEEP_MS = 10;
+  // Shortest park while rate limited, so a wrong estimate can't spin
+  private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+  private static final RequestPriority[] PRIORITIES = RequestPriority.values();
+  private static final Gauge QUEUE_DEPTH = Gauge.builder()
+    .name("rate_limiter_queue_depth")
+    .help("Requests waiting for a permit")
+    .labelNames("name", "priority")
+    .register();
+  private static final Histogram WAIT = Histogram.builder()
+    .name("rate_limiter_wait_seconds")
+    .help("Time requests waited for a permit")
+    .labelNames("name", "priority")
+    // 1ms to ~65s
+    .classicExponentialUpperBounds(0.001, 2, 17)
+    .register();
   private final RateLimiter rateLimiter;
-  private final ConcurrentLinkedQueue<CompletableEmitter> requestQueue = new ConcurrentLinkedQueue<>();
+  private final Lane[] lanes = new Lane[PRIORITIES.length];
   private final int maxQueueSize;
-  private final long pollIntervalMs;
-  private final long idleSleepMs;
   private final String name;
   private final ExecutorService executor;
   private volatile boolean running = true;
+  private volatile Thread processor;
+
+  private record Pending(CompletableEmitter emitter, long enqueued) {
+  }
+
+  private static final class Lane {
+    final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    final AtomicInteger size = new AtomicInteger();
+    // Smooth weighted round robin state, only touched by the processor
+    int current;
+  }
 
   /**
    * Creates a new RxRateLimiterImpl with the given rate limiter and default
@@ -51,7 +87,7 @@ public class RxRateLimiterImpl {
    *          the underlying rate limiter to use
    */
   public RxRateLimiterImpl(String name, RateLimiter rateLimiter) {
-    this(name, rateLimiter, DEFAULT_MAX_QUEUE_SIZE, DEFAULT_POLL_INTERVAL_MS, DEFAULT_IDLE_SLEEP_MS);
+    this(name, rateLimiter, DEFAULT_MAX_QUEUE_SIZE);
   }
 
   /**
@@ -63,38 +99,29 @@ public class RxRateLimiterImpl {
    * @param rateLimiter
    *          the underlying rate limiter to use
    * @param maxQueueSize
-   *          the maximum number of pending requests in the queue
+   *          the maximum number of pending requests in the queue of every
+   *          priority
    */
   public RxRateLimiterImpl(String name, RateLimiter rateLimiter, int maxQueueSize) {
-    this(name, rateLimiter, maxQueueSize, DEFAULT_POLL_INTERVAL_MS, DEFAULT_IDLE_SLEEP_MS);
-  }
-
-  /**
-   * Creates a new RxRateLimiterImpl with full configuration.
-   *
-   * @param name
-   *          the name of this rate limiter (for logging)
-   * @param rateLimiter
-   *          the underlying rate limiter to use
-   * @param maxQueueSize
-   *          the maximum number of pending requests in the queue
-   * @param pollIntervalMs
-   *          how often to retry acquiring a permit when rate limited (ms)
-   * @param idleSleepMs
-   *          how long to sleep when the queue is empty (ms)
-   */
-  public RxRateLimiterImpl(String name, RateLimiter rateLimiter, int maxQueueSize, long pollIntervalMs,
-    long idleSleepMs) {
     this.name = name;
     this.rateLimiter = rateLimiter;
     this.maxQueueSize = maxQueueSize;
-    this.pollIntervalMs = pollIntervalMs;
-    this.idleSleepMs = idleSleepMs;
+    for (int i = 0; i < lanes.length; i++) {
+      lanes[i] = new Lane();
+    }
     this.executor = Executors.newVirtualThreadPerTaskExecutor();
     // Start the background processing thread
     executor.submit(this::processRequests);
-    log.info("RxRateLimiterImpl '{}' initialized: maxQueueSize={}, pollIntervalMs={}, idleSleepMs={}", name,
-      maxQueueSize, pollIntervalMs, idleSleepMs);
+    log.info("RxRateLimiterImpl '{}' initialized: maxQueueSize={}", name, maxQueueSize);
+  }
+
+  /**
+   * Submits a request with {@link RequestPriority#LADDER} priority.
+   *
+   * @return a Completable that completes when a permit is acquired
+   */
+  public Completable request() {
+    return request(RequestPriority.LADDER);
   }
 
   /**
@@ -102,74 +129,128 @@ public class RxRateLimiterImpl {
    *
    * <p>
    * The returned {@link Completable} will complete when a permit has been
-   * successfully acquired. If the queue is full, an error is returned
-   * immediately.
+   * successfully acquired. If the queue of the priority is full, an error is
+   * returned immediately.
    *
+   * @param priority
+   *          the lane to wait in
    * @return a Completable that completes when a permit is acquired
    */
-  public Completable request() {
-    if (requestQueue.size() >= maxQueueSize) {
-      return Completable.error(
-        new IllegalStateException("RxRateLimiter '" + name + "': queue is full. Current size: " + requestQueue.size()));
+  public Completable request(RequestPriority priority) {
+    Lane lane = lanes[priority.ordinal()];
+    if (lane.size.get() >= maxQueueSize) {
+      return Completable.error(new IllegalStateException("RxRateLimiter '" + name + "': " + priority.label()
+        + " queue is full. Current size: " + lane.size.get()));
     }
-    return Completable.create(requestQueue::add);
+    return Completable.create(emitter -> {
+      lane.queue.add(new Pending(emitter, System.nanoTime()));
+      QUEUE_DEPTH.labelValues(name, priority.label()).set(lane.size.incrementAndGet());
+      LockSupport.unpark(processor);
+    });
   }
 
   /**
    * Background method that processes queued requests using virtual threads.
    */
   private void processRequests() {
+    processor = Thread.currentThread();
     log.debug("RxRateLimiterImpl '{}': background processor started", name);
     while (running) {
-      CompletableEmitter emitter = requestQueue.poll();
-      if (emitter != null) {
-        // Process this request - wait until we can acquire a permit
-        processRequest(emitter);
+      int next = nextLane();
+      if (next < 0) {
+        // No requests in queue, wait for the next one
+        LockSupport.park(this);
       } else {
-        // No requests in queue, sleep briefly
-        try {
-          Thread.sleep(idleSleepMs);
-        } catch (InterruptedException e) {
-          Thread.currentThread().interrupt();
-          log.debug("RxRateLimiterImpl '{}': processor interrupted", name);
-          break;
+        Pending pending = lanes[next].queue.peek();
+        if (pending.emitter().isDisposed()) {
+          // Nobody waits for this request anymore, don't spend a permit on it
+          poll(next);
+        } else if (processRequest(pending.emitter())) {
+          poll(next);
+          served(next);
+          WAIT.labelValues(name, PRIORITIES[next].label())
+            .observe((System.nanoTime() - pending.enqueued()) / 1e9);
+        } else {
+          LockSupport.parkNanos(this, Math.max(MIN_PARK_NANOS, rateLimiter.nanosUntilNextPermit()));
         }
       }
+      if (Thread.interrupted()) {
+        log.debug("RxRateLimiterImpl '{}': processor interrupted", name);
+        break;
+      }
     }
     log.debug("RxRateLimiterImpl '{}': background processor stopped", name);
   }
 
   /**
-   * Processes a single request by waiting until a permit can be acquired.
+   * @return the non-empty lane to serve next, -1 if all are empty
+   */
+  private int nextLane() {
+    int best = -1;
+    for (int i = 0; i < lanes.length; i++) {
+      if (lanes[i].queue.peek() != null
+        && (best < 0 || lanes[i].current + PRIORITIES[i].weight() > lanes[best].current + PRIORITIES[best].weight())) {
+        best = i;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Moves the round robin on after a request of the lane got its permit.
+   */
+  private void served(int lane) {
+    int total = 0;
+    for (int i = 0; i < lanes.length; i++) {
+      if (i == lane || lanes[i].queue.peek() != null) {
+        lanes[i].current += PRIORITIES[i].weight();
+        total += PRIORITIES[i].weight();
+      } else {
+        // An empty lane doesn't save up credit
+        lanes[i].current = 0;
+      }
+    }
+    lanes[lane].current -= total;
+  }
+
+  private void poll(int lane) {
+    lanes[lane].queue.poll();
+    QUEUE_DEPTH.labelValues(name, PRIORITIES[lane].label()).set(lanes[lane].size.decrementAndGet());
+  }
+
+  /**
+   * Processes a single request if a permit can be acquired.
    *
    * @param emitter
    *          the completable emitter to complete when permit is acquired
+   * @return false if rate limited and the request has to wait
    */
-  private void processRequest(CompletableEmitter emitter) {
+  private boolean processRequest(CompletableEmitter emitter) {
     try {
-      // Spin/wait until we can acquire a permit
-      while (!rateLimiter.tryAcquire()) {
-        Thread.sleep(pollIntervalMs);
+      if (!rateLimiter.tryAcquire()) {
+        return false;
       }
       // Permit acquired, complete the request
       emitter.onComplete();
       log.trace("RxRateLimiterImpl '{}': request completed", name);
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
-      emitter.onError(new InterruptedException("RxRateLimiter '" + name + "': request interrupted"));
     } catch (Exception e) {
       emitter.onError(e);
       log.error("RxRateLimiterImpl '{}': error processing request", name, e);
     }
+    return true;
   }
 
   /**
    * Returns the current queue size.
    *
-   * @return the number of pending requests
+   * @return the number of pending requests of all priorities
    */
   public int getQueueSize() {
-    return requestQueue.size();
+    int size = 0;
+    for (Lane lane : lanes) {
+      size += lane.size.get();
+    }
+    return size;
   }
 
   /**
@@ -186,6 +267,7 @@ public class RxRateLimiterImpl {
    */
   public void shutdown() {
     running = false;
+    LockSupport.unpark(processor);
     executor.shutdown();
     log.info("RxRateLimiterImpl '{}': shutdown initiated", name);
   }
@@ -0,0 +1,54 @@
+package io.github.sammers.pla.blizzard;
+
+import io.github.sammers.pla.db.Character;
+import io.github.sammers.pla.logic.Diff;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class CharacterCodecTest {
+
+    private static WowAPICharacter character() {
+        Character mate = new Character(3L, 2400L, true, "Mate", "Priest", "Discipline Priest", "Horde", "Female",
+            "Undead", "Kazzak", 10L, 5L, Optional.of(-1));
+        List<DiffAndWithWho> hist = new ArrayList<>();
+        hist.add(new DiffAndWithWho(null, new Diff(1L, 0L, 15L, -2L, 1700000000000L), List.of(mate)));
+        PvpBracket bracket = new PvpBracket("ARENA_3v3", 2410L, 100L, 50L, 12L, 2450L, 1690000000000L, 2500L,
+            1680000000000L, true, new GamingHistory(hist));
+        return new WowAPICharacter(209902508L, false, "Whitemask", "Kazzak", "Female", "Horde", "Undead", "Holy", 80,
+            "Priest", 620, "eu", List.of(bracket), 1700000000123L, Achievements.fromJson(null), 12345,
+            CharacterMedia.fromJson(null), "talents-code", List.of(), Set.of(1L));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        WowAPICharacter character = character();
+        WowAPICharacter decoded = CharacterCodec.decode(CharacterCodec.encode(character));
+        assertEquals(character.toJson(), decoded.toJson());
+    }
+
+    @Test
+    public void testFieldReaders() {
+        byte[] bytes = CharacterCodec.encode(character());
+        assertEquals(209902508L, CharacterCodec.id(bytes));
+        assertEquals(1700000000123L, CharacterCodec.lastUpdatedUTCms(bytes));
+        assertEquals(12345, CharacterCodec.petHash(bytes));
+        assertEquals("eu", CharacterCodec.region(bytes));
+        assertEquals("Kazzak", CharacterCodec.realm(bytes));
+        assertEquals("Whitemask", CharacterCodec.name(bytes));
+        assertEquals("whitemask-kazzak", CharacterCodec.fullName(bytes));
+        assertFalse(CharacterCodec.hidden(bytes));
+    }
+
+    @Test
+    public void testNull() {
+        assertNull(CharacterCodec.decode(null));
+    }
+}
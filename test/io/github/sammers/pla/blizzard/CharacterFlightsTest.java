@@ -0,0 +1,119 @@
+package io.github.sammers.pla.blizzard;
+
+import io.github.sammers.pla.ratelim.RequestPriority;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.reactivex.rxjava3.subjects.MaybeSubject;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CharacterFlightsTest {
+
+    @Test
+    public void testConcurrentFetchesAreShared() {
+        CharacterFlights flights = new CharacterFlights(TimeUnit.MINUTES.toNanos(1));
+        AtomicInteger fetches = new AtomicInteger();
+        MaybeSubject<WowAPICharacter> response = MaybeSubject.create();
+        TestObserver<WowAPICharacter> first = flights.get("eu/kazzak/whaazz", RequestPriority.LADDER, () -> {
+            fetches.incrementAndGet();
+            return response;
+        }).test();
+        TestObserver<WowAPICharacter> second = flights.get("eu/kazzak/whaazz", RequestPriority.LADDER, () -> {
+            fetches.incrementAndGet();
+            return response;
+        }).test();
+        assertEquals(1, fetches.get());
+        response.onComplete();
+        first.assertComplete().assertNoValues();
+        second.assertComplete().assertNoValues();
+        // memoized
+        flights.get("eu/kazzak/whaazz", RequestPriority.LADDER, () -> {
+            fetches.incrementAndGet();
+            return Maybe.empty();
+        }).test().assertComplete();
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    public void testResultsExpire() {
+        CharacterFlights flights = new CharacterFlights(0);
+        AtomicInteger fetches = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            flights.get("us/illidan/pikaboo", RequestPriority.LADDER, () -> {
+                fetches.incrementAndGet();
+                return Maybe.empty();
+            }).test().assertComplete();
+        }
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    public void testErrorsAreNotMemoized() {
+        CharacterFlights flights = new CharacterFlights(TimeUnit.MINUTES.toNanos(1));
+        AtomicInteger fetches = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            flights.get("eu/kazzak/whaazz", RequestPriority.LADDER, () -> {
+                fetches.incrementAndGet();
+                return Maybe.error(new IllegalStateException("429"));
+            }).test().assertError(IllegalStateException.class);
+        }
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    public void testInteractiveDoesNotReuseLowerPriority() {
+        CharacterFlights flights = new CharacterFlights(TimeUnit.MINUTES.toNanos(1));
+        AtomicInteger fetches = new AtomicInteger();
+        MaybeSubject<WowAPICharacter> background = MaybeSubject.create();
+        MaybeSubject<WowAPICharacter> interactive = MaybeSubject.create();
+        TestObserver<WowAPICharacter> first = flights.get("eu/kazzak/whaazz", RequestPriority.BACKGROUND, () -> {
+            fetches.incrementAndGet();
+            return background;
+        }).test();
+        TestObserver<WowAPICharacter> second = flights.get("eu/kazzak/whaazz", RequestPriority.INTERACTIVE, () -> {
+            fetches.incrementAndGet();
+            return interactive;
+        }).test();
+        assertEquals(2, fetches.get());
+        // Later callers of any priority share the interactive fetch
+        TestObserver<WowAPICharacter> third = flights.get("eu/kazzak/whaazz", RequestPriority.INTERACTIVE, () -> {
+            fetches.incrementAndGet();
+            return Maybe.empty();
+        }).test();
+        TestObserver<WowAPICharacter> fourth = flights.get("eu/kazzak/whaazz", RequestPriority.LADDER, () -> {
+            fetches.incrementAndGet();
+            return Maybe.empty();
+        }).test();
+        assertEquals(2, fetches.get());
+        interactive.onComplete();
+        second.assertComplete();
+        third.assertComplete();
+        fourth.assertComplete();
+        // The background fetch finishing late doesn't hide the interactive result
+        background.onComplete();
+        first.assertComplete();
+        flights.get("eu/kazzak/whaazz", RequestPriority.INTERACTIVE, () -> {
+            fetches.incrementAndGet();
+            return Maybe.empty();
+        }).test().assertComplete();
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    public void testInteractiveDoesNotReuseLowerPriorityMemo() {
+        CharacterFlights flights = new CharacterFlights(TimeUnit.MINUTES.toNanos(1));
+        AtomicInteger fetches = new AtomicInteger();
+        for (RequestPriority priority : new RequestPriority[] {RequestPriority.BACKGROUND, RequestPriority.LADDER,
+            RequestPriority.INTERACTIVE, RequestPriority.INTERACTIVE, RequestPriority.BACKGROUND}) {
+            flights.get("us/illidan/pikaboo", priority, () -> {
+                fetches.incrementAndGet();
+                return Maybe.empty();
+            }).test().assertComplete();
+        }
+        assertEquals(2, fetches.get());
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.sammers.pla.blizzard;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CharacterPartTest {
+
+    private static final long NOW = 1_760_000_000_000L;
+
+    private static Optional<WowAPICharacter> updatedAt(long id, long lastUpdatedUTCms, int petHash) {
+        return Optional.of(new WowAPICharacter(id, false, "Whaazz", "Kazzak", "Male", "Horde", "Undead", "Subtlety", 80,
+            "Rogue", 640, "eu", List.of(), lastUpdatedUTCms, null, petHash, null, "", List.of(), Set.of()));
+    }
+
+    @Test
+    public void testNewCharacterFetchesEverything() {
+        for (CharacterPart part : CharacterPart.values()) {
+            assertTrue(part.due(Optional.empty(), NOW, false));
+        }
+    }
+
+    @Test
+    public void testPartsAreReusedWithinTheirPeriod() {
+        for (long id = 1; id <= 100; id++) {
+            Optional<WowAPICharacter> previous = updatedAt(id, NOW, 42);
+            for (CharacterPart part : CharacterPart.values()) {
+                assertFalse(part.due(previous, NOW, false));
+                assertTrue(part.due(previous, NOW, true));
+            }
+        }
+    }
+
+    @Test
+    public void testPartsAreDueOncePerPeriod() {
+        for (long id = 1; id <= 100; id++) {
+            Optional<WowAPICharacter> dayOld = updatedAt(id, NOW - Duration.ofDays(1).toMillis(), 42);
+            assertTrue(CharacterPart.ACHIEVEMENTS.due(dayOld, NOW, false));
+            assertTrue(CharacterPart.SPECIALIZATIONS.due(dayOld, NOW, false));
+            Optional<WowAPICharacter> weekOld = updatedAt(id, NOW - Duration.ofDays(7).toMillis(), 42);
+            assertTrue(CharacterPart.MEDIA.due(weekOld, NOW, false));
+            assertTrue(CharacterPart.PETS.due(weekOld, NOW, false));
+        }
+    }
+
+    @Test
+    public void testUnknownPetsAreFetched() {
+        assertTrue(CharacterPart.PETS.due(updatedAt(1, NOW, -1), NOW, false));
+    }
+}
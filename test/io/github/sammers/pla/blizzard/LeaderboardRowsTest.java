@@ -0,0 +1,76 @@
+package io.github.sammers.pla.blizzard;
+
+import io.github.sammers.pla.db.Character;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class LeaderboardRowsTest {
+
+    private static final String BODY = """
+        {
+          "_links": {"self": {"href": "https://eu.api.blizzard.com/data/wow/pvp-season/38/pvp-leaderboard/3v3"}},
+          "season": {"key": {"href": "https://eu.api.blizzard.com/data/wow/pvp-season/38"}, "id": 38},
+          "name": "3v3",
+          "entries": [
+            {
+              "character": {"name": "Whaazz", "id": 1, "realm": {"key": {"href": "x"}, "id": 1, "slug": "tarren-mill"}},
+              "faction": {"type": "HORDE"},
+              "rank": 1,
+              "rating": 3012,
+              "season_match_statistics": {"played": 300, "won": 200, "lost": 100},
+              "tier": {"key": {"href": "y"}, "id": 6}
+            },
+            {
+              "character": {"name": "Chanimal", "realm": {"slug": "kazzak"}},
+              "rank": 2,
+              "rating": 2990
+            },
+            {
+              "faction": {"type": "ALLIANCE"},
+              "rank": 3
+            }
+          ],
+          "bracket": {"id": 1, "type": "ARENA_3v3"}
+        }
+        """;
+
+    private static Character character(String name, String realm, Long pos, Long rating) {
+        return new Character(pos, rating, false, name, "Rogue", "Subtlety Rogue", "HORDE", "MALE", "Orc", realm, 1L,
+            1L, Optional.empty());
+    }
+
+    @Test
+    public void testParseSkipsUnusedFields() {
+        LeaderboardRows rows = LeaderboardRows.parse(BODY);
+        assertEquals(2, rows.size());
+    }
+
+    @Test
+    public void testEnrich() {
+        LeaderboardRows rows = LeaderboardRows.parse(BODY);
+        Character whaazz = character("Whaazz", "Tarren Mill", 5L, 2900L);
+        Character chanimal = character("Chanimal", "Kazzak", 6L, 2800L);
+        Character unknown = character("Pikaboo", "Tichondrius", 7L, 2700L);
+        List<Character> enriched = rows.enrich(List.of(whaazz, chanimal, unknown));
+        assertEquals(1L, enriched.get(0).pos());
+        assertEquals(3012L, enriched.get(0).rating());
+        assertEquals(200L, enriched.get(0).wins());
+        assertEquals(100L, enriched.get(0).losses());
+        assertEquals(2L, enriched.get(1).pos());
+        assertNull(enriched.get(1).wins());
+        assertSame(unknown, enriched.get(2));
+    }
+
+    @Test
+    public void testEmptyLeaderboard() {
+        LeaderboardRows rows = LeaderboardRows.parse("{\"name\": \"3v3\", \"bracket\": {\"type\": \"ARENA_3v3\"}}");
+        assertEquals(0, rows.size());
+        assertEquals(List.of(), rows.enrich(List.of()));
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.sammers.pla.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CharacterColumnsTest {
+
+    private static Character character(long pos, long rating, String spec, String realm, Optional<Integer> pethash) {
+        return new Character(pos, rating, false, "name" + pos, "Mage", spec, "ALLIANCE", "MALE", "Human", realm, 10L,
+            5L, pethash);
+    }
+
+    private static final List<Character> CHARS = List.of(
+        character(1, 2500, "Frost Mage", "kazzak", Optional.of(7)),
+        character(2, 2400, "Fire Mage", "draenor", Optional.empty()),
+        character(3, 2600, "Holy Paladin", "kazzak", Optional.of(-1)),
+        character(4, 2400, "Frost Mage", "silvermoon", Optional.empty()));
+
+    @Test
+    public void testRoundtrip() {
+        assertEquals(CHARS, CharacterColumns.of(CHARS));
+    }
+
+    @Test
+    public void testFilterSortsByRatingKeepingOrderOnTies() {
+        List<Character> filtered = CharacterColumns.of(CHARS).filterSpecs(List.of("frost", "Holy Pal"));
+        assertEquals(List.of(CHARS.get(2), CHARS.get(0), CHARS.get(3)), filtered);
+        assertEquals(List.of(CHARS.get(0), CHARS.get(3)), ((CharacterColumns) filtered).filterSpecs(List.of("mage")));
+    }
+
+    @Test
+    public void testMapRealms() {
+        List<Character> renamed = CharacterColumns.of(CHARS).mapRealms(String::toUpperCase);
+        assertEquals("KAZZAK", renamed.get(2).realm());
+        assertEquals(CHARS.get(1).changeRealmName("DRAENOR"), renamed.get(1));
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.sammers.pla.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SnapshotDeltaTest {
+
+    private static Character character(String name, long pos, long rating, String fraction, long wins) {
+        return new Character(pos, rating, false, name, "Mage", "Frost Mage", fraction, "MALE", "Human", "kazzak", wins,
+            5L, Optional.of(7));
+    }
+
+    @Test
+    public void testDecodeRestoresOrderAndChanges() {
+        Snapshot keyframe = Snapshot.of(List.of(character("a", 1, 2400, "ALLIANCE", 10),
+            character("b", 2, 2300, "ALLIANCE", 20), character("c", 3, 2200, "HORDE", 30)), "en-gb", 1000L);
+        List<Character> chars = List.of(character("c", 1, 2450, "HORDE", 33), character("a", 2, 2400, "ALLIANCE", 10),
+            character("d", 3, 2100, "HORDE", 1), character("b", 4, 2000, "HORDE", 25));
+        Snapshot snapshot = Snapshot.of(chars, "en-gb", 2000L);
+        SnapshotDelta.Encoded delta = SnapshotDelta.encode(keyframe, snapshot, false);
+        // d is new and b changed its faction
+        assertEquals(2, delta.added());
+        assertEquals(chars, new ArrayList<>(SnapshotDelta.decode(keyframe, delta.bytes())));
+    }
+}
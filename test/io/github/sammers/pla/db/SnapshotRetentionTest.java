@@ -0,0 +1,57 @@
+package io.github.sammers.pla.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.time.ZoneOffset.UTC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SnapshotRetentionTest {
+
+    private static long at(String dateTime) {
+        return ZonedDateTime.parse(dateTime + "Z").withZoneSameInstant(UTC).toInstant().toEpochMilli();
+    }
+
+    @Test
+    public void testOnlyNewlyExpiredSnapshotsAreReturned() {
+        SnapshotRetention retention = new SnapshotRetention();
+        // 2024-01-18 is a Thursday
+        retention.track("en-gb", at("2024-01-18T01:00"), null);
+        retention.track("en-gb", at("2024-01-18T02:00"), at("2024-01-18T01:00"));
+        retention.track("en-gb", at("2024-01-18T03:00"), null);
+        retention.track("en-gb", at("2024-01-19T01:00"), at("2024-01-18T03:00"));
+        retention.track("en-gb", at("2024-01-19T02:00"), null);
+        retention.track("en-us", at("2024-01-19T05:00"), null);
+        assertEquals(Map.of(), retention.compact(at("2024-01-19T00:30")));
+        // older than a day, only the first snapshot of every day stays, with its keyframe
+        assertEquals(Map.of("en-gb", List.of(at("2024-01-18T02:00"), at("2024-01-19T02:00"))),
+            retention.compact(at("2024-01-20T12:00")));
+        // a week later Friday and its keyframe go away, Thursday stays and is final afterwards
+        Map<String, List<Long>> expected = Map.of("en-gb", List.of(at("2024-01-18T03:00"), at("2024-01-19T01:00")),
+            "en-us", List.of(at("2024-01-19T05:00")));
+        assertEquals(expected, retention.compact(at("2024-01-26T12:00")));
+        assertEquals(Map.of(), retention.compact(at("2024-01-27T12:00")));
+        assertEquals(0, retention.size());
+    }
+
+    @Test
+    public void testKeptBeforeHorizon() {
+        SnapshotRetention retention = new SnapshotRetention();
+        long horizon = SnapshotRetention.horizon(at("2024-02-01T12:00"));
+        // a tracked delta whose keyframe is older than the horizon
+        retention.track("en-gb", at("2024-01-25T00:30"), at("2024-01-23T23:00"));
+        List<SnapshotRetention.FirstOfDay> days = List.of(
+            new SnapshotRetention.FirstOfDay("en-gb", LocalDate.parse("2024-01-17"), at("2024-01-17T00:10"), null),
+            new SnapshotRetention.FirstOfDay("en-gb", LocalDate.parse("2024-01-18"), at("2024-01-18T00:10"),
+                at("2024-01-17T22:00")),
+            new SnapshotRetention.FirstOfDay("en-us", LocalDate.parse("2024-01-19"), at("2024-01-19T00:10"), null));
+        Map<String, Set<Long>> expected = Map.of("en-gb",
+            Set.of(at("2024-01-18T00:10"), at("2024-01-17T22:00"), at("2024-01-23T23:00")), "en-us", Set.of());
+        assertEquals(expected, retention.keptBefore(horizon, days));
+    }
+}
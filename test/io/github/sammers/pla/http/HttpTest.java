@@ -0,0 +1,57 @@
+package io.github.sammers.pla.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpTest {
+
+    private static final PageCache.Key KEY = new PageCache.Key("ladder", "3v3", "eu", 1, List.of("Holy Priest"));
+
+    @Test
+    public void testEtag() {
+        String etag = Http.etag(KEY, 1700000000000L, 42, false);
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        assertEquals(etag, Http.etag(new PageCache.Key("ladder", "3v3", "eu", 1, List.of("holypriest")),
+            1700000000000L, 42, false));
+        // another snapshot, other realms or another encoding
+        assertNotEquals(etag, Http.etag(KEY, 1700000060000L, 42, false));
+        assertNotEquals(etag, Http.etag(KEY, 1700000000000L, 43, false));
+        assertNotEquals(etag, Http.etag(KEY, 1700000000000L, 42, true));
+        assertNotEquals(etag, Http.etag(new PageCache.Key("ladder", "3v3", "eu", 2, List.of("Holy Priest")),
+            1700000000000L, 42, false));
+        assertNotEquals(etag, Http.etag(new PageCache.Key("activity", "3v3", "eu", 1, List.of("Holy Priest")),
+            1700000000000L, 42, false));
+    }
+
+    @Test
+    public void testEtagMatches() {
+        String etag = Http.etag(KEY, 1700000000000L, 42, true);
+        assertFalse(Http.etagMatches(null, etag));
+        assertTrue(Http.etagMatches(etag, etag));
+        assertTrue(Http.etagMatches("W/" + etag, etag));
+        assertTrue(Http.etagMatches("\"other\", " + etag, etag));
+        assertTrue(Http.etagMatches("*", etag));
+        assertFalse(Http.etagMatches("\"other\"", etag));
+        assertFalse(Http.etagMatches(Http.etag(KEY, 1700000000000L, 42, false), etag));
+    }
+
+    @Test
+    public void testAcceptsGzip() {
+        assertFalse(Http.acceptsGzip(null));
+        assertFalse(Http.acceptsGzip(""));
+        assertTrue(Http.acceptsGzip("gzip"));
+        assertTrue(Http.acceptsGzip("gzip, deflate, br"));
+        assertTrue(Http.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(Http.acceptsGzip("*"));
+        assertFalse(Http.acceptsGzip("gzip;q=0"));
+        assertFalse(Http.acceptsGzip("gzip; q=0.000, *"));
+        assertFalse(Http.acceptsGzip("br, *;q=0"));
+        assertFalse(Http.acceptsGzip("identity"));
+    }
+}
@@ -1,9 +1,18 @@
 package io.github.sammers.pla.logic;
 
+import io.github.sammers.pla.db.Character;
+import io.github.sammers.pla.db.Snapshot;
 import io.vertx.core.json.JsonObject;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static io.github.sammers.pla.logic.Calculator.*;
 import static io.github.sammers.pla.logic.Calculator.calculateMclassScoreBasedOnCutoff;
@@ -34,5 +43,88 @@ public class CalculatorTest {
         assertEquals(61, lists.size());
     }
 
+    private static Character character(String name, String spec, Long rating, Long pos, Long wins, Long losses) {
+        return new Character(pos, rating, false, name, "Priest", spec + " Priest", "Horde", "Female", "Undead",
+            "Kazzak", wins, losses, Optional.empty());
+    }
+
+    /**
+     * The diff as computed before the hash join, on maps of the id function.
+     */
+    private static List<CharAndDiff> mapDiff(Snapshot oldChars, Snapshot newChars, String bracket, boolean newIsZero) {
+        Function<Character, String> idF = getIdFunction(bracket);
+        Map<String, Character> oldMap = oldChars.characters().stream()
+            .collect(Collectors.toMap(idF, c -> c, (a, b) -> a));
+        List<CharAndDiff> res = new ArrayList<>();
+        for (Character newChar : newChars.characters()) {
+            if (newChar.wins() == null || newChar.losses() == null) {
+                continue;
+            }
+            Character oldChar = oldMap.get(idF.apply(newChar));
+            Diff diff;
+            if (oldChar == null) {
+                diff = newIsZero ? new Diff(0L, 0L, 0L, 0L, newChars.timestamp())
+                    : new Diff(newChar.wins(), newChar.losses(), newChar.rating(), newChar.pos(), newChars.timestamp());
+            } else if (oldChar.wins() == null || oldChar.losses() == null) {
+                continue;
+            } else {
+                diff = new Diff(newChar.wins() - oldChar.wins(), newChar.losses() - oldChar.losses(),
+                    newChar.rating() - oldChar.rating(), newChar.pos() - oldChar.pos(), newChars.timestamp());
+            }
+            if (diff.won() != 0 || diff.lost() != 0) {
+                res.add(new CharAndDiff(newChar, diff));
+            }
+        }
+        res.sort(Comparator.comparing((CharAndDiff o) -> o.character().rating()).reversed());
+        return res;
+    }
+
+    @Test
+    public void calculateDiffMatchesMapDiff() {
+        Random random = new Random(42);
+        List<String> specs = List.of("Holy", "Discipline", "Shadow");
+        List<Character> oldChars = new ArrayList<>();
+        List<Character> newChars = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String name = "Char" + random.nextInt(400);
+            String spec = specs.get(random.nextInt(specs.size()));
+            long wins = random.nextInt(100);
+            long losses = random.nextInt(100);
+            long rating = 1500 + random.nextInt(1000);
+            if (random.nextInt(10) != 0) {
+                oldChars.add(character(name, spec, rating, (long) i, random.nextInt(20) == 0 ? null : wins, losses));
+            }
+            if (random.nextInt(10) != 0) {
+                long played = random.nextInt(3) == 0 ? 0 : random.nextInt(10);
+                long won = random.nextInt((int) played + 1);
+                newChars.add(character(name, spec, rating + won * 10 - (played - won) * 10, (long) i,
+                    wins + won, random.nextInt(20) == 0 ? null : losses + played - won));
+            }
+        }
+        Snapshot oldSnapshot = new Snapshot(oldChars, 1000L, "eu", "");
+        Snapshot newSnapshot = new Snapshot(newChars, 2000L, "eu", "");
+        for (String bracket : List.of("3v3", "shuffle")) {
+            for (boolean newIsZero : List.of(true, false)) {
+                SnapshotDiff diff = calculateDiff(oldSnapshot, newSnapshot, bracket, newIsZero);
+                assertEquals(mapDiff(oldSnapshot, newSnapshot, bracket, newIsZero), diff.chars());
+                assertEquals(2000L, diff.timestamp());
+            }
+        }
+    }
+
+    @Test
+    public void calculateDiffSkipsUnknownStats() {
+        Snapshot oldSnapshot = new Snapshot(List.of(character("Known", "Holy", 2000L, 1L, 10L, 5L),
+            character("Unknown", "Holy", 1900L, 2L, 10L, 5L)), 1000L, "eu", "");
+        Snapshot newSnapshot = new Snapshot(List.of(character("Known", "Holy", 2010L, 1L, 11L, 5L),
+            character("Unknown", "Holy", 1910L, 2L, null, 5L)), 2000L, "eu", "");
+        SnapshotDiff diff = calculateDiff(oldSnapshot, newSnapshot, "3v3", false);
+        assertEquals(1, diff.chars().size());
+        assertEquals(new Diff(1L, 0L, 10L, 0L, 2000L), diff.chars().getFirst().diff());
+        Snapshot unknownBefore = new Snapshot(List.of(character("Unknown", "Holy", 1920L, 2L, 12L, 5L)), 3000L, "eu",
+            "");
+        assertEquals(0, calculateDiff(newSnapshot, unknownBefore, "3v3", false).chars().size());
+    }
+
     private static final JsonObject THREE_V_THREE_DIFF = new JsonObject("{\"characters\":[{\"character\":{\"pos\":147,\"rating\":2843,\"in_cutoff\":true,\"name\":\"UnstoppÃ¡blÃ¨\",\"class\":\"Death Knight\",\"full_spec\":\"Unholy Death Knight\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Pandaren\",\"realm\":\"Kazzak\",\"wins\":132,\"losses\":72},\"diff\":{\"won\":9,\"lost\":4,\"rating_diff\":20,\"rank_diff\":-28,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":176,\"rating\":2823,\"in_cutoff\":true,\"name\":\"Santoron\",\"class\":\"Monk\",\"full_spec\":\"Mistweaver Monk\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Human\",\"realm\":\"Baelgun\",\"wins\":260,\"losses\":197},\"diff\":{\"won\":2,\"lost\":1,\"rating_diff\":13,\"rank_diff\":-17,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":184,\"rating\":2817,\"in_cutoff\":false,\"name\":\"Jagerdog\",\"class\":\"Druid\",\"full_spec\":\"Restoration Druid\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Archimonde\",\"wins\":196,\"losses\":138},\"diff\":{\"won\":2,\"lost\":2,\"rating_diff\":-4,\"rank_diff\":5,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":191,\"rating\":2813,\"in_cutoff\":false,\"name\":\"Buffnanen\",\"class\":\"Evoker\",\"full_spec\":\"Augmentation Evoker\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Dracthyr\",\"realm\":\"Blackmoore\",\"wins\":380,\"losses\":339},\"diff\":{\"won\":2,\"lost\":1,\"rating_diff\":14,\"rank_diff\":-15,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":199,\"rating\":2805,\"in_cutoff\":false,\"name\":\"Aligonext\",\"class\":\"Hunter\",\"full_spec\":\"Marksmanship Hunter\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Human\",\"realm\":\"Ravencrest\",\"wins\":283,\"losses\":260},\"diff\":{\"won\":1,\"lost\":0,\"rating_diff\":8,\"rank_diff\":-10,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":263,\"rating\":2761,\"in_cutoff\":false,\"name\":\"Orazur\",\"class\":\"Evoker\",\"full_spec\":\"Augmentation Evoker\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Dracthyr\",\"realm\":\"Hyjal\",\"wins\":364,\"losses\":315},\"diff\":{\"won\":1,\"lost\":2,\"rating_diff\":-10,\"rank_diff\":20,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":293,\"rating\":2738,\"in_cutoff\":false,\"name\":\"Futurmistake\",\"class\":\"Evoker\",\"full_spec\":\"Augmentation Evoker\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Dracthyr\",\"realm\":\"Archimonde\",\"wins\":305,\"losses\":230},\"diff\":{\"won\":1,\"lost\":0,\"rating_diff\":16,\"rank_diff\":-29,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":314,\"rating\":2725,\"in_cutoff\":false,\"name\":\"Ã\u008DllÃ¬Ã°Ã¥Ã±gÃ¸Ã°x\",\"class\":\"Demon Hunter\",\"full_spec\":\"Havoc Demon Hunter\",\"fraction\":\"ALLIANCE\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Twisting-nether\",\"wins\":212,\"losses\":89},\"diff\":{\"won\":2,\"lost\":1,\"rating_diff\":26,\"rank_diff\":-48,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":318,\"rating\":2724,\"in_cutoff\":false,\"name\":\"Drainerprime\",\"class\":\"Priest\",\"full_spec\":\"Holy Priest\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Undead\",\"realm\":\"Kazzak\",\"wins\":398,\"losses\":308},\"diff\":{\"won\":11,\"lost\":5,\"rating_diff\":69,\"rank_diff\":-110,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":336,\"rating\":2713,\"in_cutoff\":false,\"name\":\"Sponkas\",\"class\":\"Monk\",\"full_spec\":\"Windwalker Monk\",\"fraction\":\"ALLIANCE\",\"gender\":\"Male\",\"race\":\"Dark Iron Dwarf\",\"realm\":\"Tarren-mill\",\"wins\":168,\"losses\":100},\"diff\":{\"won\":9,\"lost\":4,\"rating_diff\":89,\"rank_diff\":-171,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":341,\"rating\":2711,\"in_cutoff\":false,\"name\":\"DarkwÃ\u00ADngduck\",\"class\":\"Warlock\",\"full_spec\":\"Destruction Warlock\",\"fraction\":\"Alliance\",\"gender\":\"Male\",\"race\":\"Dark Iron Dwarf\",\"realm\":\"Aegwynn\",\"wins\":166,\"losses\":92},\"diff\":{\"won\":0,\"lost\":2,\"rating_diff\":0,\"rank_diff\":2,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":363,\"rating\":2702,\"in_cutoff\":false,\"name\":\"WotlkmÃ¸nster\",\"class\":\"Death Knight\",\"full_spec\":\"Unholy Death Knight\",\"fraction\":\"Horde\",\"gender\":\"Male\",\"race\":\"Orc\",\"realm\":\"Eredar\",\"wins\":371,\"losses\":302},\"diff\":{\"won\":2,\"lost\":2,\"rating_diff\":22,\"rank_diff\":-27,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":391,\"rating\":2681,\"in_cutoff\":false,\"name\":\"Josef\",\"class\":\"Druid\",\"full_spec\":\"Restoration Druid\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Ravencrest\",\"wins\":133,\"losses\":95},\"diff\":{\"won\":4,\"lost\":8,\"rating_diff\":-63,\"rank_diff\":112,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":416,\"rating\":2663,\"in_cutoff\":false,\"name\":\"Aritrosp\",\"class\":\"Priest\",\"full_spec\":\"Shadow Priest\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Human\",\"realm\":\"Kargath\",\"wins\":336,\"losses\":265},\"diff\":{\"won\":0,\"lost\":2,\"rating_diff\":-17,\"rank_diff\":26,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":423,\"rating\":2659,\"in_cutoff\":false,\"name\":\"Gemmacollins\",\"class\":\"Warrior\",\"full_spec\":\"Arms Warrior\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Gnome\",\"realm\":\"Stormscale\",\"wins\":508,\"losses\":480},\"diff\":{\"won\":2,\"lost\":1,\"rating_diff\":6,\"rank_diff\":-8,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":423,\"rating\":2659,\"in_cutoff\":false,\"name\":\"Axdn\",\"class\":\"Shaman\",\"full_spec\":\"Enhancement Shaman\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Dark Iron Dwarf\",\"realm\":\"Ravencrest\",\"wins\":204,\"losses\":147},\"diff\":{\"won\":2,\"lost\":1,\"rating_diff\":6,\"rank_diff\":-8,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":434,\"rating\":2653,\"in_cutoff\":false,\"name\":\"Snkyexpress\",\"class\":\"Druid\",\"full_spec\":\"Feral Druid\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Aegwynn\",\"wins\":877,\"losses\":757},\"diff\":{\"won\":11,\"lost\":5,\"rating_diff\":120,\"rank_diff\":-463,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":450,\"rating\":2646,\"in_cutoff\":false,\"name\":\"Eyuh\",\"class\":\"Shaman\",\"full_spec\":\"Elemental Shaman\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Dark Iron Dwarf\",\"realm\":\"Kazzak\",\"wins\":103,\"losses\":59},\"diff\":{\"won\":7,\"lost\":2,\"rating_diff\":-33,\"rank_diff\":55,\"timestamp\":1697302835946,\"last_seen\":\"5 hours ago\"}},{\"character\":{\"pos\":466,\"rating\":2640,\"in_cutoff\":false,\"name\":\"ChÃ¸capic\",\"class\":\"Mage\",\"full_spec\":\"Fire Mage\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Suramar\",\"wins\":162,\"losses\":137},\"diff\":{\"won\":6,\"lost\":8,\"rating_diff\":-2,\"rank_diff\":6,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":483,\"rating\":2632,\"in_cutoff\":false,\"name\":\"VarimÃ¤\",\"class\":\"Hunter\",\"full_spec\":\"Marksmanship Hunter\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Orc\",\"realm\":\"Ravencrest\",\"wins\":107,\"losses\":79},\"diff\":{\"won\":11,\"lost\":5,\"rating_diff\":144,\"rank_diff\":-691,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":484,\"rating\":2631,\"in_cutoff\":false,\"name\":\"Olliek\",\"class\":\"Paladin\",\"full_spec\":\"Holy Paladin\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Human\",\"realm\":\"Ravencrest\",\"wins\":155,\"losses\":125},\"diff\":{\"won\":2,\"lost\":1,\"rating_diff\":8,\"rank_diff\":-29,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":490,\"rating\":2629,\"in_cutoff\":false,\"name\":\"Ð”Ñ\u008DÐ¼Ð´ÑƒÐµÑ€\",\"class\":\"Warrior\",\"full_spec\":\"Arms Warrior\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Orc\",\"realm\":\"Soulflayer\",\"wins\":219,\"losses\":169},\"diff\":{\"won\":4,\"lost\":7,\"rating_diff\":-18,\"rank_diff\":42,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":519,\"rating\":2622,\"in_cutoff\":false,\"name\":\"Zaeli\",\"class\":\"Druid\",\"full_spec\":\"Restoration Druid\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Archimonde\",\"wins\":183,\"losses\":121},\"diff\":{\"won\":6,\"lost\":0,\"rating_diff\":20,\"rank_diff\":-64,\"timestamp\":1697302835946,\"last_seen\":\"5 hours ago\"}},{\"character\":{\"pos\":516,\"rating\":2621,\"in_cutoff\":false,\"name\":\"Baldcreep\",\"class\":\"Shaman\",\"full_spec\":\"Elemental Shaman\",\"fraction\":\"Alliance\",\"gender\":\"Male\",\"race\":\"Dwarf\",\"realm\":\"Blackrock\",\"wins\":269,\"losses\":230},\"diff\":{\"won\":4,\"lost\":7,\"rating_diff\":-17,\"rank_diff\":44,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":522,\"rating\":2619,\"in_cutoff\":false,\"name\":\"Turtleform\",\"class\":\"Druid\",\"full_spec\":\"Balance Druid\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Blackrock\",\"wins\":150,\"losses\":117},\"diff\":{\"won\":1,\"lost\":2,\"rating_diff\":-17,\"rank_diff\":46,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":524,\"rating\":2618,\"in_cutoff\":false,\"name\":\"Whazfanboi\",\"class\":\"Shaman\",\"full_spec\":\"Restoration Shaman\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Orc\",\"realm\":\"Kazzak\",\"wins\":144,\"losses\":96},\"diff\":{\"won\":6,\"lost\":2,\"rating_diff\":19,\"rank_diff\":-76,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":553,\"rating\":2609,\"in_cutoff\":false,\"name\":\"Imperfection\",\"class\":\"Warlock\",\"full_spec\":\"Affliction Warlock\",\"fraction\":\"Horde\",\"gender\":\"Male\",\"race\":\"Undead\",\"realm\":\"Blackrock\",\"wins\":104,\"losses\":74},\"diff\":{\"won\":1,\"lost\":2,\"rating_diff\":-15,\"rank_diff\":46,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":574,\"rating\":2605,\"in_cutoff\":false,\"name\":\"Wristflex\",\"class\":\"Hunter\",\"full_spec\":\"Marksmanship Hunter\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Troll\",\"realm\":\"Kazzak\",\"wins\":1127,\"losses\":965},\"diff\":{\"won\":5,\"lost\":3,\"rating_diff\":-24,\"rank_diff\":83,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":577,\"rating\":2604,\"in_cutoff\":false,\"name\":\"Undercover\",\"class\":\"Druid\",\"full_spec\":\"Restoration Druid\",\"fraction\":\"ALLIANCE\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Dun-modr\",\"wins\":120,\"losses\":69},\"diff\":{\"won\":4,\"lost\":1,\"rating_diff\":46,\"rank_diff\":-191,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":582,\"rating\":2602,\"in_cutoff\":false,\"name\":\"Notadvanced\",\"class\":\"Evoker\",\"full_spec\":\"Augmentation Evoker\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Dracthyr\",\"realm\":\"Draenor\",\"wins\":490,\"losses\":405},\"diff\":{\"won\":8,\"lost\":5,\"rating_diff\":14,\"rank_diff\":-49,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":602,\"rating\":2599,\"in_cutoff\":false,\"name\":\"JoÃ£ocancelo\",\"class\":\"Priest\",\"full_spec\":\"Holy Priest\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Archimonde\",\"wins\":72,\"losses\":55},\"diff\":{\"won\":6,\"lost\":8,\"rating_diff\":39,\"rank_diff\":-152,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":602,\"rating\":2599,\"in_cutoff\":false,\"name\":\"Vdgg\",\"class\":\"Rogue\",\"full_spec\":\"Subtlety Rogue\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Orc\",\"realm\":\"Ravencrest\",\"wins\":443,\"losses\":413},\"diff\":{\"won\":2,\"lost\":6,\"rating_diff\":-36,\"rank_diff\":122,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":602,\"rating\":2599,\"in_cutoff\":false,\"name\":\"Larryenticer\",\"class\":\"Rogue\",\"full_spec\":\"Subtlety Rogue\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Rashgarroth\",\"wins\":89,\"losses\":52},\"diff\":{\"won\":6,\"lost\":8,\"rating_diff\":39,\"rank_diff\":-152,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":602,\"rating\":2599,\"in_cutoff\":false,\"name\":\"Edatingdawg\",\"class\":\"Warrior\",\"full_spec\":\"Arms Warrior\",\"fraction\":\"Horde\",\"gender\":\"Male\",\"race\":\"Orc\",\"realm\":\"Kazzak\",\"wins\":253,\"losses\":177},\"diff\":{\"won\":6,\"lost\":3,\"rating_diff\":11,\"rank_diff\":-29,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":604,\"rating\":2597,\"in_cutoff\":false,\"name\":\"ManselitÃ³\",\"class\":\"Druid\",\"full_spec\":\"Restoration Druid\",\"fraction\":\"Horde\",\"gender\":\"Male\",\"race\":\"Tauren\",\"realm\":\"Archimonde\",\"wins\":407,\"losses\":272},\"diff\":{\"won\":0,\"lost\":7,\"rating_diff\":-168,\"rank_diff\":354,\"timestamp\":1697302835946,\"last_seen\":\"5 hours ago\"}},{\"character\":{\"pos\":614,\"rating\":2594,\"in_cutoff\":false,\"name\":\"Maltauren\",\"class\":\"Paladin\",\"full_spec\":\"Retribution Paladin\",\"fraction\":\"Horde\",\"gender\":\"Male\",\"race\":\"Tauren\",\"realm\":\"Nemesis\",\"wins\":306,\"losses\":216},\"diff\":{\"won\":9,\"lost\":5,\"rating_diff\":31,\"rank_diff\":-129,\"timestamp\":1697302835946,\"last_seen\":\"5 hours ago\"}},{\"character\":{\"pos\":627,\"rating\":2591,\"in_cutoff\":false,\"name\":\"Craneisback\",\"class\":\"Monk\",\"full_spec\":\"Mistweaver Monk\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Dwarf\",\"realm\":\"Archimonde\",\"wins\":360,\"losses\":300},\"diff\":{\"won\":8,\"lost\":5,\"rating_diff\":23,\"rank_diff\":-88,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":636,\"rating\":2588,\"in_cutoff\":false,\"name\":\"Buddiline\",\"class\":\"Monk\",\"full_spec\":\"Mistweaver Monk\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Orc\",\"realm\":\"Baelgun\",\"wins\":281,\"losses\":201},\"diff\":{\"won\":1,\"lost\":1,\"rating_diff\":-16,\"rank_diff\":60,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":644,\"rating\":2586,\"in_cutoff\":false,\"name\":\"FlÃºrrÃ½\",\"class\":\"Death Knight\",\"full_spec\":\"Frost Death Knight\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Orc\",\"realm\":\"Kazzak\",\"wins\":296,\"losses\":244},\"diff\":{\"won\":9,\"lost\":5,\"rating_diff\":37,\"rank_diff\":-172,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":644,\"rating\":2586,\"in_cutoff\":false,\"name\":\"Oschmurlmurl\",\"class\":\"Druid\",\"full_spec\":\"Restoration Druid\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Blackmoore\",\"wins\":218,\"losses\":156},\"diff\":{\"won\":4,\"lost\":7,\"rating_diff\":8,\"rank_diff\":-25,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":653,\"rating\":2584,\"in_cutoff\":false,\"name\":\"Neopronouns\",\"class\":\"Paladin\",\"full_spec\":\"Protection Paladin\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Dark Iron Dwarf\",\"realm\":\"Minahonda\",\"wins\":84,\"losses\":34},\"diff\":{\"won\":8,\"lost\":3,\"rating_diff\":-3,\"rank_diff\":16,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":660,\"rating\":2581,\"in_cutoff\":false,\"name\":\"UnsÃ¢intly\",\"class\":\"Mage\",\"full_spec\":\"Frost Mage\",\"fraction\":\"ALLIANCE\",\"gender\":\"Female\",\"race\":\"Human\",\"realm\":\"Kult-der-verdammten\",\"wins\":202,\"losses\":169},\"diff\":{\"won\":5,\"lost\":2,\"rating_diff\":45,\"rank_diff\":-225,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":676,\"rating\":2578,\"in_cutoff\":false,\"name\":\"Invade\",\"class\":\"Shaman\",\"full_spec\":\"Restoration Shaman\",\"fraction\":\"HORDE\",\"gender\":\"Female\",\"race\":\"Orc\",\"realm\":\"Shattered-hand\",\"wins\":103,\"losses\":74},\"diff\":{\"won\":5,\"lost\":2,\"rating_diff\":45,\"rank_diff\":-221,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":678,\"rating\":2577,\"in_cutoff\":false,\"name\":\"Melbysprime\",\"class\":\"Druid\",\"full_spec\":\"Balance Druid\",\"fraction\":\"ALLIANCE\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Tarren-mill\",\"wins\":431,\"losses\":242},\"diff\":{\"won\":2,\"lost\":2,\"rating_diff\":-45,\"rank_diff\":158,\"timestamp\":1697302835946,\"last_seen\":\"5 hours ago\"}},{\"character\":{\"pos\":685,\"rating\":2577,\"in_cutoff\":false,\"name\":\"Jamuhlee\",\"class\":\"Warlock\",\"full_spec\":\"Destruction Warlock\",\"fraction\":\"ALLIANCE\",\"gender\":\"Female\",\"race\":\"Human\",\"realm\":\"Der-abyssische-rat\",\"wins\":198,\"losses\":158},\"diff\":{\"won\":5,\"lost\":2,\"rating_diff\":45,\"rank_diff\":-218,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":718,\"rating\":2570,\"in_cutoff\":false,\"name\":\"Kirou\",\"class\":\"Mage\",\"full_spec\":\"Arcane Mage\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Orc\",\"realm\":\"Ravencrest\",\"wins\":208,\"losses\":135},\"diff\":{\"won\":2,\"lost\":1,\"rating_diff\":35,\"rank_diff\":-171,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":735,\"rating\":2565,\"in_cutoff\":false,\"name\":\"Onlymemespec\",\"class\":\"Shaman\",\"full_spec\":\"Elemental Shaman\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Dwarf\",\"realm\":\"Ravencrest\",\"wins\":203,\"losses\":151},\"diff\":{\"won\":5,\"lost\":2,\"rating_diff\":6,\"rank_diff\":-28,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":756,\"rating\":2561,\"in_cutoff\":false,\"name\":\"Abruaa\",\"class\":\"Mage\",\"full_spec\":\"Arcane Mage\",\"fraction\":\"ALLIANCE\",\"gender\":\"Male\",\"race\":\"Night Elf\",\"realm\":\"Tarren-mill\",\"wins\":556,\"losses\":497},\"diff\":{\"won\":2,\"lost\":6,\"rating_diff\":-30,\"rank_diff\":134,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":768,\"rating\":2559,\"in_cutoff\":false,\"name\":\"Ã‚ligÃ©\",\"class\":\"Priest\",\"full_spec\":\"Holy Priest\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Outland\",\"wins\":376,\"losses\":349},\"diff\":{\"won\":9,\"lost\":5,\"rating_diff\":59,\"rank_diff\":-333,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":778,\"rating\":2557,\"in_cutoff\":false,\"name\":\"EuphorÃ\u00ADa\",\"class\":\"Priest\",\"full_spec\":\"Holy Priest\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Undead\",\"realm\":\"Ravencrest\",\"wins\":134,\"losses\":116},\"diff\":{\"won\":8,\"lost\":7,\"rating_diff\":-1,\"rank_diff\":10,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":781,\"rating\":2556,\"in_cutoff\":false,\"name\":\"LÃºh\",\"class\":\"Druid\",\"full_spec\":\"Restoration Druid\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Kazzak\",\"wins\":112,\"losses\":90},\"diff\":{\"won\":10,\"lost\":4,\"rating_diff\":84,\"rank_diff\":-474,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":859,\"rating\":2544,\"in_cutoff\":false,\"name\":\"Doudou\",\"class\":\"Druid\",\"full_spec\":\"Feral Druid\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Alakir\",\"wins\":108,\"losses\":74},\"diff\":{\"won\":4,\"lost\":2,\"rating_diff\":28,\"rank_diff\":-134,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":858,\"rating\":2543,\"in_cutoff\":false,\"name\":\"Ã‰ddiÃ¨\",\"class\":\"Mage\",\"full_spec\":\"Arcane Mage\",\"fraction\":\"Horde\",\"gender\":\"Male\",\"race\":\"Tauren\",\"realm\":\"Ravencrest\",\"wins\":142,\"losses\":104},\"diff\":{\"won\":0,\"lost\":1,\"rating_diff\":-12,\"rank_diff\":71,\"timestamp\":1697302835946,\"last_seen\":\"5 hours ago\"}},{\"character\":{\"pos\":871,\"rating\":2542,\"in_cutoff\":false,\"name\":\"NÃ laa\",\"class\":\"Rogue\",\"full_spec\":\"Subtlety Rogue\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Ravencrest\",\"wins\":396,\"losses\":353},\"diff\":{\"won\":2,\"lost\":1,\"rating_diff\":36,\"rank_diff\":-188,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":879,\"rating\":2539,\"in_cutoff\":false,\"name\":\"Whamstring\",\"class\":\"Warrior\",\"full_spec\":\"Arms Warrior\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Gnome\",\"realm\":\"Ravencrest\",\"wins\":169,\"losses\":111},\"diff\":{\"won\":14,\"lost\":1,\"rating_diff\":31,\"rank_diff\":-162,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":922,\"rating\":2527,\"in_cutoff\":false,\"name\":\"Aieandragon\",\"class\":\"Evoker\",\"full_spec\":\"Augmentation Evoker\",\"fraction\":\"ALLIANCE\",\"gender\":\"Female\",\"race\":\"Dracthyr\",\"realm\":\"Argent-dawn\",\"wins\":400,\"losses\":302},\"diff\":{\"won\":12,\"lost\":12,\"rating_diff\":-40,\"rank_diff\":198,\"timestamp\":1697302835946,\"last_seen\":\"5 hours ago\"}},{\"character\":{\"pos\":923,\"rating\":2527,\"in_cutoff\":false,\"name\":\"Haynedru\",\"class\":\"Druid\",\"full_spec\":\"Restoration Druid\",\"fraction\":\"Alliance\",\"gender\":\"Male\",\"race\":\"Night Elf\",\"realm\":\"Archimonde\",\"wins\":159,\"losses\":104},\"diff\":{\"won\":0,\"lost\":3,\"rating_diff\":-49,\"rank_diff\":238,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":977,\"rating\":2519,\"in_cutoff\":false,\"name\":\"Awon\",\"class\":\"Warrior\",\"full_spec\":\"Arms Warrior\",\"fraction\":\"Horde\",\"gender\":\"Male\",\"race\":\"Orc\",\"realm\":\"Todeswache\",\"wins\":143,\"losses\":107},\"diff\":{\"won\":10,\"lost\":7,\"rating_diff\":41,\"rank_diff\":-251,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":984,\"rating\":2518,\"in_cutoff\":false,\"name\":\"Stevou\",\"class\":\"Druid\",\"full_spec\":\"Balance Druid\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Dentarg\",\"wins\":216,\"losses\":174},\"diff\":{\"won\":2,\"lost\":0,\"rating_diff\":27,\"rank_diff\":-163,\"timestamp\":1697302835946,\"last_seen\":\"5 hours ago\"}},{\"character\":{\"pos\":991,\"rating\":2517,\"in_cutoff\":false,\"name\":\"SÃ»pÃ¦rjÃªt\",\"class\":\"Paladin\",\"full_spec\":\"Holy Paladin\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Human\",\"realm\":\"Ravencrest\",\"wins\":224,\"losses\":219},\"diff\":{\"won\":4,\"lost\":4,\"rating_diff\":-16,\"rank_diff\":94,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1001,\"rating\":2515,\"in_cutoff\":false,\"name\":\"Draenortimes\",\"class\":\"Warrior\",\"full_spec\":\"Arms Warrior\",\"fraction\":\"Alliance\",\"gender\":\"Male\",\"race\":\"Gnome\",\"realm\":\"Ravencrest\",\"wins\":142,\"losses\":89},\"diff\":{\"won\":18,\"lost\":11,\"rating_diff\":-68,\"rank_diff\":351,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1009,\"rating\":2514,\"in_cutoff\":false,\"name\":\"PlÃ¥nck\",\"class\":\"Monk\",\"full_spec\":\"Windwalker Monk\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Dark Iron Dwarf\",\"realm\":\"Archimonde\",\"wins\":144,\"losses\":122},\"diff\":{\"won\":0,\"lost\":3,\"rating_diff\":-48,\"rank_diff\":263,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1042,\"rating\":2508,\"in_cutoff\":false,\"name\":\"Monfisbad\",\"class\":\"Rogue\",\"full_spec\":\"Subtlety Rogue\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Orc\",\"realm\":\"Draenor\",\"wins\":542,\"losses\":504},\"diff\":{\"won\":10,\"lost\":11,\"rating_diff\":-132,\"rank_diff\":576,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1059,\"rating\":2506,\"in_cutoff\":false,\"name\":\"ÐœÐµÐ´Ð¸Ð²ÐµÑ€Ð°\",\"class\":\"Mage\",\"full_spec\":\"Fire Mage\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Human\",\"realm\":\"Gordunni\",\"wins\":468,\"losses\":407},\"diff\":{\"won\":0,\"lost\":2,\"rating_diff\":-38,\"rank_diff\":202,\"timestamp\":1697302835946,\"last_seen\":\"5 hours ago\"}},{\"character\":{\"pos\":1059,\"rating\":2506,\"in_cutoff\":false,\"name\":\"VÃ¡sky\",\"class\":\"Priest\",\"full_spec\":\"Holy Priest\",\"fraction\":\"Horde\",\"gender\":\"Male\",\"race\":\"Undead\",\"realm\":\"Ravencrest\",\"wins\":320,\"losses\":304},\"diff\":{\"won\":3,\"lost\":4,\"rating_diff\":-1,\"rank_diff\":12,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1087,\"rating\":2502,\"in_cutoff\":false,\"name\":\"Cilielf\",\"class\":\"Mage\",\"full_spec\":\"Fire Mage\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Ravencrest\",\"wins\":498,\"losses\":476},\"diff\":{\"won\":3,\"lost\":4,\"rating_diff\":-1,\"rank_diff\":6,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1109,\"rating\":2498,\"in_cutoff\":false,\"name\":\"RetbÃ¹ll\",\"class\":\"Paladin\",\"full_spec\":\"Retribution Paladin\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Tauren\",\"realm\":\"Stormscale\",\"wins\":854,\"losses\":612},\"diff\":{\"won\":10,\"lost\":7,\"rating_diff\":55,\"rank_diff\":-361,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1122,\"rating\":2496,\"in_cutoff\":false,\"name\":\"KharanÃ´ss\",\"class\":\"Druid\",\"full_spec\":\"Restoration Druid\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Tyrande\",\"wins\":100,\"losses\":68},\"diff\":{\"won\":12,\"lost\":2,\"rating_diff\":-42,\"rank_diff\":247,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1122,\"rating\":2496,\"in_cutoff\":false,\"name\":\"Maybeex\",\"class\":\"Rogue\",\"full_spec\":\"Assassination Rogue\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Aegwynn\",\"wins\":160,\"losses\":167},\"diff\":{\"won\":3,\"lost\":4,\"rating_diff\":1,\"rank_diff\":-6,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1138,\"rating\":2493,\"in_cutoff\":false,\"name\":\"Ð Ð¸Ð²Ð°Ð»Ð³Ð¾Ð´Ñ…\",\"class\":\"Evoker\",\"full_spec\":\"Preservation Evoker\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Dracthyr\",\"realm\":\"Blackscar\",\"wins\":136,\"losses\":98},\"diff\":{\"won\":9,\"lost\":6,\"rating_diff\":46,\"rank_diff\":-295,\"timestamp\":1697302835946,\"last_seen\":\"5 hours ago\"}},{\"character\":{\"pos\":1138,\"rating\":2493,\"in_cutoff\":false,\"name\":\"ÐŸÐ¸Ð²Ð½Ð¾Ð¹Ñ€Ñ‹Ð³Ð°Ð½\",\"class\":\"Monk\",\"full_spec\":\"Windwalker Monk\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Orc\",\"realm\":\"Soulflayer\",\"wins\":281,\"losses\":231},\"diff\":{\"won\":9,\"lost\":6,\"rating_diff\":46,\"rank_diff\":-295,\"timestamp\":1697302835946,\"last_seen\":\"5 hours ago\"}},{\"character\":{\"pos\":1138,\"rating\":2493,\"in_cutoff\":false,\"name\":\"Enrageincap\",\"class\":\"Priest\",\"full_spec\":\"Holy Priest\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Ravencrest\",\"wins\":291,\"losses\":195},\"diff\":{\"won\":9,\"lost\":6,\"rating_diff\":46,\"rank_diff\":-295,\"timestamp\":1697302835946,\"last_seen\":\"5 hours ago\"}},{\"character\":{\"pos\":1140,\"rating\":2493,\"in_cutoff\":false,\"name\":\"AvdÃ¸dx\",\"class\":\"Paladin\",\"full_spec\":\"Holy Paladin\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Blood Elf\",\"realm\":\"Outland\",\"wins\":190,\"losses\":146},\"diff\":{\"won\":13,\"lost\":10,\"rating_diff\":-26,\"rank_diff\":164,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1162,\"rating\":2490,\"in_cutoff\":false,\"name\":\"Rexerection\",\"class\":\"Evoker\",\"full_spec\":\"Augmentation Evoker\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Dracthyr\",\"realm\":\"Silvermoon\",\"wins\":190,\"losses\":136},\"diff\":{\"won\":3,\"lost\":0,\"rating_diff\":23,\"rank_diff\":-137,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1163,\"rating\":2489,\"in_cutoff\":false,\"name\":\"Hayne\",\"class\":\"Warrior\",\"full_spec\":\"Arms Warrior\",\"fraction\":\"Alliance\",\"gender\":\"Male\",\"race\":\"Gnome\",\"realm\":\"Archimonde\",\"wins\":175,\"losses\":141},\"diff\":{\"won\":6,\"lost\":2,\"rating_diff\":31,\"rank_diff\":-180,\"timestamp\":1697302835946,\"last_seen\":\"5 hours ago\"}},{\"character\":{\"pos\":1167,\"rating\":2489,\"in_cutoff\":false,\"name\":\"Ethryl\",\"class\":\"Druid\",\"full_spec\":\"Feral Druid\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Ravencrest\",\"wins\":335,\"losses\":361},\"diff\":{\"won\":8,\"lost\":7,\"rating_diff\":15,\"rank_diff\":-81,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1179,\"rating\":2488,\"in_cutoff\":false,\"name\":\"ÐœÐ½ÐµÑˆÐ¸Ð¿\",\"class\":\"Mage\",\"full_spec\":\"Fire Mage\",\"fraction\":\"Alliance\",\"gender\":\"Male\",\"race\":\"Human\",\"realm\":\"Gordunni\",\"wins\":303,\"losses\":288},\"diff\":{\"won\":14,\"lost\":11,\"rating_diff\":82,\"rank_diff\":-549,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1183,\"rating\":2487,\"in_cutoff\":false,\"name\":\"Kishoengi\",\"class\":\"Priest\",\"full_spec\":\"Shadow Priest\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Ravencrest\",\"wins\":854,\"losses\":700},\"diff\":{\"won\":8,\"lost\":7,\"rating_diff\":16,\"rank_diff\":-81,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1211,\"rating\":2481,\"in_cutoff\":false,\"name\":\"TerÃ\u00ADyaki\",\"class\":\"Priest\",\"full_spec\":\"Shadow Priest\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Pandaren\",\"realm\":\"Blackrock\",\"wins\":350,\"losses\":312},\"diff\":{\"won\":10,\"lost\":8,\"rating_diff\":48,\"rank_diff\":-327,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1219,\"rating\":2480,\"in_cutoff\":false,\"name\":\"Hotts\",\"class\":\"Druid\",\"full_spec\":\"Restoration Druid\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Ahnqiraj\",\"wins\":161,\"losses\":129},\"diff\":{\"won\":0,\"lost\":1,\"rating_diff\":0,\"rank_diff\":6,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1236,\"rating\":2478,\"in_cutoff\":false,\"name\":\"Ð’Ð°ÐºÐ°Ñ€Ð¸Ð¸Ñ\u008F\",\"class\":\"Priest\",\"full_spec\":\"Holy Priest\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Undead\",\"realm\":\"Soulflayer\",\"wins\":661,\"losses\":631},\"diff\":{\"won\":14,\"lost\":11,\"rating_diff\":89,\"rank_diff\":-620,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1242,\"rating\":2477,\"in_cutoff\":false,\"name\":\"Bosslikex\",\"class\":\"Shaman\",\"full_spec\":\"Elemental Shaman\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Dwarf\",\"realm\":\"Ravencrest\",\"wins\":326,\"losses\":272},\"diff\":{\"won\":10,\"lost\":3,\"rating_diff\":106,\"rank_diff\":-720,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1242,\"rating\":2477,\"in_cutoff\":false,\"name\":\"TiÃ¤n\",\"class\":\"Warrior\",\"full_spec\":\"Arms Warrior\",\"fraction\":\"Alliance\",\"gender\":\"Male\",\"race\":\"Dark Iron Dwarf\",\"realm\":\"Ravencrest\",\"wins\":297,\"losses\":257},\"diff\":{\"won\":10,\"lost\":3,\"rating_diff\":106,\"rank_diff\":-720,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1251,\"rating\":2476,\"in_cutoff\":false,\"name\":\"Biggestpass\",\"class\":\"Priest\",\"full_spec\":\"Discipline Priest\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Undead\",\"realm\":\"Kazzak\",\"wins\":603,\"losses\":542},\"diff\":{\"won\":8,\"lost\":7,\"rating_diff\":-87,\"rank_diff\":511,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1256,\"rating\":2475,\"in_cutoff\":false,\"name\":\"Ã†riÃ¸voker\",\"class\":\"Evoker\",\"full_spec\":\"Augmentation Evoker\",\"fraction\":\"Alliance\",\"gender\":\"Male\",\"race\":\"Dracthyr\",\"realm\":\"Archimonde\",\"wins\":246,\"losses\":181},\"diff\":{\"won\":4,\"lost\":2,\"rating_diff\":44,\"rank_diff\":-300,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1269,\"rating\":2472,\"in_cutoff\":false,\"name\":\"BroÃ§Ã§oli\",\"class\":\"Druid\",\"full_spec\":\"Restoration Druid\",\"fraction\":\"Alliance\",\"gender\":\"Male\",\"race\":\"Night Elf\",\"realm\":\"Draenor\",\"wins\":216,\"losses\":181},\"diff\":{\"won\":12,\"lost\":6,\"rating_diff\":89,\"rank_diff\":-624,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1278,\"rating\":2471,\"in_cutoff\":false,\"name\":\"Stavo\",\"class\":\"Shaman\",\"full_spec\":\"Elemental Shaman\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Dwarf\",\"realm\":\"Ravencrest\",\"wins\":218,\"losses\":140},\"diff\":{\"won\":14,\"lost\":1,\"rating_diff\":90,\"rank_diff\":-626,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1317,\"rating\":2464,\"in_cutoff\":false,\"name\":\"BÃ²zÃ²\",\"class\":\"Druid\",\"full_spec\":\"Restoration Druid\",\"fraction\":\"Alliance\",\"gender\":\"Male\",\"race\":\"Night Elf\",\"realm\":\"Ravencrest\",\"wins\":413,\"losses\":282},\"diff\":{\"won\":7,\"lost\":2,\"rating_diff\":38,\"rank_diff\":-268,\"timestamp\":1697302835946,\"last_seen\":\"5 hours ago\"}},{\"character\":{\"pos\":1335,\"rating\":2463,\"in_cutoff\":false,\"name\":\"ShÃ¥mssagat\",\"class\":\"Shaman\",\"full_spec\":\"Elemental Shaman\",\"fraction\":\"Alliance\",\"gender\":\"Male\",\"race\":\"Dark Iron Dwarf\",\"realm\":\"Kazzak\",\"wins\":148,\"losses\":95},\"diff\":{\"won\":12,\"lost\":2,\"rating_diff\":-25,\"rank_diff\":161,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1335,\"rating\":2463,\"in_cutoff\":false,\"name\":\"Bullhoezerx\",\"class\":\"Druid\",\"full_spec\":\"Feral Druid\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Silvermoon\",\"wins\":516,\"losses\":515},\"diff\":{\"won\":1,\"lost\":1,\"rating_diff\":-3,\"rank_diff\":31,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1356,\"rating\":2456,\"in_cutoff\":false,\"name\":\"Hordophobe\",\"class\":\"Druid\",\"full_spec\":\"Restoration Druid\",\"fraction\":\"Alliance\",\"gender\":\"Male\",\"race\":\"Night Elf\",\"realm\":\"Silvermoon\",\"wins\":157,\"losses\":131},\"diff\":{\"won\":5,\"lost\":2,\"rating_diff\":31,\"rank_diff\":-233,\"timestamp\":1697302835946,\"last_seen\":\"5 hours ago\"}},{\"character\":{\"pos\":1365,\"rating\":2455,\"in_cutoff\":false,\"name\":\"Miscodedh\",\"class\":\"Demon Hunter\",\"full_spec\":\"Havoc Demon Hunter\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Night Elf\",\"realm\":\"Ravencrest\",\"wins\":116,\"losses\":68},\"diff\":{\"won\":7,\"lost\":0,\"rating_diff\":94,\"rank_diff\":-665,\"timestamp\":1697302835946,\"last_seen\":\"5 hours ago\"}},{\"character\":{\"pos\":1391,\"rating\":2453,\"in_cutoff\":false,\"name\":\"Ð¢Ð°Ð¹Ð»ÑƒÐ½Ð³\",\"class\":\"Monk\",\"full_spec\":\"Windwalker Monk\",\"fraction\":\"Alliance\",\"gender\":\"Male\",\"race\":\"Night Elf\",\"realm\":\"Deepholm\",\"wins\":129,\"losses\":77},\"diff\":{\"won\":8,\"lost\":11,\"rating_diff\":53,\"rank_diff\":-402,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1412,\"rating\":2451,\"in_cutoff\":false,\"name\":\"Wreniwreni\",\"class\":\"Priest\",\"full_spec\":\"Holy Priest\",\"fraction\":\"Horde\",\"gender\":\"Male\",\"race\":\"Undead\",\"realm\":\"Stormscale\",\"wins\":172,\"losses\":153},\"diff\":{\"won\":5,\"lost\":3,\"rating_diff\":31,\"rank_diff\":-208,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1410,\"rating\":2450,\"in_cutoff\":false,\"name\":\"Zorgisback\",\"class\":\"Hunter\",\"full_spec\":\"Marksmanship Hunter\",\"fraction\":\"Horde\",\"gender\":\"Male\",\"race\":\"Orc\",\"realm\":\"Hyjal\",\"wins\":402,\"losses\":364},\"diff\":{\"won\":8,\"lost\":7,\"rating_diff\":42,\"rank_diff\":-304,\"timestamp\":1697302835946,\"last_seen\":\"5 hours ago\"}},{\"character\":{\"pos\":1423,\"rating\":2450,\"in_cutoff\":false,\"name\":\"EnÃ¬ram\",\"class\":\"Priest\",\"full_spec\":\"Discipline Priest\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Blood Elf\",\"realm\":\"Archimonde\",\"wins\":185,\"losses\":148},\"diff\":{\"won\":5,\"lost\":5,\"rating_diff\":4,\"rank_diff\":-22,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1410,\"rating\":2450,\"in_cutoff\":false,\"name\":\"Ð¥Ð¾Ð»Ð¸Ñ…Ð¾Ð»Ð¸Ð¸\",\"class\":\"Priest\",\"full_spec\":\"Holy Priest\",\"fraction\":\"Alliance\",\"gender\":\"Female\",\"race\":\"Gnome\",\"realm\":\"Soulflayer\",\"wins\":305,\"losses\":249},\"diff\":{\"won\":8,\"lost\":7,\"rating_diff\":42,\"rank_diff\":-304,\"timestamp\":1697302835946,\"last_seen\":\"5 hours ago\"}},{\"character\":{\"pos\":1433,\"rating\":2449,\"in_cutoff\":false,\"name\":\"Ð”Ñ€Ð°Ð³Ð¾Ð½Ð»Ð¸Ð½ÐºÑ\u0081\",\"class\":\"Evoker\",\"full_spec\":\"Augmentation Evoker\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Dracthyr\",\"realm\":\"Soulflayer\",\"wins\":171,\"losses\":147},\"diff\":{\"won\":1,\"lost\":1,\"rating_diff\":-3,\"rank_diff\":43,\"timestamp\":1697313621467,\"last_seen\":\"2 hours ago\"}},{\"character\":{\"pos\":1434,\"rating\":2448,\"in_cutoff\":false,\"name\":\"Jxicewrld\",\"class\":\"Evoker\",\"full_spec\":\"Augmentation Evoker\",\"fraction\":\"Horde\",\"gender\":\"Female\",\"race\":\"Dracthyr\",\"realm\":\"Thrall\",\"wins\":136,\"losses\":116},\"diff\":{\"won\":11,\"lost\":8,\"rating_diff\":37,\"rank_diff\":-255,\"timestamp\":1697302835946,\"last_seen\":\"5 hours ago\"}},{\"character\":{\"pos\":1434,\"rating\":2448,\"in_cutoff\":false,\"name\":\"Gladiadk\",\"class\":\"Death Knight\",\"full_spec\":\"Unholy Death Knight\",\"fraction\":\"Horde\",\"gender\":\"Male\",\"race\":\"Orc\",\"realm\":\"Ysondre\",\"wins\":411,\"losses\":358},\"diff\":{\"won\":8,\"lost\":7,\"rating_diff\":43,\"rank_diff\":-306,\"timestamp\":1697302835946,\"last_seen\":\"5 hours ago\"}}],\"timestamp\":1697313621467,\"page\":1,\"total_pages\":4,\"last_seen\":\"2 hours ago\"}");
 }
@@ -0,0 +1,208 @@
+package io.github.sammers.pla.logic;
+
+import io.github.sammers.pla.blizzard.Achievements;
+import io.github.sammers.pla.blizzard.CharacterCodec;
+import io.github.sammers.pla.blizzard.CharacterMedia;
+import io.github.sammers.pla.blizzard.WowAPICharacter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CharacterSegmentStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private static WowAPICharacter character(long id, String name, long lastUpdated) {
+        return new WowAPICharacter(id, false, name, "Kazzak", "Female", "Horde", "Undead", "Holy", 80, "Priest", 620,
+            "eu", List.of(), lastUpdated, Achievements.fromJson(null), 12345, CharacterMedia.fromJson(null),
+            "talents-" + name, List.of(), Set.of(1L));
+    }
+
+    private static void assertRecord(WowAPICharacter expected, CharacterSegmentStore store) {
+        assertEquals(expected.toJson(), CharacterCodec.decode(store.get(expected.id())).toJson());
+    }
+
+    private void corrupt(long offset, byte... bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir.resolve("characters.seg"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), offset);
+        }
+    }
+
+    @Test
+    public void testReplay() {
+        CharacterSegmentStore store = CharacterSegmentStore.open(dir, 16);
+        WowAPICharacter first = character(1L, "First", 1000L);
+        WowAPICharacter second = character(2L, "Second", 2000L);
+        WowAPICharacter updated = character(1L, "Updated", 3000L);
+        store.put(1L, CharacterCodec.encode(first));
+        store.put(2L, CharacterCodec.encode(second));
+        store.put(1L, CharacterCodec.encode(updated));
+        store.checkpoint(3000L, store.position());
+
+        CharacterSegmentStore reopened = CharacterSegmentStore.open(dir, 16);
+        assertEquals(2, reopened.size());
+        assertRecord(updated, reopened);
+        assertRecord(second, reopened);
+        assertEquals(store.totalBytes(), reopened.totalBytes());
+        assertEquals(store.position(), reopened.position());
+        assertEquals(3000L, reopened.watermark());
+    }
+
+    @Test
+    public void testDelete() {
+        CharacterSegmentStore store = CharacterSegmentStore.open(dir, 16);
+        WowAPICharacter kept = character(1L, "Kept", 1000L);
+        store.put(1L, CharacterCodec.encode(kept));
+        store.put(2L, CharacterCodec.encode(character(2L, "Deleted", 1000L)));
+        store.remove(2L);
+        assertNull(store.remove(3L));
+        store.force();
+
+        CharacterSegmentStore reopened = CharacterSegmentStore.open(dir, 16);
+        assertEquals(1, reopened.size());
+        assertRecord(kept, reopened);
+        assertNull(reopened.get(2L));
+        assertEquals(store.totalBytes(), reopened.totalBytes());
+    }
+
+    @Test
+    public void testDictionaryRestore() {
+        CharacterSegmentStore store = CharacterSegmentStore.open(dir, 16);
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            samples.add(CharacterCodec.tail(CharacterCodec.encode(character(i, "Sample" + i, i))));
+        }
+        DictionaryCompression compression = DictionaryCompression.train(CharacterCodec.nextCompressionId(), samples);
+        try {
+            CharacterCodec.useTailCompression(compression);
+            WowAPICharacter character = character(1L, "Compressed", 1000L);
+            store.put(1L, CharacterCodec.encode(character));
+            store.force();
+            CharacterCodec.useTailCompression(BlobCompression.GZIP);
+
+            CharacterSegmentStore reopened = CharacterSegmentStore.open(dir, 16);
+            assertEquals(compression.id(), CharacterCodec.tailCompression().id());
+            assertRecord(character, reopened);
+            // The dictionaries are known to be persisted, only the record is appended
+            long position = reopened.position();
+            byte[] record = CharacterCodec.encode(character);
+            reopened.put(1L, record);
+            assertEquals(position + CharacterSegmentStore.ENTRY_HEADER + record.length, reopened.position());
+        } finally {
+            CharacterCodec.useTailCompression(BlobCompression.GZIP);
+        }
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        CharacterSegmentStore store = CharacterSegmentStore.open(dir, 16);
+        List<WowAPICharacter> latest = new ArrayList<>();
+        for (int round = 0; round < 5; round++) {
+            latest.clear();
+            for (long id = 1; id <= 20; id++) {
+                WowAPICharacter character = character(id, "Name" + id + "x" + round, round);
+                store.put(id, CharacterCodec.encode(character));
+                latest.add(character);
+            }
+        }
+        store.remove(20L);
+        latest.removeLast();
+        store.checkpoint(4L, store.position());
+        long before = store.position();
+        store.compact();
+        assertTrue(store.position() < before);
+        assertEquals(19, store.size());
+        for (WowAPICharacter character : latest) {
+            assertRecord(character, store);
+        }
+
+        CharacterSegmentStore reopened = CharacterSegmentStore.open(dir, 16);
+        assertEquals(19, reopened.size());
+        assertEquals(store.position(), reopened.position());
+        assertEquals(store.totalBytes(), reopened.totalBytes());
+        assertEquals(4L, reopened.watermark());
+        for (WowAPICharacter character : latest) {
+            assertRecord(character, reopened);
+        }
+    }
+
+    @Test
+    public void testTornEntryAfterCheckpoint() throws IOException {
+        CharacterSegmentStore store = CharacterSegmentStore.open(dir, 16);
+        WowAPICharacter durable = character(1L, "Durable", 1000L);
+        store.put(1L, CharacterCodec.encode(durable));
+        store.checkpoint(1000L, store.position());
+        byte[] tornRecord = CharacterCodec.encode(character(2L, "Torn", 2000L));
+        store.put(2L, tornRecord);
+        long end = store.position();
+        long torn = end - CharacterSegmentStore.ENTRY_HEADER - tornRecord.length;
+        store.put(3L, CharacterCodec.encode(character(3L, "After", 3000L)));
+        store.force();
+        // A payload byte of the second record never made it to disk
+        corrupt(end - 1, (byte) ~tornRecord[tornRecord.length - 1]);
+
+        CharacterSegmentStore reopened = CharacterSegmentStore.open(dir, 16);
+        assertEquals(1, reopened.size());
+        assertRecord(durable, reopened);
+        assertEquals(torn, reopened.position());
+        assertEquals(1000L, reopened.watermark());
+
+        // The record after the torn one doesn't come back behind new entries
+        WowAPICharacter next = character(4L, "Next", 4000L);
+        reopened.put(4L, CharacterCodec.encode(next));
+        reopened.force();
+        CharacterSegmentStore again = CharacterSegmentStore.open(dir, 16);
+        assertEquals(2, again.size());
+        assertRecord(durable, again);
+        assertRecord(next, again);
+        assertNull(again.get(3L));
+    }
+
+    @Test
+    public void testShortEntry() throws IOException {
+        CharacterSegmentStore store = CharacterSegmentStore.open(dir, 16);
+        WowAPICharacter durable = character(1L, "Durable", 1000L);
+        store.put(1L, CharacterCodec.encode(durable));
+        store.checkpoint(1000L, store.position());
+        long end = store.position();
+        store.force();
+        // Unknown type and a length running past the end of the segment
+        corrupt(end, (byte) 9, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0x7f);
+
+        CharacterSegmentStore reopened = CharacterSegmentStore.open(dir, 16);
+        assertEquals(1, reopened.size());
+        assertRecord(durable, reopened);
+        assertEquals(end, reopened.position());
+        assertEquals(1000L, reopened.watermark());
+    }
+
+    @Test
+    public void testCorruptEntryBeforeCheckpoint() throws IOException {
+        CharacterSegmentStore store = CharacterSegmentStore.open(dir, 16);
+        WowAPICharacter first = character(1L, "First", 1000L);
+        store.put(1L, CharacterCodec.encode(first));
+        long corrupt = store.position();
+        store.put(2L, CharacterCodec.encode(character(2L, "Second", 2000L)));
+        store.checkpoint(2000L, store.position());
+        corrupt(corrupt + CharacterSegmentStore.ENTRY_HEADER - Integer.BYTES, (byte) 0, (byte) 0, (byte) 0, (byte) 0);
+
+        CharacterSegmentStore reopened = CharacterSegmentStore.open(dir, 16);
+        assertEquals(1, reopened.size());
+        assertRecord(first, reopened);
+        // Everything has to be reloaded
+        assertEquals(0L, reopened.watermark());
+    }
+}
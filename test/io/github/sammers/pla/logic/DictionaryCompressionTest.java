@@ -0,0 +1,40 @@
+package io.github.sammers.pla.logic;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DictionaryCompressionTest {
+
+    private static byte[] sample(int i) {
+        return ("{\"achievements\":{\"total_quantity\":" + i + ",\"achievements\":[{\"id\":" + i
+            + ",\"name\":\"Gladiator: Dragonflight Season 1\",\"completed_timestamp\":1700000000000}]},"
+            + "\"media\":{\"avatar\":\"https://render.worldofwarcraft.com/eu/character/" + i + ".jpg\"}}")
+            .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testRoundTripAndRatio() {
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            samples.add(sample(i));
+        }
+        DictionaryCompression compression = DictionaryCompression.train(1, samples);
+        byte[] data = sample(1000);
+        byte[] compressed = compression.compress(data);
+        assertArrayEquals(data, compression.decompress(compressed));
+        assertTrue(compressed.length < BlobCompression.GZIP.compress(data).length);
+    }
+
+    @Test
+    public void testEmpty() {
+        DictionaryCompression compression = DictionaryCompression.train(1, List.of());
+        byte[] data = sample(1);
+        assertArrayEquals(data, compression.decompress(compression.compress(data)));
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.sammers.pla.logic;
+
+import io.github.sammers.pla.db.Character;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static io.github.sammers.pla.logic.Conts.THREE_V_THREE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DiffWindowTest {
+
+    private static CharAndDiff diff(String name, long rating, long won, long timestamp) {
+        return diff(name, rating, won, 0L, 10L, 0L, timestamp);
+    }
+
+    private static CharAndDiff diff(String name, long rating, long won, long lost, long ratingDiff, long rankDiff,
+        long timestamp) {
+        Character character = new Character(1L, rating, false, name, "Mage", "Frost Mage", "ALLIANCE", "MALE", "Human",
+            "kazzak", 10L, 5L, Optional.empty());
+        return new CharAndDiff(character, new Diff(won, lost, ratingDiff, rankDiff, timestamp));
+    }
+
+    @Test
+    public void testDiffsAccumulateAndExpire() {
+        DiffWindow window = new DiffWindow(THREE_V_THREE, 1000);
+        window.append(new SnapshotDiff(List.of(diff("a", 2000, 1, 100), diff("b", 2100, 2, 100)), 100L));
+        window.append(new SnapshotDiff(List.of(diff("a", 2200, 3, 200)), 200L));
+        // not newer than the last diff
+        window.append(new SnapshotDiff(List.of(diff("c", 2300, 1, 150)), 150L));
+        SnapshotDiff combined = window.combined(500);
+        assertEquals(200L, combined.timestamp());
+        assertEquals(List.of(diff("a", 2200, 4, 0, 20, 0, 200), diff("b", 2100, 2, 100)), combined.chars());
+        // the first diff expires, b goes away, a is left with its newer diff
+        assertEquals(List.of(diff("a", 2200, 3, 200)), window.combined(1150).chars());
+        assertEquals(0, window.combined(1250).chars().size());
+    }
+
+    @Test
+    public void testConsecutiveDiffsOfCharacter() {
+        DiffWindow window = new DiffWindow(THREE_V_THREE, 1000);
+        // 2000 -> 2018 in the first minute, 2018 -> 2006 in the next one
+        window.append(new SnapshotDiff(List.of(diff("a", 2018, 2, 1, 18, -3, 100)), 100L));
+        window.append(new SnapshotDiff(List.of(diff("a", 2006, 1, 3, -12, 2, 160)), 160L));
+        assertEquals(List.of(diff("a", 2006, 3, 4, 6, -1, 160)), window.combined(200).chars());
+        assertEquals(1, window.size());
+    }
+}
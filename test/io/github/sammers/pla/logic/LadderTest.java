@@ -0,0 +1,31 @@
+package io.github.sammers.pla.logic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LadderTest {
+
+    @Test
+    public void testIdPartitionsFollowTheSample() {
+        // most ids are small, a few are far out
+        List<Long> sample = List.of(900_000L, 5L, 30L, 10L, 20L, 25L, 15L, 1_000_000L);
+        List<long[]> partitions = Ladder.idPartitions(1, 1_000_000, sample, 4);
+        assertEquals(4, partitions.size());
+        assertArrayEquals(new long[] { 1, 15 }, partitions.get(0));
+        assertArrayEquals(new long[] { 15, 25 }, partitions.get(1));
+        assertArrayEquals(new long[] { 25, 900_000 }, partitions.get(2));
+        assertArrayEquals(new long[] { 900_000, 1_000_001 }, partitions.get(3));
+    }
+
+    @Test
+    public void testIdPartitionsWithoutDistinctBounds() {
+        List<long[]> partitions = Ladder.idPartitions(7, 7, List.of(7L, 7L, 7L), 4);
+        assertEquals(1, partitions.size());
+        assertArrayEquals(new long[] { 7, 8 }, partitions.get(0));
+        assertArrayEquals(new long[] { 1, 11 }, Ladder.idPartitions(1, 10, List.of(), 4).get(0));
+    }
+}
@@ -0,0 +1,65 @@
+package io.github.sammers.pla.logic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class PrimitiveMapsTest {
+
+    @Test
+    public void testLongObjectMapAgainstHashMap() {
+        Random random = new Random(42);
+        LongObjectMap<Long> map = new LongObjectMap<>(4);
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(3000);
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (long key = 0; key < 3000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    public void testLongLongMapRemovesOnlyMatchingValue() {
+        LongLongMap map = new LongLongMap(4);
+        assertEquals(LongLongMap.MISSING, map.put(7L, 100L));
+        assertFalse(map.remove(7L, 101L));
+        assertEquals(100L, map.get(7L));
+        assertEquals(100L, map.put(7L, 101L));
+        map.remove(7L, 101L);
+        assertEquals(LongLongMap.MISSING, map.get(7L));
+    }
+
+    @Test
+    public void testIntLongMultimap() {
+        IntLongMultimap map = new IntLongMultimap(4);
+        map.add(1, 10L);
+        map.add(1, 11L);
+        map.add(1, 10L);
+        map.add(2, 20L);
+        assertArrayEquals(new long[] { 10L, 11L }, map.get(1));
+        map.remove(1, 10L);
+        assertArrayEquals(new long[] { 11L }, map.get(1));
+        map.remove(1, 11L);
+        assertArrayEquals(new long[0], map.get(1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testMissingKey() {
+        assertNull(new LongObjectMap<String>(4).get(1L));
+    }
+}
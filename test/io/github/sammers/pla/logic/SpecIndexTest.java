@@ -0,0 +1,34 @@
+package io.github.sammers.pla.logic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SpecIndexTest {
+
+    private static final List<String> SPECS = List.of("Frost Mage", "Holy Paladin", "Fire Mage", "Frost Death Knight",
+        "Holy Priest");
+
+    @Test
+    public void testMergedRowsFollowRankThenRow() {
+        int[] ranks = { 3, 1, 2, 1, 0 };
+        SpecIndex index = SpecIndex.build(SPECS.size(), SPECS::get, row -> ranks[row]);
+        SpecIndex.Rows rows = index.match(List.of("frost", "holy"));
+        assertEquals(4, rows.size());
+        assertEquals(4, rows.get(0));
+        assertEquals(1, rows.get(1));
+        assertEquals(3, rows.get(2));
+        assertEquals(0, rows.get(3));
+    }
+
+    @Test
+    public void testIndexedListKeepsOrderAcrossViews() {
+        SpecIndexedList<String> list = SpecIndexedList.of(SPECS, s -> s);
+        assertEquals(List.of("Frost Mage", "Fire Mage"), list.filterSpecs(List.of("Mage")));
+        assertEquals(List.of("FROST MAGE", "FROST DEATH KNIGHT"),
+            list.map(String::toUpperCase).filterSpecs(List.of("frost")));
+        assertEquals(List.of("Fire Mage"), list.filterSpecs(List.of("Mage")).filterSpecs(List.of("fire")));
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.sammers.pla.logic;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.reactivex.rxjava3.subjects.CompletableSubject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StageGraphTest {
+
+    private static Completable recorded(List<String> order, String name, Completable work) {
+        return Completable.defer(() -> {
+            order.add(name);
+            return work;
+        });
+    }
+
+    @Test
+    public void testDependencyOrder() {
+        List<String> order = new ArrayList<>();
+        CompletableSubject cutoffs = CompletableSubject.create();
+        CompletableSubject ladder = CompletableSubject.create();
+        StageGraph graph = new StageGraph("eu")
+            .stage("cutoffs", recorded(order, "cutoffs", cutoffs))
+            .stage("ladder", recorded(order, "ladder", ladder), "cutoffs")
+            .stage("realms", recorded(order, "realms", Completable.complete()))
+            .stage("diffs", recorded(order, "diffs", Completable.complete()), "ladder", "realms");
+        TestObserver<Void> run = graph.run().test();
+        // independent stages start right away
+        assertEquals(List.of("cutoffs", "realms"), order);
+        run.assertNotComplete();
+        cutoffs.onComplete();
+        assertEquals(List.of("cutoffs", "realms", "ladder"), order);
+        run.assertNotComplete();
+        ladder.onComplete();
+        assertEquals(List.of("cutoffs", "realms", "ladder", "diffs"), order);
+        run.assertComplete();
+    }
+
+    @Test
+    public void testFailedStageUnblocksDependents() {
+        List<String> order = new ArrayList<>();
+        StageGraph graph = new StageGraph("us")
+            .stage("cutoffs", recorded(order, "cutoffs", Completable.error(new IllegalStateException("503"))))
+            .stage("ladder", recorded(order, "ladder", Completable.complete()), "cutoffs")
+            .stage("diffs", recorded(order, "diffs", Completable.complete()), "ladder");
+        graph.run().test().assertComplete().assertNoErrors();
+        assertEquals(List.of("cutoffs", "ladder", "diffs"), order);
+    }
+
+    @Test
+    public void testStagesRunOnce() {
+        List<String> order = new ArrayList<>();
+        StageGraph graph = new StageGraph("eu")
+            .stage("cutoffs", recorded(order, "cutoffs", Completable.complete()))
+            .stage("ladder", recorded(order, "ladder", Completable.complete()), "cutoffs")
+            .stage("realms", recorded(order, "realms", Completable.complete()), "cutoffs");
+        graph.run().test().assertComplete();
+        graph.run().test().assertComplete();
+        assertEquals(List.of("cutoffs", "ladder", "realms"), order);
+    }
+
+    @Test
+    public void testInvalidStages() {
+        StageGraph graph = new StageGraph("eu").stage("cutoffs", Completable.complete());
+        assertThrows(IllegalArgumentException.class, () -> graph.stage("cutoffs", Completable.complete()));
+        assertThrows(IllegalArgumentException.class, () -> graph.stage("ladder", Completable.complete(), "realms"));
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.sammers.pla.logic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class UpdateCadenceTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    public void testQuietBracketsBackOffWithinBudget() {
+        UpdateCadence cadence = new UpdateCadence(1, bracket -> 1);
+        List<String> brackets = List.of("3v3", "battlegrounds");
+        // unknown brackets are fetched regardless of the budget
+        assertEquals(brackets, cadence.select("en-gb", brackets, 0));
+        cadence.record("3v3", "en-gb", 100, 0);
+        cadence.record("battlegrounds", "en-gb", 0, 0);
+        for (int minute = 1; minute < 5; minute++) {
+            cadence.record("3v3", "en-gb", 100, minute * MINUTE);
+            cadence.record("battlegrounds", "en-gb", 0, minute * MINUTE);
+        }
+        assertEquals(List.of("3v3"), cadence.select("en-gb", brackets, 5 * MINUTE));
+        // not fetched for the max interval, fetched even over the budget
+        long later = 4 * MINUTE + UpdateCadence.MAX_INTERVAL_MINUTES * MINUTE;
+        assertEquals(brackets, cadence.select("en-gb", brackets, later));
+    }
+
+    @Test
+    public void testBudgetIsRankedAcrossRegionsByCost() {
+        UpdateCadence cadence = new UpdateCadence(42, bracket -> bracket.equals("shuffle") ? 40 : 1);
+        List<String> brackets = List.of("3v3", "shuffle");
+        assertEquals(brackets, cadence.select("en-gb", brackets, 0));
+        assertEquals(brackets, cadence.select("en-us", brackets, 0));
+        for (String region : List.of("en-gb", "en-us")) {
+            for (String bracket : brackets) {
+                cadence.record(bracket, region, 0, 0);
+            }
+        }
+        cadence.record("3v3", "en-gb", 20, MINUTE);
+        cadence.record("3v3", "en-us", 20, MINUTE);
+        cadence.record("shuffle", "en-gb", 20, MINUTE);
+        cadence.record("shuffle", "en-us", 200, MINUTE);
+        // the busier shuffle of the other region keeps its budget even though
+        // this region asks first
+        assertEquals(List.of("3v3"), cadence.select("en-gb", brackets, 2 * MINUTE));
+        assertEquals(brackets, cadence.select("en-us", brackets, 2 * MINUTE + 10_000L));
+        // the budget of the minute is spent
+        assertEquals(List.of(), cadence.select("en-gb", brackets, 2 * MINUTE + 20_000L));
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.sammers.pla.ratelim;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveRateLimiterTest {
+
+    @Test
+    public void testThrottledHalvesRateOncePerCooldown() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter("test-halves", 5, 100);
+        limiter.onThrottled(0);
+        assertEquals(50, limiter.rate(), 0.001);
+        // the other requests in flight fail together with the first one
+        limiter.onThrottled(0);
+        assertEquals(50, limiter.rate(), 0.001);
+    }
+
+    @Test
+    public void testSuccessProbesUpToMax() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter("test-probes", 5, 100);
+        limiter.onThrottled(0);
+        for (int i = 0; i < 50; i++) {
+            limiter.onSuccess();
+        }
+        assertTrue(limiter.rate() > 50 && limiter.rate() < 52, "rate " + limiter.rate());
+        for (int i = 0; i < 100_000; i++) {
+            limiter.onSuccess();
+        }
+        assertEquals(100, limiter.rate(), 0.001);
+    }
+
+    @Test
+    public void testBurstOfOneSecond() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter("test-burst", 1, 10);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+        limiter.returnNonUsed();
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void testRetryAfterPausesPermits() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter("test-retry-after", 5, 100);
+        limiter.onThrottled(TimeUnit.MINUTES.toMillis(1));
+        assertFalse(limiter.tryAcquire());
+        assertTrue(limiter.nanosUntilNextPermit() > TimeUnit.SECONDS.toNanos(59));
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.sammers.pla.ratelim;
+
+import io.reactivex.rxjava3.core.Completable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GcraRateLimiterTest {
+
+    @Test
+    public void testBurstThenReject() {
+        GcraRateLimiter limiter = new GcraRateLimiter("test", 10, 1, TimeUnit.HOURS);
+        assertEquals(0, limiter.nanosUntilNextPermit());
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+        assertEquals(0, limiter.availablePermits());
+        long wait = limiter.nanosUntilNextPermit();
+        assertTrue(wait > TimeUnit.MINUTES.toNanos(5) && wait <= TimeUnit.MINUTES.toNanos(6), "wait " + wait);
+    }
+
+    @Test
+    public void testReturnNonUsed() {
+        GcraRateLimiter limiter = new GcraRateLimiter("test", 2, 1, TimeUnit.HOURS);
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        limiter.returnNonUsed();
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void testNotPreloaded() {
+        GcraRateLimiter limiter = new GcraRateLimiter("test", 10, 1, TimeUnit.HOURS, false, null, null, null);
+        assertFalse(limiter.tryAcquire());
+        assertTrue(limiter.nanosUntilNextPermit() > 0);
+    }
+
+    @Test
+    public void testComposedReturnsPermitsOfPassedLimiters() {
+        GcraRateLimiter wide = new GcraRateLimiter("wide", 10, 1, TimeUnit.HOURS);
+        GcraRateLimiter narrow = new GcraRateLimiter("narrow", 1, 1, TimeUnit.HOURS);
+        ComposedRateLimiter composed = new ComposedRateLimiter(wide, narrow);
+        assertTrue(composed.tryAcquire());
+        assertFalse(composed.tryAcquire());
+        assertEquals(9, wide.availablePermits());
+        assertEquals(composed.nanosUntilNextPermit(), narrow.nanosUntilNextPermit());
+    }
+
+    @Test
+    public void testRxLimiterWaitsForPermits() {
+        RxRateLimiterImpl rx = new RxRateLimiterImpl("test", new GcraRateLimiter("test", 5, 500, TimeUnit.MILLISECONDS));
+        long start = System.nanoTime();
+        List<Completable> requests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            requests.add(rx.request());
+        }
+        Completable.merge(requests).blockingAwait();
+        long passed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        // 5 in a burst, the other 5 every 100ms
+        assertTrue(passed >= 450, "only " + passed + "ms passed");
+        rx.shutdown();
+    }
+}
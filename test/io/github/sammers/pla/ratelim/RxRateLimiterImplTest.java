@@ -0,0 +1,38 @@
+package io.github.sammers.pla.ratelim;
+
+import io.reactivex.rxjava3.core.Completable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RxRateLimiterImplTest {
+
+    @Test
+    public void testInteractiveOvertakesBackground() {
+        // no permits on start, then one every 50ms
+        GcraRateLimiter limiter = new GcraRateLimiter("test", 20, 1, TimeUnit.SECONDS, false, null, null, null);
+        RxRateLimiterImpl rx = new RxRateLimiterImpl("test", limiter);
+        List<String> order = new CopyOnWriteArrayList<>();
+        List<Completable> requests = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            int id = i;
+            requests.add(rx.request(RequestPriority.BACKGROUND).doOnComplete(() -> order.add("background-" + id)).cache());
+        }
+        requests.forEach(Completable::subscribe);
+        Completable interactive = rx.request(RequestPriority.INTERACTIVE).doOnComplete(() -> order.add("interactive"))
+            .cache();
+        interactive.subscribe();
+        requests.add(interactive);
+        Completable.merge(requests).blockingAwait();
+        assertEquals(7, order.size());
+        assertTrue(order.indexOf("interactive") <= 1, "order " + order);
+        assertEquals(0, rx.getQueueSize());
+        rx.shutdown();
+    }
+}